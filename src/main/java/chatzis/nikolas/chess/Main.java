@@ -1,8 +1,11 @@
 package chatzis.nikolas.chess;
 
 import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.game.GameStatus;
+import chatzis.nikolas.chess.game.PositionHistory;
 import chatzis.nikolas.chess.gui.ChessGUI;
 import chatzis.nikolas.chess.move.Move;
+import chatzis.nikolas.chess.move.MoveCache;
 import chatzis.nikolas.chess.pieces.Piece;
 import chatzis.nikolas.chess.utils.FieldNameConverter;
 
@@ -24,6 +27,7 @@ public class Main {
      * @param args String[] - arguments
      */
     public static void main(String[] args) {
+        Board.setMoveCache(new MoveCache(100_000, 32L << 20));
         new ChessGUI(args.length == 0 ? Board.createNewBoard() : Board.createNewBoard(Arrays.toString(args).replace("[", "").replace("]", "")));
     }
 
@@ -33,6 +37,8 @@ public class Main {
      */
     private Main() throws IOException {
         Board board = Board.createNewBoard();
+        PositionHistory history = new PositionHistory();
+        history.push(board);
         System.out.println(board);
 
         // Enter data using BufferReader
@@ -41,10 +47,13 @@ public class Main {
         // Reading data using readLine
         String name;
         Piece fromPiece = null;
+        byte fromField = -1;
         Set<Byte> moves;
         while (!(name = reader.readLine()).isEmpty()) {
             if (name.equalsIgnoreCase("exit")) {
                 board = Board.createNewBoard();
+                history.clear();
+                history.push(board);
                 continue;
             }
             try {
@@ -56,13 +65,14 @@ public class Main {
                         System.err.println("No piece");
                         continue;
                     }
-                    moves = fromPiece.getMoves(board);
+                    fromField = fieldNr;
+                    moves = board.getMoves(fromField);
                     printMoves(moves);
 
                     System.out.println("Selected " + fromPiece);
                 } else {
                     byte to = FieldNameConverter.fromFieldName(name);
-                    Move move = fromPiece.getMove(to);
+                    Move move = fromPiece.getMove(board, fromField, to);
                     fromPiece = null;
                     if (move == null) {
                         System.err.println("No possible move.");
@@ -70,11 +80,17 @@ public class Main {
                         continue;
                     }
                     board = board.makeMove(move);
+                    history.push(board);
 
                     System.out.println(board);
 
-                    if (board.getAllMovePositions().isEmpty()) {
-                        System.out.println("Checkmate");
+                    GameStatus status = board.getStatus();
+                    if (status.isOver()) {
+                        System.out.println(status == GameStatus.CHECKMATE ? "Checkmate" : status == GameStatus.STALEMATE ? "Stalemate" : "Draw");
+                        return;
+                    }
+                    if (history.isDraw()) {
+                        System.out.println("Draw");
                         return;
                     }
                     System.out.println("No checkmate");
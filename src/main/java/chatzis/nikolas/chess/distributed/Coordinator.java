@@ -0,0 +1,292 @@
+package chatzis.nikolas.chess.distributed;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.metrics.ProgressInfo;
+import chatzis.nikolas.chess.metrics.ProgressPublisher;
+import chatzis.nikolas.chess.move.Move;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Splits perft and analysis runs into {@link Task}s and dispatches them over TCP to {@link Worker}s.
+ * Every address gets one connection, which sends the next queued task as soon as the previous one is answered,
+ * so fast workers take more tasks. Results are aggregated as they arrive. If a connection fails (e.g. the worker
+ * process died), its running task is queued again for the other connections. The run only fails, if every connection failed.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class Coordinator {
+
+    private static final int TASKS_PER_CONNECTION = 8; // more tasks than connections even out the uneven subtrees
+    private static final int CONNECT_TIMEOUT = 5000;
+    private static final long POLL_MILLIS = 50;
+
+    private final List<InetSocketAddress> workers;
+    private Consumer<TaskResult> resultListener;
+    private ProgressPublisher progressPublisher;
+    private final AtomicInteger requeued = new AtomicInteger();
+
+    /**
+     * Instantiates the coordinator.
+     * @param workers List<InetSocketAddress> - one address per connection, the same worker may be listed once per core
+     */
+    public Coordinator(List<InetSocketAddress> workers) {
+        if (workers.isEmpty())
+            throw new IllegalArgumentException("No workers");
+        this.workers = List.copyOf(workers);
+    }
+
+    /**
+     * Sets the listener, which is called on the calling thread with every result as soon as it arrives.
+     * @param resultListener Consumer<TaskResult> - the listener (nullable)
+     */
+    public void setResultListener(Consumer<TaskResult> resultListener) {
+        this.resultListener = resultListener;
+    }
+
+    /**
+     * Sets the publisher, which receives the completed tasks and the nodes counted so far after every result.
+     * Submitting never blocks the coordinator, slow subscribers miss older infos instead.
+     * @param progressPublisher {@link ProgressPublisher} - the publisher (nullable)
+     */
+    public void setProgressPublisher(ProgressPublisher progressPublisher) {
+        this.progressPublisher = progressPublisher;
+    }
+
+    /**
+     * Counts the leaf nodes of the board. The first plies are expanded here, till there are enough subtrees for every connection.
+     * @param board Board - the starting board
+     * @param depth int - the depth to count
+     * @return long - the amount of move sequences with the given depth
+     * @throws IOException - if every connection failed
+     */
+    public long perft(Board board, int depth) throws IOException {
+        List<Board> subtrees = List.of(board);
+        int remaining = depth;
+        while (remaining > 1 && subtrees.size() < workers.size() * TASKS_PER_CONNECTION) {
+            List<Board> next = new ArrayList<>();
+            for (Board subtree : subtrees) {
+                for (short move : subtree.getLegalMoves())
+                    next.add(subtree.makeMove(subtree.getMove(Move.packedFrom(move), Move.packedTo(move))));
+            }
+            subtrees = next;
+            remaining--;
+        }
+
+        List<Task> tasks = new ArrayList<>(subtrees.size());
+        for (Board subtree : subtrees)
+            tasks.add(new Task(tasks.size(), Task.Type.PERFT, remaining, subtree.toFen()));
+        long nodes = 0;
+        for (TaskResult result : run(tasks))
+            nodes += result.getNodes();
+        return nodes;
+    }
+
+    /**
+     * Searches the best move of every board.
+     * @param boards List<Board> - the boards
+     * @param depth int - the depth of every search
+     * @return List<TaskResult> - the results in the order of the boards
+     * @throws IOException - if every connection failed
+     */
+    public List<TaskResult> analyse(List<Board> boards, int depth) throws IOException {
+        List<Task> tasks = new ArrayList<>(boards.size());
+        for (Board board : boards)
+            tasks.add(new Task(tasks.size(), Task.Type.SEARCH, depth, board.toFen()));
+        return run(tasks);
+    }
+
+    /**
+     * Dispatches the tasks and waits for all results.
+     * @param tasks List<Task> - the tasks, whose ids are their indices
+     * @return List<TaskResult> - the results in the order of the tasks
+     * @throws IOException - if every connection failed
+     * @throws IllegalArgumentException - if a worker could not compute a task
+     */
+    public List<TaskResult> run(List<Task> tasks) throws IOException {
+        requeued.set(0);
+        BlockingDeque<Task> pending = new LinkedBlockingDeque<>(tasks);
+        BlockingQueue<Object> events = new LinkedBlockingQueue<>(); // results and exceptions of failed connections
+        Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+        for (InetSocketAddress worker : workers)
+            executor.execute(() -> connect(worker, pending, events, sockets, done));
+
+        TaskResult[] results = new TaskResult[tasks.size()];
+        int completed = 0;
+        int failed = 0;
+        long nodes = 0;
+        long start = System.currentTimeMillis();
+        try {
+            while (completed < tasks.size()) {
+                Object event = events.take();
+                if (event instanceof IOException exception) {
+                    if (++failed == workers.size())
+                        throw new IOException("Every worker failed, " + (tasks.size() - completed) + " tasks left", exception);
+                    continue;
+                }
+
+                TaskResult result = (TaskResult) event;
+                if (result.getError() != null)
+                    throw new IllegalArgumentException("Task " + result.getTask() + " failed: " + result.getError());
+                if (results[result.getTask().getId()] == null) {
+                    results[result.getTask().getId()] = result;
+                    completed++;
+                    nodes += result.getNodes();
+                    if (resultListener != null)
+                        resultListener.accept(result);
+                    if (progressPublisher != null && progressPublisher.hasSubscribers())
+                        publishProgress(result, nodes, start, completed, tasks.size());
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", exception);
+        } finally {
+            done.set(true);
+            for (Socket socket : sockets)
+                socket.close();
+            executor.shutdownNow();
+        }
+        return Arrays.asList(results);
+    }
+
+    private void publishProgress(TaskResult result, long nodes, long start, int completed, int total) {
+        Task task = result.getTask();
+        boolean perft = task.getType() == Task.Type.PERFT;
+        progressPublisher.submit(new ProgressInfo(perft ? ProgressInfo.Source.PERFT : ProgressInfo.Source.ANALYSIS,
+                task.getDepth(), result.getScore(), result.getMove() == null ? List.of() : List.of(result.getMove()),
+                nodes, System.currentTimeMillis() - start, -1, completed, total));
+    }
+
+    /**
+     * Sends queued tasks over one connection, till the run is done or the connection fails.
+     * The task of a failed connection is queued again.
+     */
+    private void connect(InetSocketAddress worker, BlockingDeque<Task> pending, BlockingQueue<Object> events, Set<Socket> sockets, AtomicBoolean done) {
+        Task task = null;
+        try (Socket socket = new Socket()) {
+            sockets.add(socket);
+            socket.connect(worker, CONNECT_TIMEOUT);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            while (!done.get()) {
+                task = pending.pollFirst(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (task == null)
+                    continue;
+                writer.write(task.toLine());
+                writer.newLine();
+                writer.flush();
+                String line = reader.readLine();
+                if (line == null)
+                    throw new EOFException("Worker " + worker + " closed the connection");
+                events.add(TaskResult.parse(task, line));
+                task = null;
+            }
+        } catch (IOException | RuntimeException exception) {
+            if (task != null) {
+                pending.offerFirst(task);
+                requeued.incrementAndGet();
+            }
+            if (!done.get())
+                events.add(exception instanceof IOException ? exception : new IOException(exception));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the tasks of failed connections, which were queued again during the last run.
+     * @return int - the queued tasks
+     */
+    public int getRequeued() {
+        return requeued.get();
+    }
+
+    /**
+     * Runs perft or an analysis on workers from the command line.
+     * Arguments: depth [fen] [--workers n] [--connect host:port,...] [--hash mb] [--analyse file]
+     * Without --connect, n worker processes (default: one per core) are started on this host.
+     * With --analyse, every line of the file is a notation to search with the depth.
+     * @param args String[] - the arguments
+     * @throws IOException - if the workers fail or the file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        int depth = Integer.parseInt(args[0]);
+        String fen = null;
+        int workerCount = Runtime.getRuntime().availableProcessors();
+        String connect = null;
+        int hash = 0;
+        Path analyse = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--workers" -> workerCount = Integer.parseInt(args[++i]);
+                case "--connect" -> connect = args[++i];
+                case "--hash" -> hash = Integer.parseInt(args[++i]);
+                case "--analyse" -> analyse = Path.of(args[++i]);
+                default -> fen = fen == null ? args[i] : fen + " " + args[i];
+            }
+        }
+
+        WorkerProcesses processes = null;
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        if (connect != null) {
+            for (String address : connect.split(",")) {
+                int colon = address.lastIndexOf(':');
+                addresses.add(new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1))));
+            }
+        } else {
+            processes = new WorkerProcesses(workerCount, hash);
+            addresses.addAll(processes.getAddresses());
+        }
+
+        try {
+            Coordinator coordinator = new Coordinator(addresses);
+            long time = System.currentTimeMillis();
+            if (analyse != null) {
+                List<Board> boards = new ArrayList<>();
+                for (String line : Files.readAllLines(analyse)) {
+                    if (!line.isBlank())
+                        boards.add(Board.createNewBoard(line.trim()));
+                }
+                for (TaskResult result : coordinator.analyse(boards, depth))
+                    System.out.println(result.getTask().getFen() + ": " + result.getMove() + " " + result.getScore());
+            } else {
+                Board board = fen == null ? Board.createNewBoard() : Board.createNewBoard(fen);
+                System.out.println("Nodes: " + coordinator.perft(board, depth));
+            }
+            System.out.println("Time: " + (System.currentTimeMillis() - time) + "ms");
+            if (coordinator.getRequeued() > 0)
+                System.out.println("Requeued: " + coordinator.getRequeued());
+        } finally {
+            if (processes != null)
+                processes.close();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package chatzis.nikolas.chess.distributed;
+
+/**
+ * A subtree sent to a {@link Worker}: the board as Forsyth-Edwards Notation and the remaining depth.
+ * On the wire a task is one line: "id type depth fen".
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public final class Task {
+
+    /**
+     * What the worker computes for the board.
+     */
+    public enum Type {
+        /** The leaf nodes up to the depth. */
+        PERFT,
+        /** The best move found by a search of the depth. */
+        SEARCH
+    }
+
+    private final int id;
+    private final Type type;
+    private final int depth;
+    private final String fen;
+
+    /**
+     * Instantiates the task.
+     * @param id int - the id, unique within one run of the {@link Coordinator}
+     * @param type Type - what to compute
+     * @param depth int - the remaining depth
+     * @param fen String - the board in the order of {@link chatzis.nikolas.chess.game.Board#createNewBoard(String)}
+     */
+    public Task(int id, Type type, int depth, String fen) {
+        this.id = id;
+        this.type = type;
+        this.depth = depth;
+        this.fen = fen;
+    }
+
+    /**
+     * Reads the task from its line.
+     * @param line String - the line
+     * @return Task - the task
+     * @throws IllegalArgumentException - if the line is no task
+     */
+    static Task parse(String line) {
+        String[] parts = line.split(" ", 4);
+        if (parts.length < 4)
+            throw new IllegalArgumentException("Invalid task " + line);
+        return new Task(Integer.parseInt(parts[0]), Type.valueOf(parts[1]), Integer.parseInt(parts[2]), parts[3]);
+    }
+
+    /**
+     * Writes the task as one line without line break.
+     * @return String - the line
+     */
+    String toLine() {
+        return id + " " + type + " " + depth + " " + fen;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    @Override
+    public String toString() {
+        return toLine();
+    }
+}
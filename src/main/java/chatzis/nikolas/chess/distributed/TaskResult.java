@@ -0,0 +1,122 @@
+package chatzis.nikolas.chess.distributed;
+
+/**
+ * The answer of a {@link Worker} to a {@link Task}.
+ * On the wire a result is one line: "id nodes" for perft, "id move score" for a search
+ * (the move as from and to field, e.g. "e2e4", or "-" without a move) and "id ERROR message" if the task failed.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public final class TaskResult {
+
+    private static final String ERROR = "ERROR";
+    private static final String NO_MOVE = "-";
+
+    private final Task task;
+    private final long nodes;
+    private final String move;
+    private final int score;
+    private final String error;
+
+    private TaskResult(Task task, long nodes, String move, int score, String error) {
+        this.task = task;
+        this.nodes = nodes;
+        this.move = move;
+        this.score = score;
+        this.error = error;
+    }
+
+    /**
+     * Instantiates the result of a perft task.
+     * @param task Task - the task
+     * @param nodes long - the leaf nodes
+     * @return TaskResult - the result
+     */
+    static TaskResult perft(Task task, long nodes) {
+        return new TaskResult(task, nodes, null, 0, null);
+    }
+
+    /**
+     * Instantiates the result of a search task.
+     * @param task Task - the task
+     * @param move String - the best move, e.g. "e2e4" (nullable, if there is no legal move)
+     * @param score int - the score of the current player
+     * @return TaskResult - the result
+     */
+    static TaskResult search(Task task, String move, int score) {
+        return new TaskResult(task, 0, move, score, null);
+    }
+
+    /**
+     * Instantiates the result of a failed task.
+     * @param task Task - the task
+     * @param error String - the message
+     * @return TaskResult - the result
+     */
+    static TaskResult error(Task task, String error) {
+        return new TaskResult(task, 0, null, 0, error);
+    }
+
+    /**
+     * Reads the result of the task from the line of the worker.
+     * @param task Task - the sent task
+     * @param line String - the line
+     * @return TaskResult - the result
+     * @throws IllegalStateException - if the line does not answer the task
+     */
+    static TaskResult parse(Task task, String line) {
+        String[] parts = line.split(" ", 3);
+        if (parts.length < 2 || !parts[0].equals(String.valueOf(task.getId())))
+            throw new IllegalStateException("Unexpected answer " + line + " to " + task);
+        if (parts[1].equals(ERROR))
+            return error(task, parts.length > 2 ? parts[2] : "");
+        if (task.getType() == Task.Type.PERFT)
+            return perft(task, Long.parseLong(parts[1]));
+        return search(task, parts[1].equals(NO_MOVE) ? null : parts[1], Integer.parseInt(parts[2]));
+    }
+
+    /**
+     * Writes the result as one line without line break.
+     * @return String - the line
+     */
+    String toLine() {
+        if (error != null)
+            return task.getId() + " " + ERROR + " " + error.replace('\n', ' ');
+        if (task.getType() == Task.Type.PERFT)
+            return task.getId() + " " + nodes;
+        return task.getId() + " " + (move == null ? NO_MOVE : move) + " " + score;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the best move of a search.
+     * @return String - the move as from and to field, e.g. "e2e4" (nullable)
+     */
+    public String getMove() {
+        return move;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the message, if the worker could not compute the task, e.g. because of an invalid notation.
+     * @return String - the message (nullable)
+     */
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return toLine();
+    }
+}
@@ -0,0 +1,169 @@
+package chatzis.nikolas.chess.distributed;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.perft.Perft;
+import chatzis.nikolas.chess.perft.PerftTable;
+import chatzis.nikolas.chess.search.PieceSquareEvaluator;
+import chatzis.nikolas.chess.search.Search;
+import chatzis.nikolas.chess.search.SearchLimits;
+import chatzis.nikolas.chess.search.SearchResult;
+import chatzis.nikolas.chess.search.TranspositionTable;
+import chatzis.nikolas.chess.utils.FieldNameConverter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Computes the {@link Task}s of a {@link Coordinator} received over TCP, one line per task and per result.
+ * Every connection is served by its own thread one task after another, so a coordinator opens one connection per core it wants to use.
+ * The connections share one {@link PerftTable}, each has its own {@link Search}.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class Worker implements AutoCloseable {
+
+    private static final int SEARCH_TABLE_MEGABYTES = 16;
+
+    private final ServerSocket server;
+    private final PerftTable table;
+    private final ExecutorService executor;
+    private final Set<Socket> connections;
+
+    /**
+     * Instantiates the worker, which is not started yet.
+     * @param port int - the port to listen on (0 for any free port)
+     * @param hashMegabytes int - the size of the perft table (0 for none)
+     * @throws IOException - if the port cannot be bound
+     */
+    public Worker(int port, int hashMegabytes) throws IOException {
+        this.server = new ServerSocket(port);
+        this.table = hashMegabytes > 0 ? new PerftTable(hashMegabytes) : null;
+        this.executor = Executors.newCachedThreadPool();
+        this.connections = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Accepts connections in the background.
+     */
+    public void start() {
+        executor.execute(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    connections.add(socket);
+                    executor.execute(() -> serve(socket));
+                } catch (IOException exception) {
+                    if (!server.isClosed())
+                        System.err.println("Worker cannot accept: " + exception.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the port the worker listens on.
+     * @return int - the port
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Stops the worker and drops every connection, running tasks are not answered.
+     */
+    @Override
+    public void close() {
+        try {
+            server.close();
+            for (Socket socket : connections)
+                socket.close();
+        } catch (IOException ignored) {
+            // the worker is gone either way
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Answers the tasks of one connection, till the coordinator closes it.
+     * @param socket Socket - the connection
+     */
+    private void serve(Socket socket) {
+        Perft perft = new Perft(table);
+        Search search = new Search(new PieceSquareEvaluator(), new TranspositionTable(SEARCH_TABLE_MEGABYTES));
+        try (socket;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                writer.write(compute(line, perft, search).toLine());
+                writer.newLine();
+                writer.flush();
+            }
+        } catch (IOException exception) {
+            // the coordinator is gone, its tasks are queued again there
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    /**
+     * Computes the task of the line.
+     * @param line String - the task
+     * @param perft Perft - the perft of the connection
+     * @param search Search - the search of the connection
+     * @return TaskResult - the result, an error if the line or the notation is invalid
+     */
+    static TaskResult compute(String line, Perft perft, Search search) {
+        Task task;
+        try {
+            task = Task.parse(line);
+        } catch (RuntimeException exception) {
+            return TaskResult.error(new Task(-1, Task.Type.PERFT, 0, ""), "Invalid task " + line);
+        }
+        try {
+            Board board = Board.createNewBoard(task.getFen());
+            if (task.getType() == Task.Type.PERFT)
+                return TaskResult.perft(task, perft.perft(board, task.getDepth()));
+
+            SearchResult result = search.search(board, null, SearchLimits.depth(task.getDepth()));
+            String move = result.getBestMove() == null ? null :
+                    String.valueOf(FieldNameConverter.fromFieldNumber(result.getBestMove().from())) +
+                    String.valueOf(FieldNameConverter.fromFieldNumber(result.getBestMove().to()));
+            return TaskResult.search(task, move, result.getScore());
+        } catch (RuntimeException exception) {
+            return TaskResult.error(task, String.valueOf(exception.getMessage()));
+        }
+    }
+
+    /**
+     * Runs a worker till the process is stopped and prints its port as first line, so a parent process can connect.
+     * Arguments: [port] [--hash mb]
+     * @param args String[] - the arguments
+     * @throws IOException - if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = 0;
+        int hash = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--hash"))
+                hash = Integer.parseInt(args[++i]);
+            else
+                port = Integer.parseInt(args[i]);
+        }
+
+        Worker worker = new Worker(port, hash);
+        worker.start();
+        System.out.println("Listening on " + worker.getPort());
+        System.out.flush();
+    }
+}
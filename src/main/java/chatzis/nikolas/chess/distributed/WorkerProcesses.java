@@ -0,0 +1,76 @@
+package chatzis.nikolas.chess.distributed;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts {@link Worker} JVMs on this host with the class path of the running JVM, the stand-in for a cluster.
+ * The workers listen on free ports and are reached over the loopback address.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class WorkerProcesses implements AutoCloseable {
+
+    private static final String LISTENING = "Listening on ";
+
+    private final List<Process> processes = new ArrayList<>();
+    private final List<InetSocketAddress> addresses = new ArrayList<>();
+
+    /**
+     * Starts the workers and waits till every worker listens.
+     * @param count int - the amount of worker processes
+     * @param hashMegabytes int - the size of the perft table of every worker (0 for none)
+     * @throws IOException - if a worker cannot be started
+     */
+    public WorkerProcesses(int count, int hashMegabytes) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        try {
+            for (int i = 0; i < count; i++) {
+                Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        Worker.class.getName(), "0", "--hash", String.valueOf(hashMegabytes))
+                        .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+                processes.add(process);
+                // the first line is the only output of a worker, so its pipe never fills up
+                String line = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)).readLine();
+                if (line == null || !line.startsWith(LISTENING))
+                    throw new IOException("Worker did not start: " + line);
+                addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(line.substring(LISTENING.length()))));
+            }
+        } catch (IOException | RuntimeException exception) {
+            close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Returns the addresses of the workers.
+     * @return List<InetSocketAddress> - one address per worker
+     */
+    public List<InetSocketAddress> getAddresses() {
+        return List.copyOf(addresses);
+    }
+
+    /**
+     * Kills the worker, e.g. to test the recovery of the {@link Coordinator}.
+     * @param index int - the index of the worker
+     */
+    public void kill(int index) {
+        processes.get(index).destroyForcibly();
+    }
+
+    /**
+     * Kills every worker.
+     */
+    @Override
+    public void close() {
+        for (Process process : processes)
+            process.destroyForcibly();
+    }
+}
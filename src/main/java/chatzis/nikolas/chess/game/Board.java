@@ -1,20 +1,33 @@
 package chatzis.nikolas.chess.game;
 
+import chatzis.nikolas.chess.metrics.AttackCheckEvent;
+import chatzis.nikolas.chess.metrics.MakeMoveEvent;
+import chatzis.nikolas.chess.metrics.Metrics;
+import chatzis.nikolas.chess.metrics.MoveGenerationEvent;
 import chatzis.nikolas.chess.move.Move;
+import chatzis.nikolas.chess.move.MoveCache;
 import chatzis.nikolas.chess.move.SpecialMove;
+import chatzis.nikolas.chess.nnue.Accumulator;
+import chatzis.nikolas.chess.nnue.Network;
 import chatzis.nikolas.chess.pieces.King;
 import chatzis.nikolas.chess.pieces.Pawn;
 import chatzis.nikolas.chess.pieces.Piece;
 import chatzis.nikolas.chess.pieces.Rook;
 import chatzis.nikolas.chess.utils.BoardUtils;
 import chatzis.nikolas.chess.utils.FieldNameConverter;
+import chatzis.nikolas.chess.utils.Zobrist;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * Board class to store every piece.
+ * A board is never changed after its creation, making a move returns a new board.
+ * Because the pieces are shared flyweights and their positions are stored in here,
+ * a board can safely be read by multiple threads.
  *
  * @author Nikolas Chatzis
  * @since 1.0-Snapshot
@@ -41,7 +54,7 @@ public class Board {
 
         String[] board = fenData[0].split("/");
 
-        Map<Byte, Piece> pieceSet = new HashMap<>();
+        Piece[] pieces = new Piece[64];
 
         byte whiteKing = 0;
         byte blackKing = 0;
@@ -52,8 +65,8 @@ public class Board {
                 try {
                     x += Integer.parseInt(chessPieceChar + ""); // Is number
                 } catch (NumberFormatException exception) {
-                    Piece piece = BoardUtils.getPieceByChar(chessPieceChar, (byte) x);
-                    pieceSet.put((byte) x, piece);
+                    Piece piece = BoardUtils.getPieceByChar(chessPieceChar);
+                    pieces[x] = piece;
                     if (piece instanceof King) {
                         if (piece.getBelong().equals(Player.WHITE)) {
                             whiteKing = (byte) x;
@@ -67,54 +80,98 @@ public class Board {
         }
 
         return new Board(fenData[1].equals("w") ? Player.WHITE : Player.BLACK,
-                pieceSet, whiteKing, blackKing, FieldNameConverter.fromFieldName(fenData[3]),
-                new boolean[][]{new boolean[]{fenData[2].contains("K"), fenData[2].contains("Q")}, new boolean[]{fenData[2].contains("k"), fenData[2].contains("q")}});
+                pieces, whiteKing, blackKing, FieldNameConverter.fromFieldName(fenData[3]),
+                new boolean[][]{new boolean[]{fenData[2].contains("K"), fenData[2].contains("Q")}, new boolean[]{fenData[2].contains("k"), fenData[2].contains("q")}},
+                fenData.length > 4 ? Integer.parseInt(fenData[4]) : 0,
+                fenData.length > 5 ? Integer.parseInt(fenData[5]) : 1);
     }
 
 
     private final Player currentPlayer;
-    private final Map<Byte, Piece> pieceSet;
+    private final Piece[] pieces; // indexed by position
     private final boolean[][] castlingRights; // white?: [king-sided?, queen-sided?]
     private final byte whiteKing;
     private final byte blackKing;
     private final byte enPassant;
+    private final int halfMoveClock; // moves since the last capture or pawn move
+    private final int fullMoveNumber;
     private final byte simulationDepth;
-    private Boolean kingNotInCheck;
+    private volatile Boolean kingNotInCheck; // lazily computed, racing threads compute the same value
+    private volatile long hash; // lazily computed, 0 if not computed yet
+    private volatile PieceMoves pieceMoves; // moves of the current player, lazily generated
+    private volatile GameStatus status; // lazily computed, racing threads compute the same value
+    private volatile Accumulator accumulator; // first layer of the network, updated by every move while a network is set
+    private PieceMoves inheritedMoves; // moves of the current player two plies earlier, released after generating
+    private PieceMoves previousMoves; // moves of the previous player, inherited by the next board
+
+    private static volatile MoveCache moveCache;
+    private static volatile Network network;
+
+    /**
+     * Sets the cache which stores the legal moves of positions across boards.
+     * Boards with the same position key will then only generate their moves once.
+     *
+     * @param cache {@link MoveCache} - the cache to use (nullable to disable caching)
+     * @since 1.1-SNAPSHOT
+     */
+    public static void setMoveCache(MoveCache cache) {
+        moveCache = cache;
+    }
+
+    /**
+     * Sets the network whose {@link Accumulator} is updated incrementally by every move: the first board sums
+     * all its pieces once, the boards after it only change the columns of the moved pieces.
+     * Without a network, accumulators are only calculated on request.
+     *
+     * @param network {@link Network} - the network to update (nullable to disable the updates)
+     * @since 1.1-SNAPSHOT
+     */
+    public static void setNetwork(Network network) {
+        Board.network = network;
+    }
 
     /**
      * Instantiates the class
      *
      * @param currentPlayer Player - the current player (white, black)
-     * @param pieces      {@link Piece} - the piece list
-     * @param whiteKing     {@link King} - the white king piece
-     * @param blackKing     {@link King} - the black king piece
+     * @param pieces      {@link Piece}[] - the pieces indexed by their position
+     * @param whiteKing     byte - the position of the white king
+     * @param blackKing     byte - the position of the black king
      * @param enPassant      Byte - a possible en passant position
      * @param castleRights boolean[][] - castle rights like this: [[W-king-sided?, W-queen-sided?], [B-king-sided?, B-queen-sided?]]
+     * @param halfMoveClock int - the half moves since the last capture or pawn move
+     * @param fullMoveNumber int - the number of the full move, starting at 1
      * @since 1.0-Snapshot
      */
-    private Board(Player currentPlayer, Map<Byte, Piece> pieces,  byte whiteKing, byte blackKing, byte enPassant, boolean[][] castleRights) {
-        this (currentPlayer, pieces, whiteKing, blackKing, enPassant, castleRights, (byte) 0);
+    private Board(Player currentPlayer, Piece[] pieces,  byte whiteKing, byte blackKing, byte enPassant, boolean[][] castleRights,
+                  int halfMoveClock, int fullMoveNumber) {
+        this (currentPlayer, pieces, whiteKing, blackKing, enPassant, castleRights, halfMoveClock, fullMoveNumber, (byte) 0);
     }
 
     /**
      * Instantiates the class
      *
      * @param currentPlayer Player - the current player (white, black)
-     * @param pieces      {@link Piece} - the piece list
-     * @param whiteKing     {@link King} - the white king piece
-     * @param blackKing     {@link King} - the black king piece
+     * @param pieces      {@link Piece}[] - the pieces indexed by their position
+     * @param whiteKing     byte - the position of the white king
+     * @param blackKing     byte - the position of the black king
      * @param enPassant      Byte - a possible en passant position
      * @param castleRights boolean[][] - castle rights like this: [[W-king-sided?, W-queen-sided?], [B-king-sided?, B-queen-sided?]]
+     * @param halfMoveClock int - the half moves since the last capture or pawn move
+     * @param fullMoveNumber int - the number of the full move, starting at 1
      * @param simulationDepth int - the simulated depth (until 2)
      * @since 1.0-Snapshot
      */
-    private Board(Player currentPlayer, Map<Byte, Piece> pieces, Byte whiteKing, Byte blackKing, byte enPassant, boolean[][] castleRights, byte simulationDepth) {
+    private Board(Player currentPlayer, Piece[] pieces, byte whiteKing, byte blackKing, byte enPassant, boolean[][] castleRights,
+                  int halfMoveClock, int fullMoveNumber, byte simulationDepth) {
         this.currentPlayer = currentPlayer;
-        this.pieceSet = pieces;
+        this.pieces = pieces;
         this.whiteKing = whiteKing;
         this.blackKing = blackKing;
         this.enPassant = enPassant;
         this.castlingRights = castleRights;
+        this.halfMoveClock = halfMoveClock;
+        this.fullMoveNumber = fullMoveNumber;
         this.simulationDepth = simulationDepth;
     }
 
@@ -125,35 +182,214 @@ public class Board {
      * @return Piece - the piece on the field (nullable)
      */
     public Piece getPieceOnBoard(int fieldNumber) {
-        if (!pieceSet.containsKey((byte) fieldNumber))
+        if (fieldNumber < 0 || fieldNumber > 63)
             return null;
-        return pieceSet.get((byte) fieldNumber);
+        return pieces[fieldNumber];
+    }
+
+    /**
+     * Get all the legal move positions of the piece on the given field.
+     *
+     * @param fieldNumber byte - the field number of the piece.
+     * @return Set<Byte> - all the to-positions, empty if there is no piece
+     * @since 1.1-SNAPSHOT
+     */
+    public Set<Byte> getMoves(byte fieldNumber) {
+        Piece piece = getPieceOnBoard(fieldNumber);
+        if (piece == null || piece.getBelong() != currentPlayer)
+            return piece != null ? piece.getMoves(this, fieldNumber) : Set.of();
+
+        Set<Byte> moves = new HashSet<>();
+        for (short move : getLegalMoves()) {
+            if (Move.packedFrom(move) == fieldNumber)
+                moves.add(Move.packedTo(move));
+        }
+        return moves;
     }
 
     /**
-     * Checks if the field is not occupied and the piece doesn't move out of the border.
+     * Creates the move of the piece on the from position to the to position.
      *
-     * @param from int - from position
-     * @param to   int - to position
-     * @return boolean - can move from position to position.
+     * @param from byte - the position of the moving piece.
+     * @param to   byte - the position to move to.
+     * @return {@link Move} - the move (nullable if there is no piece)
+     * @since 1.1-SNAPSHOT
      */
-    public boolean canMove(int from, int to) {
-        return BoardUtils.staysOnBoard(from, to) && getPieceOnBoard(to) == null;
+    public Move getMove(byte from, byte to) {
+        Piece piece = getPieceOnBoard(from);
+        return piece != null ? piece.getMove(this, from, to) : null;
     }
 
     /**
-     * Returns a list of all moves the player has.
-     * @return List<Move> - all moves the current player can do.
+     * Evaluates the exchange started by the move without making any move (static exchange evaluation).
+     * Both players recapture on the to position with their least valuable attackers, including x-ray attackers
+     * behind sliders, and stop as soon as continuing would lose material. Pins are ignored.
+     *
+     * @param from byte - the position of the moving piece.
+     * @param to   byte - the position to move to.
+     * @return int - the material in centipawns the current player wins, negative if the move loses material
+     * @since 1.1-SNAPSHOT
      */
-    public Map<Piece, Set<Byte>> getAllMovePositions() {
-        Map<Piece, Set<Byte>> allPieceMoves = new HashMap<>();
-        for (Piece piece : pieceSet.values()) {
-            if (piece != null && piece.getBelong() == currentPlayer) {
-                Set<Byte> pieceMoves = piece.getMoves(this);
-                if(!pieceMoves.isEmpty()) allPieceMoves.put(piece, pieceMoves);
+    public int staticExchange(byte from, byte to) {
+        return StaticExchange.evaluate(this, from, to);
+    }
+
+    /**
+     * Returns all moves the player has, grouped by the position of the moving piece.
+     * @return Map<Byte, Set<Byte>> - from-position to all to-positions the current player can do.
+     */
+    public Map<Byte, Set<Byte>> getAllMovePositions() {
+        Map<Byte, Set<Byte>> allPieceMoves = new HashMap<>();
+        for (short move : getLegalMoves())
+            allPieceMoves.computeIfAbsent(Move.packedFrom(move), from -> new HashSet<>()).add(Move.packedTo(move));
+        return allPieceMoves;
+    }
+
+    /**
+     * Returns all legal moves of the current player packed by {@link Move#pack(int, int)}.
+     * If a {@link MoveCache} is set, the moves are looked up by the position key first.
+     * @return short[] - the packed moves, the array is shared and must not be modified
+     * @since 1.1-SNAPSHOT
+     */
+    public short[] getLegalMoves() {
+        MoveGenerationEvent event = new MoveGenerationEvent();
+        event.begin();
+        Metrics.increment(Metrics.Counter.LEGAL_MOVE_GENERATION);
+
+        MoveCache cache = moveCache;
+        short[] moves = null;
+        if (cache != null && !isSimulation()) {
+            long key = getHash();
+            moves = cache.get(key);
+            Metrics.increment(moves != null ? Metrics.Counter.MOVE_CACHE_HIT : Metrics.Counter.MOVE_CACHE_MISS);
+            if (moves == null) {
+                moves = generateLegalMoves();
+                cache.put(key, moves);
+            } else {
+                event.cacheHit = true;
             }
+        } else {
+            moves = generateLegalMoves();
         }
-        return allPieceMoves;
+
+        if (event.shouldCommit()) {
+            event.moves = moves.length;
+            event.commit();
+        }
+        return moves;
+    }
+
+    /**
+     * Returns the status of the game, which is decided by this position alone (checkmate, stalemate or insufficient material).
+     * Stops at the first legal move instead of generating all moves, so it can be called after every move.
+     * @return {@link GameStatus} - the status
+     * @since 1.1-SNAPSHOT
+     */
+    public GameStatus getStatus() {
+        GameStatus current = status;
+        if (current == null) {
+            current = GameStatus.of(this);
+            status = current;
+        }
+        return current;
+    }
+
+    /**
+     * Returns the first layer of the network for this position. If the network is set by {@link #setNetwork(Network)},
+     * the accumulator of the previous board was already updated by the move, else all pieces are summed once.
+     * @param network {@link Network} - the network
+     * @return {@link Accumulator} - the accumulator
+     * @since 1.1-SNAPSHOT
+     */
+    public Accumulator getAccumulator(Network network) {
+        Accumulator current = accumulator;
+        if (current == null || current.getNetwork() != network) {
+            current = network.refresh(this);
+            accumulator = current;
+        }
+        return current;
+    }
+
+    /**
+     * Generates all legal moves of the current player, by {@link CheckEvasions} if the king is checked.
+     * @return short[] - the packed moves
+     */
+    private short[] generateLegalMoves() {
+        short[] legalMoves;
+        if (!kingIsNotChecked(currentPlayer)) {
+            // only evasions are legal, the next boards cannot reuse them
+            legalMoves = CheckEvasions.generate(this);
+        } else {
+            PieceMoves moves = PieceMoves.generate(this, pieces, currentPlayer, currentPlayer == Player.WHITE ? whiteKing : blackKing,
+                    enPassant, false, inheritedMoves);
+            pieceMoves = moves;
+            legalMoves = moves.getLegalMoves();
+        }
+        inheritedMoves = null;
+
+        Metrics.add(Metrics.Counter.GENERATED_MOVES, legalMoves.length);
+        return legalMoves;
+    }
+
+    /**
+     * Returns the key of the position, which is the same for every board with the same
+     * pieces, current player, castle rights and en passant position.
+     * @return long - the position key
+     * @since 1.1-SNAPSHOT
+     */
+    public long getHash() {
+        long key = hash;
+        if (key == 0) {
+            key = Zobrist.hash(pieces, currentPlayer, castlingRights, enPassant);
+            hash = key;
+        }
+        return key;
+    }
+
+    /**
+     * Calculates the key of the position after the move without making the move,
+     * so e.g. the children of a search node can be looked up without creating their boards.
+     * @param move short - the legal move packed by {@link Move#pack(int, int)}
+     * @return long - the same key as {@link #getHash()} of the board after the move
+     * @since 1.1-SNAPSHOT
+     */
+    public long getHashAfter(short move) {
+        byte from = Move.packedFrom(move);
+        byte to = Move.packedTo(move);
+        Piece movingPiece = pieces[from];
+        long key = Zobrist.pass(getHash(), enPassant) ^ Zobrist.piece(movingPiece, from) ^ Zobrist.piece(movingPiece, to);
+        if (pieces[to] != null)
+            key ^= Zobrist.piece(pieces[to], to);
+
+        int forward = currentPlayer == Player.WHITE ? 8 : -8;
+        if (movingPiece instanceof King && Math.abs(to - from) == 2) {
+            // rochade, the rook jumps over the king
+            byte rook = to < from ? currentPlayer.getQueenSidedRookStartingPosition() : currentPlayer.getKingSidedRookStartingPosition();
+            key ^= Zobrist.piece(pieces[rook], rook) ^ Zobrist.piece(pieces[rook], to < from ? rook + 3 : rook - 2);
+        } else if (movingPiece instanceof Pawn && to == enPassant && (to - from) % 8 != 0) {
+            key ^= Zobrist.piece(pieces[to - forward], to - forward);
+        } else if (movingPiece instanceof Pawn && Math.abs(from - to) == 16) {
+            key ^= Zobrist.enPassant((byte) (to - forward));
+        }
+
+        // castle rights, which are lost like in makeMove
+        int player = currentPlayer.ordinal();
+        Player enemy = currentPlayer.nextPlayer();
+        if (movingPiece instanceof King)
+            key ^= castlingKey(player, 0) ^ castlingKey(player, 1);
+        else if (movingPiece instanceof Rook && from == currentPlayer.getQueenSidedRookStartingPosition())
+            key ^= castlingKey(player, 1);
+        else if (movingPiece instanceof Rook && from == currentPlayer.getKingSidedRookStartingPosition())
+            key ^= castlingKey(player, 0);
+        if (to == enemy.getQueenSidedRookStartingPosition())
+            key ^= castlingKey(enemy.ordinal(), 1);
+        else if (to == enemy.getKingSidedRookStartingPosition())
+            key ^= castlingKey(enemy.ordinal(), 0);
+        return key;
+    }
+
+    private long castlingKey(int player, int side) {
+        return castlingRights[player][side] ? Zobrist.castling(player, side) : 0;
     }
 
     /**
@@ -162,7 +398,38 @@ public class Board {
      * @return Board - the new board.
      */
     public Board makeMove(Move move) {
-        return makeMove(move, simulationDepth);
+        MakeMoveEvent event = new MakeMoveEvent();
+        event.begin();
+        Board board = makeMove(move, simulationDepth);
+        Metrics.increment(Metrics.Counter.MAKE_MOVE);
+        if (event.shouldCommit()) {
+            event.piece = move.getName();
+            event.from = move.from();
+            event.to = move.to();
+            event.commit();
+        }
+        return board;
+    }
+
+    /**
+     * Passes the move to the other player (null move), e.g. for null-move pruning of a search.
+     * The new board shares the pieces and castle rights of this board, only the current player changes
+     * and the en passant position is cleared, so the key is updated instead of recalculated.
+     * The half move clock is reset, so no repetition is found across the null move.
+     * Must not be used while the current player is checked.
+     * @return Board - the new board.
+     * @since 1.1-SNAPSHOT
+     */
+    public Board makeNullMove() {
+        Board board = new Board(currentPlayer.nextPlayer(), pieces, whiteKing, blackKing, (byte) -1, castlingRights,
+                0, currentPlayer == Player.BLACK ? fullMoveNumber + 1 : fullMoveNumber, simulationDepth);
+        board.hash = Zobrist.pass(getHash(), enPassant);
+        board.accumulator = accumulator;
+        if (simulationDepth == 0) {
+            board.inheritedMoves = previousMoves;
+            board.previousMoves = pieceMoves;
+        }
+        return board;
     }
 
     /**
@@ -185,11 +452,11 @@ public class Board {
 
 
 
-        Map<Byte, Piece> newPieceSet = clonePieceSet();
-        Piece movingPiece = newPieceSet.get(move.from());
-        newPieceSet.remove(move.from());
-        newPieceSet.put(move.to(), movingPiece);
-        movingPiece.setCurrentPosition(move.to());
+        Piece[] newPieces = pieces.clone();
+        Piece movingPiece = newPieces[move.from()];
+        boolean irreversible = movingPiece instanceof Pawn || newPieces[move.to()] != null;
+        newPieces[move.from()] = null;
+        newPieces[move.to()] = movingPiece;
 
 
         if (movingPiece instanceof Pawn && Math.abs(move.from() - move.to()) == 16) {
@@ -198,7 +465,7 @@ public class Board {
         }
 
         if (move instanceof SpecialMove)
-            ((SpecialMove) move).getMove().moved(newPieceSet);
+            ((SpecialMove) move).getMove().moved(newPieces);
 
         // castle rights
         boolean[][] newCastleRights = new boolean[][]{castlingRights[0].clone(), castlingRights[1].clone()};
@@ -212,23 +479,28 @@ public class Board {
                 newCastleRights[currentPlayer.ordinal()][0] = false;
         }
 
-        return new Board(currentPlayer.nextPlayer(), newPieceSet, newWhiteKing, newBlackKing, newEnPassant, newCastleRights, depth);
-    }
-
-    /**
-     * Clones all pieces.
-     *
-     * @return {@link Piece}[] - copied piece set
-     */
-    private Map<Byte, Piece> clonePieceSet() {
-        Map<Byte, Piece> copied = new HashMap<>();
-        for (Map.Entry<Byte, Piece> entry : pieceSet.entrySet()) {
-            copied.put(entry.getKey(), entry.getValue().clone());
+        // a captured rook cannot castle anymore
+        Player enemy = currentPlayer.nextPlayer();
+        if (move.to() == enemy.getQueenSidedRookStartingPosition())
+            newCastleRights[enemy.ordinal()][1] = false;
+        else if (move.to() == enemy.getKingSidedRookStartingPosition())
+            newCastleRights[enemy.ordinal()][0] = false;
+
+        Board board = new Board(enemy, newPieces, newWhiteKing, newBlackKing, newEnPassant, newCastleRights,
+                irreversible ? 0 : halfMoveClock + 1, currentPlayer == Player.BLACK ? fullMoveNumber + 1 : fullMoveNumber, depth);
+        if (depth == 0) {
+            // the next board of the same player can reuse the moves of unaffected pieces
+            board.inheritedMoves = previousMoves;
+            board.previousMoves = pieceMoves;
+
+            // the castle rook and the pawn captured en passant are found by comparing the pieces
+            Network active = network;
+            if (active != null)
+                board.accumulator = active.update(getAccumulator(active), pieces, newPieces, move.from(), move.to(), move instanceof SpecialMove);
         }
-        return copied;
+        return board;
     }
 
-
     /**
      * Checks if the given position is an enemy piece to the given player.
      * @param player   Player - friendly player
@@ -258,12 +530,40 @@ public class Board {
         if (this.simulationDepth > 1)
             return true;
         if (this.kingNotInCheck == null) {
-            byte kingPosition = player == Player.WHITE ? whiteKing : blackKing;
-            this.kingNotInCheck = noneAttacks(player.nextPlayer(), kingPosition);
+            // looks from the king for attackers instead of generating the moves of every enemy piece
+            this.kingNotInCheck = !StaticExchange.isAttacked(this, getKingPosition(player), player.nextPlayer(), 0);
         }
         return this.kingNotInCheck;
     }
 
+    /**
+     * Check if this board is only used to simulate moves, e.g. to find attacked positions.
+     * Moves that cannot attack (like the rochade) are not needed on such a board.
+     * @return boolean - board is a simulation
+     * @since 1.1-SNAPSHOT
+     */
+    public boolean isSimulation() {
+        return simulationDepth > 0;
+    }
+
+    /**
+     * Creates a simulation of this board, on which the pieces generate their moves without testing their legality.
+     * @return Board - the simulation
+     */
+    Board simulate() {
+        return new Board(currentPlayer, pieces, whiteKing, blackKing, enPassant, castlingRights,
+                halfMoveClock, fullMoveNumber, (byte) (this.simulationDepth + 1));
+    }
+
+    /**
+     * Gets the position of the king of the player.
+     * @param player Player - the player
+     * @return byte - the position of the king
+     */
+    byte getKingPosition(Player player) {
+        return player == Player.WHITE ? whiteKing : blackKing;
+    }
+
     /**
      * Check if the king is not checked after the given move.
      * @param move Move - the move to do first.
@@ -281,12 +581,24 @@ public class Board {
      * @return boolean - is attacked.
      */
     public boolean noneAttacks(Player player, byte attackingPosition) {
-        Board newBoard = new Board(currentPlayer, pieceSet, whiteKing, blackKing, enPassant, castlingRights, (byte) (this.simulationDepth + 1));
-        for (Piece piece : pieceSet.values()) {
-            if (piece != null && piece.getBelong() == player && piece.getMoves(newBoard).contains(attackingPosition))
-                return false;
+        AttackCheckEvent event = new AttackCheckEvent();
+        event.begin();
+        Metrics.increment(Metrics.Counter.NONE_ATTACKS);
+
+        Board newBoard = simulate();
+        boolean attacked = false;
+        for (byte i = 0; i < pieces.length && !attacked; i++) {
+            Piece piece = pieces[i];
+            attacked = piece != null && piece.getBelong() == player && piece.attacks(newBoard, i, attackingPosition);
         }
-        return true;
+
+        if (event.shouldCommit()) {
+            event.position = attackingPosition;
+            event.attacked = attacked;
+            event.simulationDepth = simulationDepth;
+            event.commit();
+        }
+        return !attacked;
     }
 
     /**
@@ -303,6 +615,72 @@ public class Board {
         return currentPlayer;
     }
 
+    /**
+     * Get the half moves since the last capture or pawn move, used for the fifty-move rule.
+     * @return int - the half move clock
+     * @since 1.1-SNAPSHOT
+     */
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    /**
+     * Get the number of the full move, which starts at 1 and is incremented after black moved.
+     * @return int - the full move number
+     * @since 1.1-SNAPSHOT
+     */
+    public int getFullMoveNumber() {
+        return fullMoveNumber;
+    }
+
+
+    /**
+     * Returns the Forsyth-Edwards Notation of the board, in the order {@link #createNewBoard(String)} reads it,
+     * i.e. starting with the first row.
+     * @return String - the Forsyth-Edwards Notation
+     * @since 1.1-SNAPSHOT
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int column = 0; column < 8; column++) {
+                Piece piece = pieces[row * 8 + column];
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0)
+                    fen.append(empty);
+                empty = 0;
+                fen.append(piece.getName());
+            }
+            if (empty > 0)
+                fen.append(empty);
+            if (row < 7)
+                fen.append('/');
+        }
+
+        fen.append(currentPlayer == Player.WHITE ? " w " : " b ");
+        int castling = fen.length();
+        if (castlingRights[0][0])
+            fen.append('K');
+        if (castlingRights[0][1])
+            fen.append('Q');
+        if (castlingRights[1][0])
+            fen.append('k');
+        if (castlingRights[1][1])
+            fen.append('q');
+        if (fen.length() == castling)
+            fen.append('-');
+
+        fen.append(' ');
+        if (enPassant == -1)
+            fen.append('-');
+        else
+            fen.append(FieldNameConverter.fromFieldNumber(enPassant));
+        return fen.append(' ').append(halfMoveClock).append(' ').append(fullMoveNumber).toString();
+    }
 
     @Override
     public String toString() {
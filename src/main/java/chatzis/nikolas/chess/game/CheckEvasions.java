@@ -0,0 +1,155 @@
+package chatzis.nikolas.chess.game;
+
+import chatzis.nikolas.chess.move.Move;
+import chatzis.nikolas.chess.pieces.Pawn;
+import chatzis.nikolas.chess.pieces.Piece;
+import chatzis.nikolas.chess.utils.Mailbox;
+
+import java.util.Arrays;
+
+/**
+ * Generates the legal moves of a checked player directly instead of filtering every move of every piece:
+ * the king moves to positions which are not attacked, the other pieces capture the checking piece
+ * or move between it and the king. A double check only leaves the king moves.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+final class CheckEvasions {
+
+    private CheckEvasions() {
+        throw new UnsupportedOperationException("CheckEvasions is a utility class and should not be instantiated.");
+    }
+
+    /**
+     * Generates the legal moves of the current player, whose king is checked.
+     * @param board {@link Board} - the board
+     * @return short[] - the packed moves
+     */
+    static short[] generate(Board board) {
+        Player player = board.getCurrentPlayer();
+        Player enemy = player.nextPlayer();
+        byte king = board.getKingPosition(player);
+        short[] moves = new short[16];
+        int size = 0;
+
+        // the king must not stay on the line of a slider, so its position is treated as empty
+        long kingPosition = 1L << king;
+        for (int offset : Mailbox.KING_OFFSETS) {
+            int to = Mailbox.move(king, offset);
+            if (to < 0)
+                continue;
+            Piece piece = board.getPieceOnBoard(to);
+            if ((piece == null || piece.getBelong() == enemy) && !StaticExchange.isAttacked(board, to, enemy, kingPosition))
+                moves = add(moves, size++, Move.pack(king, to));
+        }
+
+        long checkers = StaticExchange.attackers(board, king, enemy);
+        if (Long.bitCount(checkers) != 1)
+            return Arrays.copyOf(moves, size);
+
+        int checker = Long.numberOfTrailingZeros(checkers);
+        // captures of the checking piece
+        long capturers = StaticExchange.attackers(board, checker, player) & ~kingPosition;
+        while (capturers != 0) {
+            int from = Long.numberOfTrailingZeros(capturers);
+            capturers &= capturers - 1;
+            if (isLegal(board, king, from, checker))
+                moves = add(moves, size++, Move.pack(from, checker));
+        }
+
+        // a pawn, which just moved two rows, can also be captured en passant
+        byte enPassant = board.getEnPassant();
+        if (enPassant >= 0 && checker == enPassant + (player == Player.WHITE ? -8 : 8)) {
+            long pawns = StaticExchange.attackers(board, enPassant, player);
+            while (pawns != 0) {
+                int from = Long.numberOfTrailingZeros(pawns);
+                pawns &= pawns - 1;
+                if (board.getPieceOnBoard(from) instanceof Pawn && isLegal(board, king, from, enPassant))
+                    moves = add(moves, size++, Move.pack(from, enPassant));
+            }
+        }
+
+        // moves between a checking slider and the king
+        int offset = getOffset(king, checker);
+        if (offset != 0) {
+            for (int to = Mailbox.move(king, offset); to != checker; to = Mailbox.move(to, offset)) {
+                long blockers = getMovers(board, to, player) & ~kingPosition;
+                while (blockers != 0) {
+                    int from = Long.numberOfTrailingZeros(blockers);
+                    blockers &= blockers - 1;
+                    if (isLegal(board, king, from, to))
+                        moves = add(moves, size++, Move.pack(from, to));
+                }
+            }
+        }
+        return Arrays.copyOf(moves, size);
+    }
+
+    /**
+     * Finds the pieces of the player, which can move to the empty position: the pawns by pushing, the others by attacking it.
+     * @param board {@link Board} - the board
+     * @param to int - the empty position
+     * @param player {@link Player} - the moving player
+     * @return long - the positions of the pieces as bits
+     */
+    private static long getMovers(Board board, int to, Player player) {
+        long movers = 0;
+        long attackers = StaticExchange.attackers(board, to, player);
+        while (attackers != 0) {
+            int from = Long.numberOfTrailingZeros(attackers);
+            attackers &= attackers - 1;
+            if (!(board.getPieceOnBoard(from) instanceof Pawn))
+                movers |= 1L << from;
+        }
+
+        int backward = player == Player.WHITE ? -10 : 10;
+        int push = Mailbox.move(to, backward);
+        if (push < 0)
+            return movers;
+        Piece piece = board.getPieceOnBoard(push);
+        if (piece == null) {
+            int doublePush = Mailbox.move(push, backward);
+            boolean startingRow = player == Player.WHITE ? doublePush >= 8 && doublePush < 16 : doublePush >= 48 && doublePush < 56;
+            piece = startingRow ? board.getPieceOnBoard(doublePush) : null;
+            push = doublePush;
+        }
+        if (piece instanceof Pawn && piece.getBelong() == player)
+            movers |= 1L << push;
+        return movers;
+    }
+
+    /**
+     * Returns the {@link Mailbox} offset from the king towards the checking slider.
+     * @param king byte - the position of the king
+     * @param checker int - the position of the checking piece
+     * @return int - the offset or 0, if the checking piece is adjacent or not on a line with the king
+     */
+    private static int getOffset(byte king, int checker) {
+        int rows = checker / 8 - king / 8;
+        int columns = checker % 8 - king % 8;
+        if ((rows != 0 && columns != 0 && Math.abs(rows) != Math.abs(columns)) || Math.max(Math.abs(rows), Math.abs(columns)) < 2)
+            return 0;
+        return Integer.signum(rows) * 10 + Integer.signum(columns);
+    }
+
+    /**
+     * Checks if the own king is not checked after the move. Only pieces on a line with the king can be pinned,
+     * so only they and en passant captures have to make the move.
+     * @param board {@link Board} - the board
+     * @param king byte - the position of the king
+     * @param from int - the position of the moving piece
+     * @param to int - the position to move to
+     * @return boolean - the move is legal
+     */
+    private static boolean isLegal(Board board, byte king, int from, int to) {
+        return (PieceMoves.getKingLine(king, from) == 0 && to != board.getEnPassant()) ||
+                board.kingIsNotInCheckAfterMove(board.getMove((byte) from, (byte) to));
+    }
+
+    private static short[] add(short[] moves, int size, short move) {
+        if (size == moves.length)
+            moves = Arrays.copyOf(moves, size * 2);
+        moves[size] = move;
+        return moves;
+    }
+}
@@ -0,0 +1,121 @@
+package chatzis.nikolas.chess.game;
+
+import chatzis.nikolas.chess.pieces.Pawn;
+import chatzis.nikolas.chess.pieces.Piece;
+
+/**
+ * The status of a game, which can be decided by the board alone.
+ * Draws, which depend on the earlier positions (repetition, fifty-move rule), are decided by the {@link PositionHistory}.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public enum GameStatus {
+
+    /** The current player has a legal move and both players can still mate. */
+    ONGOING,
+    /** The current player is checked and has no legal move. */
+    CHECKMATE,
+    /** The current player is not checked and has no legal move. */
+    STALEMATE,
+    /** Neither player has the pieces left to mate. */
+    INSUFFICIENT_MATERIAL;
+
+    // material signatures: the count of every piece index (P, N, B, R, Q, K of white, then of black) in 4 bits
+    private static final long KING_SIGNATURE = signature(5) + signature(11);
+    private static final long[] DEAD_DRAW_SIGNATURES = {
+            KING_SIGNATURE,
+            KING_SIGNATURE + signature(1), KING_SIGNATURE + signature(7), // a single knight
+            KING_SIGNATURE + signature(2), KING_SIGNATURE + signature(8) // a single bishop
+    };
+    private static final long BISHOPS_SIGNATURE = KING_SIGNATURE + signature(2) + signature(8);
+
+    /**
+     * Checks if the game is over.
+     * @return boolean - the game is over
+     */
+    public boolean isOver() {
+        return this != ONGOING;
+    }
+
+    /**
+     * Checks if the game is drawn.
+     * @return boolean - the game is drawn
+     */
+    public boolean isDraw() {
+        return this == STALEMATE || this == INSUFFICIENT_MATERIAL;
+    }
+
+    /**
+     * Determines the status of the board. Only one legal move is searched, the other moves are not generated.
+     * @param board {@link Board} - the board
+     * @return GameStatus - the status
+     */
+    static GameStatus of(Board board) {
+        if (!hasLegalMove(board))
+            return board.kingIsNotChecked(board.getCurrentPlayer()) ? STALEMATE : CHECKMATE;
+        return isInsufficientMaterial(board) ? INSUFFICIENT_MATERIAL : ONGOING;
+    }
+
+    /**
+     * Checks if the current player has a legal move. The moves of the pieces are generated without testing
+     * their legality, until a piece, which cannot be pinned, or a legal move is found. The king is tested last,
+     * because its moves always need a test.
+     * @param board {@link Board} - the board
+     * @return boolean - there is a legal move
+     */
+    private static boolean hasLegalMove(Board board) {
+        Player player = board.getCurrentPlayer();
+        if (!board.kingIsNotChecked(player))
+            return CheckEvasions.generate(board).length > 0;
+
+        byte king = board.getKingPosition(player);
+        Board simulation = board.simulate();
+        for (byte from = 0; from < 64; from++) {
+            Piece piece = board.getPieceOnBoard(from);
+            if (piece == null || piece.getBelong() != player || from == king)
+                continue;
+            boolean pinnable = PieceMoves.getKingLine(king, from) != 0;
+            for (byte to : piece.getMoves(simulation, from)) {
+                boolean enPassant = piece instanceof Pawn && to == board.getEnPassant();
+                if ((!pinnable && !enPassant) || board.kingIsNotInCheckAfterMove(board.getMove(from, to)))
+                    return true;
+            }
+        }
+        for (byte to : board.getPieceOnBoard(king).getMoves(board, king)) {
+            if (board.kingIsNotInCheckAfterMove(board.getMove(king, to)))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if neither player can mate by the material signature of the board:
+     * only kings, a single knight or bishop, or one bishop each on fields of the same colour.
+     * @param board {@link Board} - the board
+     * @return boolean - the material is insufficient
+     */
+    private static boolean isInsufficientMaterial(Board board) {
+        long signature = 0;
+        int bishopColors = 0;
+        for (int i = 0; i < 64; i++) {
+            Piece piece = board.getPieceOnBoard(i);
+            if (piece == null)
+                continue;
+            int type = piece.getIndex() % 6;
+            if (type == 0 || type == 3 || type == 4)
+                return false; // a pawn, rook or queen can always mate
+            if (type == 2)
+                bishopColors |= 1 << ((i / 8 + i % 8) % 2);
+            signature += signature(piece.getIndex());
+        }
+        for (long deadDraw : DEAD_DRAW_SIGNATURES) {
+            if (signature == deadDraw)
+                return true;
+        }
+        return signature == BISHOPS_SIGNATURE && bishopColors != 3;
+    }
+
+    private static long signature(int pieceIndex) {
+        return 1L << (pieceIndex * 4);
+    }
+}
@@ -0,0 +1,333 @@
+package chatzis.nikolas.chess.game;
+
+import chatzis.nikolas.chess.move.Move;
+import chatzis.nikolas.chess.pieces.King;
+import chatzis.nikolas.chess.pieces.Pawn;
+import chatzis.nikolas.chess.pieces.Piece;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Returns the legal moves of a board one after another in stages:
+ * the hash move, the captures which do not lose material, the killer moves, the quiet moves and the losing captures.
+ * A stage is only generated when the previous one is exhausted and the legality of a move is only tested when it is returned,
+ * so a consumer which stops after the first moves (e.g. at a cutoff) skips most of the generation.
+ * Unlike {@link Board#getLegalMoves()} the picker neither uses the {@link chatzis.nikolas.chess.move.MoveCache}
+ * nor the moves of earlier boards, apart from a checked king, whose few evasions are generated at once.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public final class MovePicker {
+
+    /**
+     * The stages of the picker in their order.
+     */
+    public enum Stage {
+        HASH_MOVE, GOOD_CAPTURES, KILLER_MOVES, QUIET_MOVES, BAD_CAPTURES, DONE
+    }
+
+    private final Board board;
+    private final Player player;
+    private final byte king;
+    private final boolean checked;
+    private final short hashMove;
+    private final short[] killers;
+    private final IntUnaryOperator quietScorer;
+    private final boolean capturesOnly;
+    private final short[] evasions; // the legal moves, if the king is checked
+
+    private Board simulation;
+    private Stage stage = Stage.HASH_MOVE;
+    private short[] moves; // the moves of the current stage
+    private int[] scores;
+    private int size;
+    private int index;
+    private short[] badCaptures;
+    private int badCaptureCount;
+    private int returned;
+    private Stage returnedStage;
+
+    /**
+     * Instantiates the picker of all moves.
+     * @param board {@link Board} - the board, which must not be a simulation
+     * @param hashMove short - the packed move to return first, or 0
+     * @param killer short - the packed quiet move, which caused the last cutoff at the same ply, or 0
+     * @param secondKiller short - the packed quiet move, which caused the cutoff before, or 0
+     * @param quietScorer IntUnaryOperator - scores the packed quiet moves, higher scores are returned first (nullable)
+     */
+    public MovePicker(Board board, short hashMove, short killer, short secondKiller, IntUnaryOperator quietScorer) {
+        this(board, hashMove, new short[]{killer, secondKiller}, quietScorer, false);
+    }
+
+    /**
+     * Instantiates the picker of the captures, which do not lose material, e.g. for a quiescence search.
+     * @param board {@link Board} - the board, which must not be a simulation
+     * @return MovePicker - the picker
+     */
+    public static MovePicker captures(Board board) {
+        return new MovePicker(board, (short) 0, new short[0], null, true);
+    }
+
+    private MovePicker(Board board, short hashMove, short[] killers, IntUnaryOperator quietScorer, boolean capturesOnly) {
+        this.board = board;
+        this.player = board.getCurrentPlayer();
+        this.king = board.getKingPosition(player);
+        this.checked = !board.kingIsNotChecked(player);
+        this.hashMove = hashMove;
+        this.killers = killers;
+        this.quietScorer = quietScorer;
+        this.capturesOnly = capturesOnly;
+        this.evasions = checked ? board.getLegalMoves() : null;
+    }
+
+    /**
+     * Returns the next legal move.
+     * @return short - the packed move or 0, if there is no move left
+     */
+    public short next() {
+        while (true) {
+            switch (stage) {
+                case HASH_MOVE:
+                    stage = Stage.GOOD_CAPTURES;
+                    if (hashMove != 0 && isPseudoLegal(hashMove) && isLegal(hashMove))
+                        return count(hashMove, Stage.HASH_MOVE);
+                    break;
+                case GOOD_CAPTURES:
+                    if (moves == null)
+                        generateCaptures();
+                    while (index < size) {
+                        short move = pickBest();
+                        if (move == hashMove)
+                            continue;
+                        if (!isEqualOrBetterCapture(move) && board.staticExchange(Move.packedFrom(move), Move.packedTo(move)) < 0)
+                            addBadCapture(move);
+                        else if (isLegal(move))
+                            return count(move, stage);
+                    }
+                    nextStage(capturesOnly ? Stage.DONE : Stage.KILLER_MOVES);
+                    break;
+                case KILLER_MOVES:
+                    while (index < killers.length) {
+                        short move = killers[index++];
+                        if (move != 0 && move != hashMove && (index == 1 || move != killers[0]) &&
+                                !isCapture(move) && isPseudoLegal(move) && isLegal(move))
+                            return count(move, stage);
+                    }
+                    nextStage(Stage.QUIET_MOVES);
+                    break;
+                case QUIET_MOVES:
+                    if (moves == null)
+                        generateQuietMoves();
+                    while (index < size) {
+                        short move = pickBest();
+                        if (move != hashMove && !isKiller(move) && isLegal(move))
+                            return count(move, stage);
+                    }
+                    nextStage(Stage.BAD_CAPTURES);
+                    break;
+                case BAD_CAPTURES:
+                    while (index < badCaptureCount) {
+                        short move = badCaptures[index++];
+                        if (isLegal(move))
+                            return count(move, stage);
+                    }
+                    nextStage(Stage.DONE);
+                    break;
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the stage of the last returned move.
+     * @return {@link Stage} - the stage (nullable, if no move was returned)
+     */
+    public Stage getStage() {
+        return returnedStage;
+    }
+
+    /**
+     * Returns the number of moves returned so far. If all moves are returned, this is the number of legal moves.
+     * @return int - the number of returned moves
+     */
+    public int getReturned() {
+        return returned;
+    }
+
+    private short count(short move, Stage moveStage) {
+        returned++;
+        returnedStage = moveStage;
+        return move;
+    }
+
+    private void nextStage(Stage next) {
+        stage = next;
+        moves = null;
+        size = 0;
+        index = 0;
+    }
+
+    /**
+     * Generates the captures from the attackers of every enemy piece and the en passant position,
+     * scored by the most valuable piece captured by the least valuable attacker.
+     */
+    private void generateCaptures() {
+        moves = new short[16];
+        scores = new int[16];
+        if (evasions != null) {
+            for (short move : evasions) {
+                if (isCapture(move))
+                    add(move, getCaptureScore(move));
+            }
+            return;
+        }
+        for (int target = 0; target < 64; target++) {
+            Piece victim = board.getPieceOnBoard(target);
+            boolean enPassant = target == board.getEnPassant();
+            if ((victim == null && !enPassant) || (victim != null && (victim.getBelong() == player || victim instanceof King)))
+                continue;
+
+            long attackers = StaticExchange.attackers(board, target, player);
+            while (attackers != 0) {
+                int from = Long.numberOfTrailingZeros(attackers);
+                attackers &= attackers - 1;
+                if (!enPassant || board.getPieceOnBoard(from) instanceof Pawn) {
+                    short move = Move.pack(from, target);
+                    add(move, getCaptureScore(move));
+                }
+            }
+        }
+    }
+
+    private int getCaptureScore(short move) {
+        Piece victim = board.getPieceOnBoard(Move.packedTo(move));
+        return StaticExchange.VALUES[victim != null ? victim.getIndex() % 6 : 0] * 10 -
+                StaticExchange.VALUES[board.getPieceOnBoard(Move.packedFrom(move)).getIndex() % 6] / 100;
+    }
+
+    /**
+     * Generates the moves to empty positions without testing their legality, apart from the king,
+     * whose moves (including the castling) are generated legally.
+     */
+    private void generateQuietMoves() {
+        moves = new short[32];
+        scores = new int[32];
+        if (evasions != null) {
+            for (short move : evasions) {
+                if (!isCapture(move))
+                    add(move, quietScorer != null ? quietScorer.applyAsInt(move) : 0);
+            }
+            return;
+        }
+        for (byte from = 0; from < 64; from++) {
+            Piece piece = board.getPieceOnBoard(from);
+            if (piece == null || piece.getBelong() != player)
+                continue;
+            for (byte to : piece.getMoves(piece instanceof King ? board : getSimulation(), from)) {
+                short move = Move.pack(from, to);
+                if (!isCapture(move))
+                    add(move, quietScorer != null ? quietScorer.applyAsInt(move) : 0);
+            }
+        }
+    }
+
+    private void add(short move, int score) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        moves[size] = move;
+        scores[size++] = score;
+    }
+
+    /**
+     * Selects the remaining move with the highest score, so only the returned moves are sorted.
+     * @return short - the move
+     */
+    private short pickBest() {
+        int best = index;
+        for (int i = index + 1; i < size; i++) {
+            if (scores[i] > scores[best])
+                best = i;
+        }
+        short move = moves[best];
+        moves[best] = moves[index];
+        scores[best] = scores[index];
+        index++;
+        return move;
+    }
+
+    private void addBadCapture(short move) {
+        if (badCaptures == null)
+            badCaptures = new short[8];
+        else if (badCaptureCount == badCaptures.length)
+            badCaptures = Arrays.copyOf(badCaptures, badCaptureCount * 2);
+        badCaptures[badCaptureCount++] = move;
+    }
+
+    private boolean isEqualOrBetterCapture(short move) {
+        Piece victim = board.getPieceOnBoard(Move.packedTo(move));
+        return victim == null || StaticExchange.VALUES[victim.getIndex() % 6] >=
+                StaticExchange.VALUES[board.getPieceOnBoard(Move.packedFrom(move)).getIndex() % 6];
+    }
+
+    private boolean isKiller(short move) {
+        for (short killer : killers) {
+            if (killer == move)
+                return true;
+        }
+        return false;
+    }
+
+    private boolean isCapture(short move) {
+        byte to = Move.packedTo(move);
+        return board.getPieceOnBoard(to) != null ||
+                (to == board.getEnPassant() && board.getPieceOnBoard(Move.packedFrom(move)) instanceof Pawn);
+    }
+
+    /**
+     * Checks if the move of another board (e.g. from the table) can be made by a piece of the current player.
+     * @param move short - the packed move
+     * @return boolean - the move is pseudo legal
+     */
+    private boolean isPseudoLegal(short move) {
+        if (evasions != null) {
+            for (short evasion : evasions) {
+                if (evasion == move)
+                    return true;
+            }
+            return false;
+        }
+        byte from = Move.packedFrom(move);
+        Piece piece = board.getPieceOnBoard(from);
+        return piece != null && piece.getBelong() == player &&
+                piece.getMoves(piece instanceof King ? board : getSimulation(), from).contains(Move.packedTo(move));
+    }
+
+    /**
+     * Checks if the own king is not checked after the move. A piece, which is not on a line with the king,
+     * cannot uncover a check, so only moves of the king, of those pieces, en passant and moves while checked are made.
+     * @param move short - the packed pseudo legal move
+     * @return boolean - the move is legal
+     */
+    private boolean isLegal(short move) {
+        if (evasions != null)
+            return true;
+        byte from = Move.packedFrom(move);
+        byte to = Move.packedTo(move);
+        if (from == king)
+            return !isCapture(move) || board.kingIsNotInCheckAfterMove(board.getMove(from, to)); // quiet king moves are generated legally
+        boolean enPassant = to == board.getEnPassant() && board.getPieceOnBoard(from) instanceof Pawn;
+        if (!checked && !enPassant && PieceMoves.getKingLine(king, from) == 0)
+            return true;
+        return board.kingIsNotInCheckAfterMove(board.getMove(from, to));
+    }
+
+    private Board getSimulation() {
+        if (simulation == null)
+            simulation = board.simulate();
+        return simulation;
+    }
+}
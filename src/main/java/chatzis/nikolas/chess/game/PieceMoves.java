@@ -0,0 +1,132 @@
+package chatzis.nikolas.chess.game;
+
+import chatzis.nikolas.chess.metrics.Metrics;
+import chatzis.nikolas.chess.move.Move;
+import chatzis.nikolas.chess.pieces.King;
+import chatzis.nikolas.chess.pieces.Pawn;
+import chatzis.nikolas.chess.pieces.Piece;
+
+import java.util.Arrays;
+
+/**
+ * The legal moves of every piece of the player to move, together with the positions each piece depends on.
+ * Two plies later the same player is to move again: pieces, whose dependencies and pin line did not change,
+ * keep their moves and only the other pieces are regenerated.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+final class PieceMoves {
+
+    private static final short[] NO_MOVES = new short[0];
+
+    private final Piece[] pieces;
+    private final byte king;
+    private final byte enPassant;
+    private final boolean checked;
+    private final short[][] moves; // packed moves indexed by the from-position
+    private final long[] dependencies; // indexed by the from-position
+
+    private PieceMoves(Piece[] pieces, byte king, byte enPassant, boolean checked) {
+        this.pieces = pieces;
+        this.king = king;
+        this.enPassant = enPassant;
+        this.checked = checked;
+        this.moves = new short[pieces.length][];
+        this.dependencies = new long[pieces.length];
+    }
+
+    /**
+     * Generates the moves of the current player, reusing the moves of unaffected pieces.
+     * Everything is regenerated if the king is or was checked or has moved, because then every move could change.
+     * Pawns are regenerated if there is or was an en passant position.
+     * @param board {@link Board} - the board
+     * @param pieces {@link Piece}[] - the pieces of the board
+     * @param player Player - the current player
+     * @param king byte - the position of the king of the current player
+     * @param enPassant byte - the en passant position
+     * @param checked boolean - the king of the current player is checked
+     * @param previous {@link PieceMoves} - the moves of the same player two plies earlier (nullable)
+     * @return PieceMoves - the moves
+     */
+    static PieceMoves generate(Board board, Piece[] pieces, Player player, byte king, byte enPassant, boolean checked, PieceMoves previous) {
+        PieceMoves pieceMoves = new PieceMoves(pieces, king, enPassant, checked);
+        boolean reusable = previous != null && !checked && !previous.checked && previous.king == king;
+        boolean regeneratePawns = enPassant != -1 || (previous != null && previous.enPassant != -1);
+        long changed = 0;
+        if (reusable) {
+            for (int i = 0; i < pieces.length; i++) {
+                if (pieces[i] != previous.pieces[i])
+                    changed |= 1L << i;
+            }
+        }
+
+        int reused = 0;
+        for (byte i = 0; i < pieces.length; i++) {
+            Piece piece = pieces[i];
+            if (piece == null || piece.getBelong() != player)
+                continue;
+
+            if (reusable && previous.pieces[i] == piece && (previous.dependencies[i] & changed) == 0
+                    && !(piece instanceof King) && !(regeneratePawns && piece instanceof Pawn)) {
+                pieceMoves.moves[i] = previous.moves[i];
+                pieceMoves.dependencies[i] = previous.dependencies[i];
+                reused++;
+                continue;
+            }
+
+            short[] packed = NO_MOVES;
+            int size = 0;
+            for (byte to : piece.getMoves(board, i)) {
+                if (size == packed.length)
+                    packed = Arrays.copyOf(packed, Math.max(8, size * 2));
+                packed[size++] = Move.pack(i, to);
+            }
+            pieceMoves.moves[i] = size == packed.length ? packed : Arrays.copyOf(packed, size);
+            pieceMoves.dependencies[i] = piece.getDependencies(board, i) | getKingLine(king, i);
+        }
+        Metrics.add(Metrics.Counter.REUSED_PIECE_MOVES, reused);
+        return pieceMoves;
+    }
+
+    /**
+     * Returns the positions on the line from the king through the position till the border.
+     * A piece on this line can be pinned, by a piece anywhere on it.
+     * @param king byte - the position of the king
+     * @param position int - the position of the piece
+     * @return long - the positions as bits, 0 if the position is not on a line with the king
+     */
+    static long getKingLine(byte king, int position) {
+        int rows = position / 8 - king / 8;
+        int columns = position % 8 - king % 8;
+        if ((rows == 0 && columns == 0) || (rows != 0 && columns != 0 && Math.abs(rows) != Math.abs(columns)))
+            return 0;
+
+        int rowStep = Integer.signum(rows);
+        int columnStep = Integer.signum(columns);
+        long line = 0;
+        for (int row = king / 8 + rowStep, column = king % 8 + columnStep;
+             row >= 0 && row < 8 && column >= 0 && column < 8; row += rowStep, column += columnStep)
+            line |= 1L << (row * 8 + column);
+        return line;
+    }
+
+    /**
+     * Returns the moves of all pieces.
+     * @return short[] - the packed moves
+     */
+    short[] getLegalMoves() {
+        int size = 0;
+        for (short[] pieceMoves : moves)
+            size += pieceMoves != null ? pieceMoves.length : 0;
+
+        short[] legalMoves = new short[size];
+        int index = 0;
+        for (short[] pieceMoves : moves) {
+            if (pieceMoves != null) {
+                System.arraycopy(pieceMoves, 0, legalMoves, index, pieceMoves.length);
+                index += pieceMoves.length;
+            }
+        }
+        return legalMoves;
+    }
+}
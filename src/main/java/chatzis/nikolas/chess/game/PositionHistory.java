@@ -0,0 +1,120 @@
+package chatzis.nikolas.chess.game;
+
+import java.util.Arrays;
+
+/**
+ * Stack of the position keys of one game, to detect repetitions and the fifty-move rule.
+ * Every pushed position stores its half move clock, so a repetition check only scans back to the last
+ * capture or pawn move, because no earlier position can occur again.
+ * Pushing and popping does not allocate, so the same history can be used inside a search.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class PositionHistory {
+
+    private long[] keys;
+    private int[] halfMoveClocks;
+    private int size;
+
+    /**
+     * Instantiates an empty history.
+     */
+    public PositionHistory() {
+        this.keys = new long[256];
+        this.halfMoveClocks = new int[256];
+    }
+
+    /**
+     * Instantiates a history of one game. The history of another game is copied.
+     * @param history PositionHistory - the history to copy.
+     */
+    public PositionHistory(PositionHistory history) {
+        this.keys = history.keys.clone();
+        this.halfMoveClocks = history.halfMoveClocks.clone();
+        this.size = history.size;
+    }
+
+    /**
+     * Pushes the position of the board.
+     * @param board {@link Board} - the board after the last move.
+     */
+    public void push(Board board) {
+        push(board.getHash(), board.getHalfMoveClock());
+    }
+
+    /**
+     * Pushes a position.
+     * @param key long - the position key
+     * @param halfMoveClock int - the half moves since the last capture or pawn move
+     */
+    public void push(long key, int halfMoveClock) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            halfMoveClocks = Arrays.copyOf(halfMoveClocks, size * 2);
+        }
+        keys[size] = key;
+        halfMoveClocks[size++] = halfMoveClock;
+    }
+
+    /**
+     * Removes the last pushed position.
+     */
+    public void pop() {
+        if (size == 0)
+            throw new IllegalStateException("History is empty");
+        size--;
+    }
+
+    /**
+     * Removes every position.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Counts how often the last position occurred before.
+     * Only positions since the last capture or pawn move with the same player to move are compared.
+     * @return int - previous occurrences of the last position
+     */
+    public int repetitions() {
+        if (size == 0)
+            return 0;
+        int last = size - 1;
+        int oldest = Math.max(0, last - halfMoveClocks[last]);
+        int repetitions = 0;
+        for (int i = last - 2; i >= oldest; i -= 2) {
+            if (keys[i] == keys[last])
+                repetitions++;
+        }
+        return repetitions;
+    }
+
+    /**
+     * Checks if the last position occurred three times.
+     * @return boolean - threefold repetition
+     */
+    public boolean isThreefoldRepetition() {
+        return repetitions() >= 2;
+    }
+
+    /**
+     * Checks if fifty moves of each player were made without a capture or pawn move.
+     * @return boolean - fifty-move rule applies
+     */
+    public boolean isFiftyMoveRule() {
+        return size > 0 && halfMoveClocks[size - 1] >= 100;
+    }
+
+    /**
+     * Checks if the game is drawn by threefold repetition or the fifty-move rule.
+     * @return boolean - is draw
+     */
+    public boolean isDraw() {
+        return isFiftyMoveRule() || isThreefoldRepetition();
+    }
+}
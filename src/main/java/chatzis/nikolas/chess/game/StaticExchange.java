@@ -0,0 +1,181 @@
+package chatzis.nikolas.chess.game;
+
+import chatzis.nikolas.chess.pieces.Piece;
+import chatzis.nikolas.chess.utils.Mailbox;
+
+/**
+ * Static exchange evaluation: resolves the whole capture sequence on one position without making a move.
+ * Both players always recapture with their least valuable attacker and may stop when continuing loses material.
+ * Captured attackers are removed from the occupied positions, so sliders behind them (x-rays) join the exchange.
+ * Pins are ignored.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+final class StaticExchange {
+
+    /** Values of P, N, B, R, Q, K indexed by {@link Piece#getIndex()} % 6. */
+    static final int[] VALUES = {100, 320, 330, 500, 900, 20000};
+
+    private static final int PAWN = 0;
+    private static final int KNIGHT = 1;
+    private static final int BISHOP = 2;
+    private static final int ROOK = 3;
+    private static final int QUEEN = 4;
+    private static final int KING = 5;
+
+    private StaticExchange() {
+        throw new UnsupportedOperationException("StaticExchange is a utility class and should not be instantiated.");
+    }
+
+    /**
+     * Evaluates the capture sequence started by the move.
+     * @param board {@link Board} - the board of the move
+     * @param from byte - the position of the first attacker
+     * @param to byte - the position of the exchange
+     * @return int - the material the moving player wins (negative if it loses material)
+     */
+    static int evaluate(Board board, byte from, byte to) {
+        Piece attacker = board.getPieceOnBoard(from);
+        if (attacker == null)
+            return 0;
+
+        long removed = 0;
+        Piece victim = board.getPieceOnBoard(to);
+        int[] gain = new int[33];
+        if (victim != null) {
+            gain[0] = VALUES[type(victim)];
+        } else if (type(attacker) == PAWN && to == board.getEnPassant()) {
+            gain[0] = VALUES[PAWN];
+            removed |= 1L << (to + (attacker.getBelong() == Player.WHITE ? -8 : 8));
+        }
+
+        Player player = attacker.getBelong();
+        int square = from;
+        int depth = 0;
+        do {
+            depth++;
+            gain[depth] = VALUES[type(attacker)] - gain[depth - 1];
+            if (Math.max(-gain[depth - 1], gain[depth]) < 0)
+                break; // neither player can improve by continuing
+            removed |= 1L << square;
+            player = player.nextPlayer();
+            square = leastValuableAttacker(board, to, player, removed);
+            if (square >= 0 && type(board.getPieceOnBoard(square)) == KING &&
+                    leastValuableAttacker(board, to, player.nextPlayer(), removed | 1L << square) >= 0)
+                square = -1; // the king cannot capture a defended piece
+            attacker = square >= 0 ? board.getPieceOnBoard(square) : null;
+        } while (attacker != null);
+
+        while (--depth > 0)
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        return gain[0];
+    }
+
+    /**
+     * Checks if the player attacks the target, ignoring the removed positions, e.g. the position a king moves away from.
+     * @param board {@link Board} - the board
+     * @param target int - the attacked position
+     * @param player {@link Player} - the attacker
+     * @param removed long - the positions which are treated as empty
+     * @return boolean - the target is attacked
+     */
+    static boolean isAttacked(Board board, int target, Player player, long removed) {
+        return leastValuableAttacker(board, target, player, removed) >= 0;
+    }
+
+    /**
+     * Finds the least valuable piece of the player attacking the target, ignoring the removed positions.
+     * @param board {@link Board} - the board
+     * @param target int - the attacked position
+     * @param player {@link Player} - the attacker
+     * @param removed long - the positions which already took part in the exchange
+     * @return int - the position of the attacker or -1
+     */
+    private static int leastValuableAttacker(Board board, int target, Player player, long removed) {
+        int pawnDirection = player == Player.WHITE ? -1 : 1;
+        for (int offset : new int[]{9 * pawnDirection, 11 * pawnDirection}) {
+            int position = Mailbox.move(target, offset);
+            if (isAttacker(board, position, player, removed, PAWN))
+                return position;
+        }
+        for (int offset : Mailbox.KNIGHT_OFFSETS) {
+            int position = Mailbox.move(target, offset);
+            if (isAttacker(board, position, player, removed, KNIGHT))
+                return position;
+        }
+
+        int best = -1;
+        int bestType = KING;
+        for (int offset : Mailbox.QUEEN_OFFSETS) {
+            boolean diagonal = offset == 9 || offset == -9 || offset == 11 || offset == -11;
+            int position = Mailbox.move(target, offset);
+            while (position >= 0 && (board.getPieceOnBoard(position) == null || (removed & 1L << position) != 0))
+                position = Mailbox.move(position, offset);
+            if (position < 0)
+                continue;
+            Piece piece = board.getPieceOnBoard(position);
+            int type = type(piece);
+            if (piece.getBelong() == player && type < bestType &&
+                    (type == QUEEN || type == (diagonal ? BISHOP : ROOK))) {
+                best = position;
+                bestType = type;
+            }
+        }
+        if (best >= 0)
+            return best;
+
+        for (int offset : Mailbox.KING_OFFSETS) {
+            int position = Mailbox.move(target, offset);
+            if (isAttacker(board, position, player, removed, KING))
+                return position;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds every piece of the player attacking the target.
+     * @param board {@link Board} - the board
+     * @param target int - the attacked position
+     * @param player {@link Player} - the attacker
+     * @return long - the positions of the attackers as bits
+     */
+    static long attackers(Board board, int target, Player player) {
+        long attackers = 0;
+        int pawnDirection = player == Player.WHITE ? -1 : 1;
+        for (int offset : new int[]{9 * pawnDirection, 11 * pawnDirection}) {
+            int position = Mailbox.move(target, offset);
+            if (isAttacker(board, position, player, 0, PAWN))
+                attackers |= 1L << position;
+        }
+        for (int offset : Mailbox.KNIGHT_OFFSETS) {
+            int position = Mailbox.move(target, offset);
+            if (isAttacker(board, position, player, 0, KNIGHT))
+                attackers |= 1L << position;
+        }
+        for (int offset : Mailbox.KING_OFFSETS) {
+            int position = Mailbox.move(target, offset);
+            if (isAttacker(board, position, player, 0, KING))
+                attackers |= 1L << position;
+        }
+        for (int offset : Mailbox.QUEEN_OFFSETS) {
+            boolean diagonal = offset == 9 || offset == -9 || offset == 11 || offset == -11;
+            int position = Mailbox.move(target, offset);
+            while (position >= 0 && board.getPieceOnBoard(position) == null)
+                position = Mailbox.move(position, offset);
+            if (isAttacker(board, position, player, 0, QUEEN) || isAttacker(board, position, player, 0, diagonal ? BISHOP : ROOK))
+                attackers |= 1L << position;
+        }
+        return attackers;
+    }
+
+    private static boolean isAttacker(Board board, int position, Player player, long removed, int type) {
+        if (position < 0 || (removed & 1L << position) != 0)
+            return false;
+        Piece piece = board.getPieceOnBoard(position);
+        return piece != null && piece.getBelong() == player && type(piece) == type;
+    }
+
+    private static int type(Piece piece) {
+        return piece.getIndex() % 6;
+    }
+}
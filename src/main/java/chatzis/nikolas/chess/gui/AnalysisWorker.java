@@ -0,0 +1,76 @@
+package chatzis.nikolas.chess.gui;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.game.PositionHistory;
+import chatzis.nikolas.chess.search.PieceSquareEvaluator;
+import chatzis.nikolas.chess.search.Search;
+import chatzis.nikolas.chess.search.SearchLimits;
+import chatzis.nikolas.chess.search.SearchResult;
+import chatzis.nikolas.chess.search.TranspositionTable;
+
+import javax.swing.*;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Analyses a board in the background and streams the result of every completed iteration to the gui.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+class AnalysisWorker extends SwingWorker<SearchResult, SearchResult> {
+
+    private static final long ANALYSIS_MILLIS = 30_000;
+
+    private final Board board;
+    private final PositionHistory history;
+    private final Search search;
+    private final Consumer<SearchResult> listener;
+
+    /**
+     * Instantiates the worker.
+     * @param board Board - the board to analyse
+     * @param history PositionHistory - the positions of the game including the board, copied
+     * @param table TranspositionTable - the table, which is kept between analyses
+     * @param listener Consumer<SearchResult> - receives the results on the event dispatch thread, if not cancelled
+     */
+    AnalysisWorker(Board board, PositionHistory history, TranspositionTable table, Consumer<SearchResult> listener) {
+        this.board = board;
+        this.history = new PositionHistory(history);
+        this.search = new Search(new PieceSquareEvaluator(), table);
+        this.listener = listener;
+    }
+
+    @Override
+    protected SearchResult doInBackground() {
+        search.setIterationListener(this::publish);
+        return search.search(board, history, SearchLimits.millis(ANALYSIS_MILLIS));
+    }
+
+    @Override
+    protected void process(List<SearchResult> results) {
+        if (!isCancelled())
+            listener.accept(results.get(results.size() - 1));
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled())
+            return;
+        try {
+            listener.accept(get());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException exception) {
+            exception.getCause().printStackTrace();
+        }
+    }
+
+    /**
+     * Stops the analysis immediately, no more results are sent to the listener.
+     */
+    void stop() {
+        search.stop();
+        cancel(true);
+    }
+}
@@ -1,13 +1,20 @@
 package chatzis.nikolas.chess.gui;
 
 import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.game.GameStatus;
+import chatzis.nikolas.chess.game.Player;
+import chatzis.nikolas.chess.game.PositionHistory;
+import chatzis.nikolas.chess.move.Move;
 import chatzis.nikolas.chess.pieces.King;
 import chatzis.nikolas.chess.pieces.Piece;
+import chatzis.nikolas.chess.search.Search;
+import chatzis.nikolas.chess.search.SearchResult;
+import chatzis.nikolas.chess.search.TranspositionTable;
+import chatzis.nikolas.chess.utils.BoardUtils;
+import chatzis.nikolas.chess.utils.FieldNameConverter;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -18,17 +25,30 @@ import java.util.Set;
  */
 public class ChessGUI extends JFrame {
 
+    private static final Color LIGHT_FIELD = Color.WHITE;
+    private static final Color DARK_FIELD = new Color(125, 125, 125);
+
 
     // gui
     private final JButton[] fields;
-    private Map<String, ImageIcon> pieceIcons;
+    private final JLabel analysisLabel;
+    private ImageIcon[] pieceIcons; // indexed by the piece index
+    private final Piece[] shownPieces; // the pieces currently shown on the buttons
+    private final Color[] shownColors; // the colours currently shown on the buttons
+
+    // background workers, cancelled when the board changes
+    private MoveWorker moveWorker;
+    private AnalysisWorker analysisWorker;
+    private final TranspositionTable analysisTable;
 
     // game related
     private Board currentBoard;
     private int selected;
-    private Piece piece;
     private Set<Byte> moves;
-    private boolean checkMate;
+    private Map<Byte, Set<Byte>> legalMoves; // null while the moves are generated
+    private GameStatus status = GameStatus.ONGOING;
+    private boolean draw;
+    private final PositionHistory history;
 
     /**
      * Instantiates the gui.
@@ -38,7 +58,7 @@ public class ChessGUI extends JFrame {
     public ChessGUI(Board board) {
         loadPieceImgs();
         setDefaultCloseOperation(EXIT_ON_CLOSE);
-        setPreferredSize(new Dimension(512, 512));
+        setPreferredSize(new Dimension(512, 544));
         setMaximumSize(getPreferredSize());
         setTitle("Chess");
         JMenuBar jMenuBar = new JMenuBar();
@@ -47,7 +67,12 @@ public class ChessGUI extends JFrame {
 
 
         this.fields = new JButton[64];
-        this.moves = new HashSet<>();
+        this.shownPieces = new Piece[64];
+        this.shownColors = new Color[64];
+        this.moves = Set.of();
+        this.history = new PositionHistory();
+        this.analysisTable = new TranspositionTable(32);
+        this.analysisLabel = new JLabel(" ");
         JPanel panel = new JPanel(new GridLayout(8, 8));
         panel.setSize(new Dimension(512, 512));
         this.selected = -1;
@@ -63,6 +88,7 @@ public class ChessGUI extends JFrame {
         }
 
         getContentPane().add(panel);
+        getContentPane().add(analysisLabel, BorderLayout.SOUTH);
 
         loadBoard(board);
         setVisible(true);
@@ -71,18 +97,92 @@ public class ChessGUI extends JFrame {
 
     /**
      * Loads the new board into the jframe.
+     * The status, the moves and the analysis are computed by background workers, the workers of the previous board are cancelled.
      * @param board Board - new board.
      * @since 1.1-SNAPSHOT
      */
     private void loadBoard(Board board) {
+        stopWorkers();
         this.currentBoard = board;
-        this.moves.clear();
+        this.moves = Set.of();
+        this.legalMoves = null;
         this.selected = -1;
-        this.piece = null;
-        this.checkMate = currentBoard.getAllMovePositions().isEmpty();
-        if (checkMate)
-            System.out.println("Checkmate!");
+        this.history.push(board);
+        this.status = GameStatus.ONGOING; // decided by the move worker
+        this.draw = history.isDraw();
+        if (draw) {
+            System.out.println(history.isFiftyMoveRule() ? "Draw by fifty-move rule!" : "Draw by threefold repetition!");
+            analysisLabel.setText("Draw");
+        } else {
+            analysisLabel.setText("Analysing...");
+        }
         paintButtons();
+
+        if (!draw) {
+            moveWorker = new MoveWorker(board, (boardStatus, allMoves) -> movesGenerated(board, boardStatus, allMoves));
+            moveWorker.execute();
+        }
+    }
+
+    private String getStatusText() {
+        return switch (status) {
+            case CHECKMATE -> "Checkmate";
+            case STALEMATE -> "Stalemate";
+            case INSUFFICIENT_MATERIAL -> "Draw by insufficient material";
+            case ONGOING -> "Analysing...";
+        };
+    }
+
+    /**
+     * Will be called on the event dispatch thread, when the status and the moves of a board are known.
+     * @param board Board - the board of the moves
+     * @param boardStatus GameStatus - the status of the board
+     * @param allMoves Map<Byte, Set<Byte>> - all moves grouped by the position of the moving piece
+     */
+    private void movesGenerated(Board board, GameStatus boardStatus, Map<Byte, Set<Byte>> allMoves) {
+        if (board != currentBoard)
+            return;
+        this.status = boardStatus;
+        if (status.isOver()) {
+            System.out.println(getStatusText() + "!");
+            analysisLabel.setText(getStatusText());
+            paintButtons();
+            return;
+        }
+        this.legalMoves = allMoves;
+        analysisWorker = new AnalysisWorker(board, history, analysisTable, result -> analysed(board, result));
+        analysisWorker.execute();
+    }
+
+    /**
+     * Will be called on the event dispatch thread with the results of the analysis, deepest last.
+     * @param board Board - the analysed board
+     * @param result SearchResult - the result of the last completed iteration
+     */
+    private void analysed(Board board, SearchResult result) {
+        if (board != currentBoard || result.getBestMove() == null)
+            return;
+        int score = board.getCurrentPlayer() == Player.WHITE ? result.getScore() : -result.getScore();
+        String evaluation = result.isMate() ? "Mate " + (score > 0 ? "" : "-") + (Search.MATE - Math.abs(score) + 1) / 2 :
+                String.format("%+.2f", score / 100.0);
+        StringBuilder line = new StringBuilder();
+        for (Move move : result.getPrincipalVariation()) {
+            line.append(FieldNameConverter.fromFieldNumber(move.from())).append(FieldNameConverter.fromFieldNumber(move.to())).append(' ');
+        }
+        analysisLabel.setText(String.format("Depth %d  Eval %s  %,d nodes/s  %s", result.getDepth(), evaluation,
+                result.getNodesPerSecond(), line.toString().trim()));
+    }
+
+    /**
+     * Cancels the workers of the current board.
+     */
+    private void stopWorkers() {
+        if (moveWorker != null)
+            moveWorker.cancel(true);
+        if (analysisWorker != null)
+            analysisWorker.stop();
+        moveWorker = null;
+        analysisWorker = null;
     }
 
     /**
@@ -93,7 +193,10 @@ public class ChessGUI extends JFrame {
     private JMenu getJMenu() {
         JMenu jMenu = new JMenu("Game");
         JMenuItem jMenuItem = new JMenuItem("Restart game");
-        jMenuItem.addActionListener(e -> loadBoard(Board.createNewBoard()));
+        jMenuItem.addActionListener(e -> {
+            history.clear();
+            loadBoard(Board.createNewBoard());
+        });
         jMenu.add(jMenuItem);
         return jMenu;
     }
@@ -104,11 +207,11 @@ public class ChessGUI extends JFrame {
      * @since 1.1-SNAPSHOT
      */
     private void fieldPressed(int i) {
-        if (checkMate)
+        if (status.isOver() || draw || legalMoves == null)
             return;
 
         if (i == selected) {
-            moves.clear();
+            moves = Set.of();
             selected = -1;
             paintButtons();
             System.out.println("Unselected");
@@ -117,60 +220,73 @@ public class ChessGUI extends JFrame {
 
         Piece clickingPiece = currentBoard.getPieceOnBoard(i);
         if (clickingPiece != null && clickingPiece.getBelong() == currentBoard.getCurrentPlayer()) {
-            this.piece = clickingPiece;
-            moves = clickingPiece.getMoves(currentBoard);
+            moves = legalMoves.getOrDefault((byte) i, Set.of());
             this.selected = i;
             paintButtons();
-            System.out.println("Selected: " + piece);
+            System.out.println("Selected: " + clickingPiece);
             return;
         }
 
         moves.stream().filter(m -> m == i).findFirst().ifPresent(m -> {
-            System.out.println(currentBoard.getCurrentPlayer() + " Moved: " + piece);
-            loadBoard(currentBoard.makeMove(piece.getMove(m)));
+            Move move = currentBoard.getMove((byte) selected, m);
+            System.out.println(currentBoard.getCurrentPlayer() + " Moved: " + move);
+            loadBoard(currentBoard.makeMove(move));
         });
     }
 
     /**
-     * Paints the buttons.
+     * Paints the buttons. Only the squares whose piece or colour changed since the last painting are updated.
      * @since 1.0-SNAPSHOT
      */
     private void paintButtons() {
+        long highlighted = 0;
+        for (byte move : moves)
+            highlighted |= 1L << move;
+
         for (int i = 0; i < fields.length; i++) {
             Piece pieceOnBoard = currentBoard.getPieceOnBoard(i);
-            JButton button = fields[i];
-            if (pieceOnBoard != null)
-                button.setIcon(pieceIcons.get(pieceOnBoard.getName() + ""));
-            else
-                button.setIcon(null);
-
-            button.setBackground((i / 8 + i) % 2 == 0 ? Color.WHITE : new Color(125, 125, 125));
-
-            final int pos = i;
-            if (!checkMate) {
-                if (selected == i) {
-                    button.setBackground(Color.YELLOW);
-                } else if (moves.stream().anyMatch(m -> m == pos)) {
-                    button.setBackground(currentBoard.getPieceOnBoard(i) == null ? Color.GREEN : Color.ORANGE);
-                }
-            } else if (pieceOnBoard instanceof King && pieceOnBoard.getBelong() == currentBoard.getCurrentPlayer()) {
-                button.setBackground(Color.RED);
+            Color background = getFieldColor(i, pieceOnBoard, highlighted);
+            if (pieceOnBoard != shownPieces[i]) {
+                fields[i].setIcon(pieceOnBoard != null ? pieceIcons[pieceOnBoard.getIndex()] : null);
+                shownPieces[i] = pieceOnBoard;
             }
+            if (background != shownColors[i]) {
+                fields[i].setBackground(background);
+                shownColors[i] = background;
+            }
+        }
+    }
+
+    /**
+     * Returns the colour of the field.
+     * @param i int - the field
+     * @param pieceOnBoard Piece - the piece on the field (nullable)
+     * @param highlighted long - the fields the selected piece can move to as bits
+     * @return Color - one of the cached colours
+     */
+    private Color getFieldColor(int i, Piece pieceOnBoard, long highlighted) {
+        if (status != GameStatus.CHECKMATE) {
+            if (selected == i)
+                return Color.YELLOW;
+            if ((highlighted & 1L << i) != 0)
+                return pieceOnBoard == null ? Color.GREEN : Color.ORANGE;
+        } else if (pieceOnBoard instanceof King && pieceOnBoard.getBelong() == currentBoard.getCurrentPlayer()) {
+            return Color.RED;
         }
-        validate();
+        return (i / 8 + i) % 2 == 0 ? LIGHT_FIELD : DARK_FIELD;
     }
 
     /**
-     * Loads the piece images and puts it into the hashmap.
+     * Loads the piece images into an array indexed by {@link Piece#getIndex()}.
      * @since 1.1-SNAPSHOT
      */
     private void loadPieceImgs() {
-        this.pieceIcons = new HashMap<>();
+        this.pieceIcons = new ImageIcon[12];
 
         for (String player : new String[]{"w", "b"}) {
             for (String name : new String[]{"b", "k", "n", "p", "q", "r"}) {
-                String finalName = player.equals("w") ? name.toUpperCase() : name;
-                this.pieceIcons.put(finalName, new ImageIcon("src/main/resources/pieces/" + player + name + ".png"));
+                char finalName = player.equals("w") ? Character.toUpperCase(name.charAt(0)) : name.charAt(0);
+                this.pieceIcons[BoardUtils.getPieceByChar(finalName).getIndex()] = new ImageIcon("src/main/resources/pieces/" + player + name + ".png");
             }
         }
     }
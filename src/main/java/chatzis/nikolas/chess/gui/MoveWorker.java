@@ -0,0 +1,58 @@
+package chatzis.nikolas.chess.gui;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.game.GameStatus;
+
+import javax.swing.*;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+
+/**
+ * Decides the status of a board and generates all its moves in the background, so the event dispatch thread
+ * never waits for the mate detection or the move generation.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+class MoveWorker extends SwingWorker<Map<Byte, Set<Byte>>, Void> {
+
+    private final Board board;
+    private final BiConsumer<GameStatus, Map<Byte, Set<Byte>>> listener;
+    private GameStatus status; // written in the background, read after get()
+
+    /**
+     * Instantiates the worker.
+     * @param board Board - the board to generate the moves of
+     * @param listener BiConsumer<GameStatus, Map<Byte, Set<Byte>>> - receives the status and the moves on the
+     *                 event dispatch thread, if not cancelled
+     */
+    MoveWorker(Board board, BiConsumer<GameStatus, Map<Byte, Set<Byte>>> listener) {
+        this.board = board;
+        this.listener = listener;
+    }
+
+    @Override
+    protected Map<Byte, Set<Byte>> doInBackground() {
+        status = board.getStatus();
+        if (status.isOver())
+            return Map.of();
+        Map<Byte, Set<Byte>> moves = board.getAllMovePositions();
+        board.kingIsNotChecked(board.getCurrentPlayer()); // computed here as well, the analysis asks for it afterwards
+        return moves;
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled())
+            return;
+        try {
+            Map<Byte, Set<Byte>> moves = get();
+            listener.accept(status, moves);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException exception) {
+            exception.getCause().printStackTrace();
+        }
+    }
+}
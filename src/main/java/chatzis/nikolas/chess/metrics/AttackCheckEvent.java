@@ -0,0 +1,28 @@
+package chatzis.nikolas.chess.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of a check, whether a position is attacked by a player.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+@Name("chatzis.nikolas.chess.AttackCheck")
+@Label("Attack Check")
+@Category({"Chess", "Move Generation"})
+@Description("Check if a position is attacked, used for king checks and the rochade")
+public class AttackCheckEvent extends Event {
+
+    @Label("Position")
+    public byte position;
+
+    @Label("Attacked")
+    public boolean attacked;
+
+    @Label("Simulation Depth")
+    public byte simulationDepth;
+}
@@ -0,0 +1,28 @@
+package chatzis.nikolas.chess.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of one move made on a board.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+@Name("chatzis.nikolas.chess.MakeMove")
+@Label("Make Move")
+@Category({"Chess", "Move Generation"})
+@Description("A move made on a board")
+public class MakeMoveEvent extends Event {
+
+    @Label("Piece")
+    public char piece;
+
+    @Label("From")
+    public byte from;
+
+    @Label("To")
+    public byte to;
+}
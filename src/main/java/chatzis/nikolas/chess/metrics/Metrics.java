@@ -0,0 +1,118 @@
+package chatzis.nikolas.chess.metrics;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process counters of the move generation, perft and search.
+ * Counting is disabled by default; when disabled, counting only costs reading one flag.
+ * The counters can be dumped at any time, while other threads keep counting.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class Metrics {
+
+    /**
+     * All available counters.
+     */
+    public enum Counter {
+        MAKE_MOVE,
+        LEGAL_MOVE_GENERATION,
+        GENERATED_MOVES,
+        REUSED_PIECE_MOVES,
+        NONE_ATTACKS,
+        MOVE_CACHE_HIT,
+        MOVE_CACHE_MISS,
+        PERFT_NODES,
+        SEARCH_NODES;
+
+        private final LongAdder adder = new LongAdder();
+    }
+
+    private static volatile boolean enabled;
+
+    private Metrics() {
+        throw new UnsupportedOperationException("Metrics is a utility class and should not be instantiated.");
+    }
+
+    /**
+     * Enables or disables counting.
+     * @param enable boolean - counting enabled
+     */
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Increments the counter by one, if counting is enabled.
+     * @param counter Counter - the counter
+     */
+    public static void increment(Counter counter) {
+        if (enabled)
+            counter.adder.increment();
+    }
+
+    /**
+     * Adds the amount to the counter, if counting is enabled.
+     * @param counter Counter - the counter
+     * @param amount long - the amount to add
+     */
+    public static void add(Counter counter, long amount) {
+        if (enabled)
+            counter.adder.add(amount);
+    }
+
+    /**
+     * Returns the current value of the counter.
+     * @param counter Counter - the counter
+     * @return long - the counted value
+     */
+    public static long get(Counter counter) {
+        return counter.adder.sum();
+    }
+
+    /**
+     * Resets every counter to zero.
+     */
+    public static void reset() {
+        for (Counter counter : Counter.values())
+            counter.adder.reset();
+    }
+
+    /**
+     * Returns a snapshot of every counter.
+     * @return Map<Counter, Long> - the counter values
+     */
+    public static Map<Counter, Long> snapshot() {
+        Map<Counter, Long> snapshot = new EnumMap<>(Counter.class);
+        for (Counter counter : Counter.values())
+            snapshot.put(counter, counter.adder.sum());
+        return snapshot;
+    }
+
+    /**
+     * Prints every counter into the stream, one per line.
+     * @param out PrintStream - the stream to print into
+     */
+    public static void dump(PrintStream out) {
+        for (Map.Entry<Counter, Long> entry : snapshot().entrySet())
+            out.println(entry.getKey().name().toLowerCase() + " " + entry.getValue());
+    }
+
+    /**
+     * Returns the amount of bytes the current thread allocated so far.
+     * @return long - allocated bytes or -1 if the JVM does not support it
+     */
+    public static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemoryEnabled())
+            return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        return -1;
+    }
+}
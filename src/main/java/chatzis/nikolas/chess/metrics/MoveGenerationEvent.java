@@ -0,0 +1,26 @@
+package chatzis.nikolas.chess.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of the generation of all legal moves of a board.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+@Name("chatzis.nikolas.chess.MoveGeneration")
+@Label("Legal Move Generation")
+@Category({"Chess", "Move Generation"})
+@Description("Generation of every legal move of the current player")
+public class MoveGenerationEvent extends Event {
+
+    @Label("Moves")
+    public int moves;
+
+    @Label("Cache Hit")
+    @Description("The moves were found in the move cache")
+    public boolean cacheHit;
+}
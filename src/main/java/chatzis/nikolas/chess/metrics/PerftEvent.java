@@ -0,0 +1,34 @@
+package chatzis.nikolas.chess.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of one perft run.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+@Name("chatzis.nikolas.chess.Perft")
+@Label("Perft")
+@Category({"Chess", "Perft"})
+@Description("Counting of every move sequence up to a depth")
+public class PerftEvent extends Event {
+
+    @Label("Depth")
+    public int depth;
+
+    @Label("Nodes")
+    public long nodes;
+
+    @Label("Table Hits")
+    @Description("Subtrees found in the perft table")
+    public long tableHits;
+
+    @Label("Allocated")
+    @DataAmount
+    public long allocated;
+}
@@ -0,0 +1,121 @@
+package chatzis.nikolas.chess.metrics;
+
+import chatzis.nikolas.chess.move.Move;
+import chatzis.nikolas.chess.utils.FieldNameConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A snapshot of a running search, perft or batch analysis, published by a {@link ProgressPublisher}.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public final class ProgressInfo {
+
+    /**
+     * The kind of the run, which published the info.
+     */
+    public enum Source {
+        SEARCH, PERFT, ANALYSIS
+    }
+
+    private final Source source;
+    private final int depth;
+    private final int score;
+    private final List<String> principalVariation;
+    private final long nodes;
+    private final long millis;
+    private final int hashFull;
+    private final int completed;
+    private final int total;
+
+    /**
+     * Instantiates the info.
+     * @param source Source - the kind of the run
+     * @param depth int - the completed depth of a search, the depth of perft
+     * @param score int - the score in centipawns from the view of the current player (0 for perft)
+     * @param principalVariation List<String> - the expected moves as from and to field, e.g. "e2e4" (empty for perft)
+     * @param nodes long - the searched or counted nodes so far
+     * @param millis long - the time since the start of the run
+     * @param hashFull int - used table entries per thousand (-1 without table)
+     * @param completed int - the completed parts, e.g. root moves or tasks
+     * @param total int - the amount of parts (0 if unknown)
+     */
+    public ProgressInfo(Source source, int depth, int score, List<String> principalVariation, long nodes, long millis,
+                        int hashFull, int completed, int total) {
+        this.source = source;
+        this.depth = depth;
+        this.score = score;
+        this.principalVariation = List.copyOf(principalVariation);
+        this.nodes = nodes;
+        this.millis = millis;
+        this.hashFull = hashFull;
+        this.completed = completed;
+        this.total = total;
+    }
+
+    /**
+     * Writes the moves as from and to field, e.g. "e2e4".
+     * @param moves List<Move> - the moves
+     * @return List<String> - the notations
+     */
+    public static List<String> toNotation(List<Move> moves) {
+        List<String> notations = new ArrayList<>(moves.size());
+        for (Move move : moves)
+            notations.add(String.valueOf(FieldNameConverter.fromFieldNumber(move.from())) + String.valueOf(FieldNameConverter.fromFieldNumber(move.to())));
+        return notations;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public List<String> getPrincipalVariation() {
+        return principalVariation;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * Returns the nodes per second since the start of the run.
+     * @return long - nodes per second
+     */
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(1, millis);
+    }
+
+    public int getHashFull() {
+        return hashFull;
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return source.name().toLowerCase() + " depth " + depth + (source == Source.PERFT ? "" : " score " + score) +
+                " nodes " + nodes + " nps " + getNodesPerSecond() + (hashFull >= 0 ? " hashfull " + hashFull : "") +
+                (total > 0 ? " done " + completed + "/" + total : "") +
+                (principalVariation.isEmpty() ? "" : " pv " + String.join(" ", principalVariation));
+    }
+}
@@ -0,0 +1,211 @@
+package chatzis.nikolas.chess.metrics;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes {@link ProgressInfo}s of running searches, perft and analyses to any number of subscribers.
+ * {@link #submit(ProgressInfo)} never blocks the publishing thread: every subscriber has a bounded buffer,
+ * and if a slow subscriber lets it fill up, the oldest info is dropped, so the subscriber only misses stale snapshots.
+ * The infos are delivered on the executor, one subscriber never receives two infos at the same time.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class ProgressPublisher implements Flow.Publisher<ProgressInfo>, AutoCloseable {
+
+    private final Executor executor;
+    private final int bufferSize;
+    private final List<ProgressSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Instantiates the publisher, which delivers on the common pool.
+     * @param bufferSize int - the infos buffered per subscriber
+     */
+    public ProgressPublisher(int bufferSize) {
+        this(ForkJoinPool.commonPool(), bufferSize);
+    }
+
+    /**
+     * Instantiates the publisher.
+     * @param executor Executor - delivers the infos to the subscribers
+     * @param bufferSize int - the infos buffered per subscriber
+     */
+    public ProgressPublisher(Executor executor, int bufferSize) {
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("Buffer size must be positive");
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ProgressInfo> subscriber) {
+        Objects.requireNonNull(subscriber);
+        ProgressSubscription subscription = new ProgressSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        if (closed) {
+            subscription.complete();
+        } else {
+            subscriptions.add(subscription);
+            if (closed) // closed while subscribing
+                subscription.complete();
+        }
+    }
+
+    /**
+     * Offers the info to every subscriber without waiting for them. After closing, infos are ignored,
+     * so a run does not fail, because its consumer went away.
+     * @param info ProgressInfo - the info
+     */
+    public void submit(ProgressInfo info) {
+        Objects.requireNonNull(info);
+        if (closed)
+            return;
+        for (ProgressSubscription subscription : subscriptions)
+            subscription.offer(info);
+    }
+
+    /**
+     * Checks if any subscriber is listening, so a publishing thread can skip creating infos.
+     * @return boolean - there is a subscriber
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Returns the infos dropped so far, because the buffer of a subscriber was full.
+     * @return long - the dropped infos of all subscribers
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Completes every subscriber after its buffered infos are delivered.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (ProgressSubscription subscription : subscriptions)
+            subscription.complete();
+    }
+
+    /**
+     * The buffer and the demand of one subscriber. Delivery is scheduled on the executor, whenever there is
+     * a buffered info and demand, and runs till one of both is exhausted.
+     */
+    private final class ProgressSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super ProgressInfo> subscriber;
+        private final ArrayDeque<ProgressInfo> buffer = new ArrayDeque<>();
+        private long demand;
+        private boolean scheduled;
+        private boolean completing;
+        private boolean cancelled;
+        private Throwable error;
+
+        private ProgressSubscription(Flow.Subscriber<? super ProgressInfo> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void offer(ProgressInfo info) {
+            synchronized (this) {
+                if (cancelled || completing)
+                    return;
+                if (buffer.size() == bufferSize) {
+                    buffer.pollFirst();
+                    dropped.increment();
+                }
+                buffer.addLast(info);
+            }
+            schedule();
+        }
+
+        private void complete() {
+            synchronized (this) {
+                completing = true;
+            }
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (cancelled)
+                    return;
+                if (n <= 0)
+                    error = new IllegalArgumentException("Requested " + n + " infos");
+                else
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                buffer.clear();
+            }
+            subscriptions.remove(this);
+        }
+
+        private void schedule() {
+            synchronized (this) {
+                if (scheduled || cancelled)
+                    return;
+                if (error == null && (buffer.isEmpty() || demand == 0) && !(completing && buffer.isEmpty()))
+                    return;
+                scheduled = true;
+            }
+            executor.execute(this);
+        }
+
+        /**
+         * Delivers the buffered infos on the executor.
+         */
+        @Override
+        public void run() {
+            while (true) {
+                ProgressInfo info;
+                synchronized (this) {
+                    if (cancelled) {
+                        scheduled = false;
+                        return;
+                    }
+                    if (error != null || (completing && buffer.isEmpty())) {
+                        cancelled = true;
+                        scheduled = false;
+                        break;
+                    }
+                    if (buffer.isEmpty() || demand == 0) {
+                        scheduled = false;
+                        return;
+                    }
+                    info = buffer.pollFirst();
+                    demand--;
+                }
+                try {
+                    subscriber.onNext(info);
+                } catch (RuntimeException exception) {
+                    cancel(); // a failing subscriber is dropped, the publisher keeps running
+                    return;
+                }
+            }
+
+            subscriptions.remove(this);
+            if (error != null)
+                subscriber.onError(error);
+            else
+                subscriber.onComplete();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package chatzis.nikolas.chess.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of one search for the best move.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+@Name("chatzis.nikolas.chess.Search")
+@Label("Search")
+@Category({"Chess", "Search"})
+@Description("Search for the best move of a position")
+public class SearchEvent extends Event {
+
+    @Label("Depth Reached")
+    public int depth;
+
+    @Label("Nodes")
+    public long nodes;
+
+    @Label("Score")
+    @Description("Score of the best move in centipawns from the view of the current player")
+    public int score;
+
+    @Label("Best Move")
+    public String bestMove;
+
+    @Label("Table Hit Rate")
+    @Description("Share of the nodes found in the transposition table")
+    public double tableHitRate;
+
+    @Label("Allocated")
+    @DataAmount
+    public long allocated;
+}
@@ -35,6 +35,37 @@ public class Move {
         return name;
     }
 
+    /**
+     * Packs the from and to position into a short: 6 bits from, 6 bits to.
+     * @param from int - from position
+     * @param to int - to position
+     * @return short - the packed move
+     * @since 1.1-SNAPSHOT
+     */
+    public static short pack(int from, int to) {
+        return (short) (from | to << 6);
+    }
+
+    /**
+     * Returns the from position of a packed move.
+     * @param packed short - the packed move
+     * @return byte - the from position
+     * @since 1.1-SNAPSHOT
+     */
+    public static byte packedFrom(short packed) {
+        return (byte) (packed & 0x3F);
+    }
+
+    /**
+     * Returns the to position of a packed move.
+     * @param packed short - the packed move
+     * @return byte - the to position
+     * @since 1.1-SNAPSHOT
+     */
+    public static byte packedTo(short packed) {
+        return (byte) (packed >> 6 & 0x3F);
+    }
+
     @Override
     public String toString() {
         return new StringBuilder().append(FieldNameConverter.fromFieldNumber(from)).append("(").append(name).append(") ").append(FieldNameConverter.fromFieldNumber(to)).toString();
@@ -0,0 +1,177 @@
+package chatzis.nikolas.chess.move;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe cache of legal move lists keyed by the position key of a board.
+ * The cache is bounded by the number of entries and by an estimated amount of bytes,
+ * the least recently used entries are evicted first.
+ * The keys are split into segments, so threads only lock the segment of the position they ask for.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class MoveCache {
+
+    private static final int SEGMENTS = 16;
+    private static final int ENTRY_OVERHEAD = 80; // map entry, boxed key and array header
+
+    private final Segment[] segments;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    /**
+     * Instantiates the cache.
+     * @param maxEntries int - the maximal amount of positions to store
+     * @param maxBytes long - the maximal estimated amount of bytes to use
+     */
+    public MoveCache(int maxEntries, long maxBytes) {
+        if (maxEntries < SEGMENTS || maxBytes < (long) SEGMENTS * ENTRY_OVERHEAD)
+            throw new IllegalArgumentException("Cache needs at least " + SEGMENTS + " entries and " + SEGMENTS * ENTRY_OVERHEAD + " bytes");
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++)
+            segments[i] = new Segment(maxEntries / SEGMENTS, maxBytes / SEGMENTS);
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.evictions = new LongAdder();
+    }
+
+    /**
+     * Returns the cached packed moves of the position.
+     * The returned array is shared and must not be modified.
+     * @param key long - the position key
+     * @return short[] - the packed moves (nullable if not cached)
+     */
+    public short[] get(long key) {
+        Segment segment = segmentOf(key);
+        short[] moves;
+        synchronized (segment) {
+            moves = segment.get(key);
+        }
+        (moves != null ? hits : misses).increment();
+        return moves;
+    }
+
+    /**
+     * Stores the packed moves of the position.
+     * @param key long - the position key
+     * @param moves short[] - the packed moves, must not be modified afterwards
+     */
+    public void put(long key, short[] moves) {
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            segment.put(key, moves);
+        }
+    }
+
+    /**
+     * Removes every entry. The counters are kept.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.bytes = 0;
+            }
+        }
+    }
+
+    private Segment segmentOf(long key) {
+        return segments[(int) (key ^ key >>> 32) & (SEGMENTS - 1)];
+    }
+
+    private static long sizeOf(short[] moves) {
+        return ENTRY_OVERHEAD + moves.length * 2L;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the amount of stored positions.
+     * @return int - stored positions
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the estimated amount of used bytes.
+     * @return long - used bytes
+     */
+    public long getBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += segment.bytes;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "MoveCache{size=" + size() + ", bytes=" + getBytes() + ", hits=" + getHits() +
+                ", misses=" + getMisses() + ", evictions=" + getEvictions() + "}";
+    }
+
+    /**
+     * One part of the cache, a linked hash map in access order, so the eldest entry is the least recently used.
+     */
+    private class Segment extends LinkedHashMap<Long, short[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+        private final long maxBytes;
+        private long bytes;
+
+        private Segment(int maxEntries, long maxBytes) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public short[] put(Long key, short[] value) {
+            short[] previous = super.put(key, value);
+            bytes += sizeOf(value) - (previous != null ? sizeOf(previous) : 0);
+            while (bytes > maxBytes && !isEmpty()) // removeEldestEntry only removes a single entry
+                evict(entrySet().iterator().next());
+            return previous;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, short[]> eldest) {
+            if (size() > maxEntries) {
+                bytes -= sizeOf(eldest.getValue());
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+
+        private void evict(Map.Entry<Long, short[]> eldest) {
+            bytes -= sizeOf(eldest.getValue());
+            remove(eldest.getKey());
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package chatzis.nikolas.chess.move;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.pieces.Piece;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Validates streams of (position, move) pairs, e.g. submitted moves.
+ * The stream is read in chunks, which are validated in parallel. Within a chunk, pairs of the same position are grouped,
+ * so every position is only parsed once and its moves are only generated once.
+ * Positions are Forsyth-Edwards Notations in the order of {@link Board#createNewBoard(String)},
+ * moves are from and to field, e.g. "e2e4".
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class MoveValidator implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final int threads;
+    private final int chunkSize;
+
+    /**
+     * Instantiates the validator with one thread per processor and chunks of 4096 moves.
+     */
+    public MoveValidator() {
+        this(Runtime.getRuntime().availableProcessors(), 4096);
+    }
+
+    /**
+     * Instantiates the validator.
+     * @param threads int - the threads validating chunks
+     * @param chunkSize int - the moves per chunk
+     */
+    public MoveValidator(int threads, int chunkSize) {
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Validates every pair of the stream.
+     * @param pairs Stream<Map.Entry<String, String>> - the positions and moves
+     * @return {@link ValidationResult} - the result in the order of the stream
+     */
+    public ValidationResult validate(Stream<Map.Entry<String, String>> pairs) {
+        return validate(pairs.iterator());
+    }
+
+    /**
+     * Validates every pair of the iterator. At most two chunks per thread are read ahead.
+     * @param pairs Iterator<Map.Entry<String, String>> - the positions and moves
+     * @return {@link ValidationResult} - the result in the order of the iterator
+     */
+    public ValidationResult validate(Iterator<Map.Entry<String, String>> pairs) {
+        BitSet legal = new BitSet();
+        byte[] reasons = new byte[chunkSize];
+        int size = 0;
+        Queue<Future<byte[]>> running = new ArrayDeque<>();
+        try {
+            while (pairs.hasNext() || !running.isEmpty()) {
+                while (pairs.hasNext() && running.size() < threads * 2) {
+                    List<Map.Entry<String, String>> chunk = new ArrayList<>(chunkSize);
+                    while (pairs.hasNext() && chunk.size() < chunkSize)
+                        chunk.add(pairs.next());
+                    running.add(executor.submit(() -> validateChunk(chunk)));
+                }
+
+                byte[] chunkReasons = running.remove().get();
+                if (size + chunkReasons.length > reasons.length)
+                    reasons = Arrays.copyOf(reasons, Math.max(reasons.length * 2, size + chunkReasons.length));
+                for (int i = 0; i < chunkReasons.length; i++) {
+                    if (chunkReasons[i] == ValidationResult.Reason.LEGAL.ordinal())
+                        legal.set(size + i);
+                }
+                System.arraycopy(chunkReasons, 0, reasons, size, chunkReasons.length);
+                size += chunkReasons.length;
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            running.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Validation was interrupted", exception);
+        } catch (ExecutionException exception) {
+            running.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Validation failed", exception.getCause());
+        }
+        return new ValidationResult(legal, reasons, size);
+    }
+
+    /**
+     * Validates one chunk, grouped by position.
+     * @param chunk List<Map.Entry<String, String>> - the pairs
+     * @return byte[] - the ordinal of the reason per pair
+     */
+    private byte[] validateChunk(List<Map.Entry<String, String>> chunk) {
+        Map<String, List<Integer>> positions = new HashMap<>();
+        for (int i = 0; i < chunk.size(); i++)
+            positions.computeIfAbsent(chunk.get(i).getKey(), fen -> new ArrayList<>()).add(i);
+
+        byte[] reasons = new byte[chunk.size()];
+        for (Map.Entry<String, List<Integer>> position : positions.entrySet()) {
+            Board board;
+            try {
+                board = Board.createNewBoard(position.getKey());
+            } catch (RuntimeException exception) {
+                for (int index : position.getValue())
+                    reasons[index] = (byte) ValidationResult.Reason.INVALID_POSITION.ordinal();
+                continue;
+            }
+
+            long[] targets = new long[64]; // the legal to-positions of every from-position as bits
+            for (short move : board.getLegalMoves())
+                targets[Move.packedFrom(move)] |= 1L << Move.packedTo(move);
+            for (int index : position.getValue())
+                reasons[index] = (byte) validate(board, targets, chunk.get(index).getValue()).ordinal();
+        }
+        return reasons;
+    }
+
+    private static ValidationResult.Reason validate(Board board, long[] targets, String move) {
+        int from = parseField(move, 0);
+        int to = parseField(move, 2);
+        if (move == null || move.length() != 4 || from < 0 || to < 0)
+            return ValidationResult.Reason.INVALID_MOVE;
+
+        Piece piece = board.getPieceOnBoard(from);
+        if (piece == null)
+            return ValidationResult.Reason.NO_PIECE;
+        if (piece.getBelong() != board.getCurrentPlayer())
+            return ValidationResult.Reason.NOT_CURRENT_PLAYER;
+        return (targets[from] & 1L << to) != 0 ? ValidationResult.Reason.LEGAL : ValidationResult.Reason.ILLEGAL_MOVE;
+    }
+
+    /**
+     * Parses a field name like "e2" without creating strings.
+     * @param move String - the move
+     * @param offset int - the index of the column character
+     * @return int - the field number or -1 if the name is invalid
+     */
+    private static int parseField(String move, int offset) {
+        if (move == null || move.length() < offset + 2)
+            return -1;
+        int column = move.charAt(offset) - 'a';
+        int row = move.charAt(offset + 1) - '1';
+        return column >= 0 && column < 8 && row >= 0 && row < 8 ? row * 8 + column : -1;
+    }
+
+    /**
+     * Stops the threads of the validator.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -2,8 +2,6 @@ package chatzis.nikolas.chess.move;
 
 import chatzis.nikolas.chess.pieces.Piece;
 
-import java.util.Map;
-
 /**
  * Class with interface, that gets called as soon as the piece moves.
  * Extends {@link Move}
@@ -26,9 +24,9 @@ public class SpecialMove extends Move {
 
         /**
          * Method will be called as soon as the piece is moved.
-         * @param pieces Map<Byte, Piece> - the updated piece set
+         * @param pieces Piece[] - the updated pieces, indexed by their position
          */
-        void moved(Map<Byte, Piece> pieces);
+        void moved(Piece[] pieces);
 
     }
 }
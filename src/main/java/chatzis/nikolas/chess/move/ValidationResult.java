@@ -0,0 +1,83 @@
+package chatzis.nikolas.chess.move;
+
+import java.util.BitSet;
+
+/**
+ * Result of a batch validation: one bit per validated move, which is set if the move is legal,
+ * and one reason per move, why it is not.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class ValidationResult {
+
+    /**
+     * Why a move is (not) legal.
+     */
+    public enum Reason {
+        LEGAL,
+        INVALID_POSITION,
+        INVALID_MOVE,
+        NO_PIECE,
+        NOT_CURRENT_PLAYER,
+        ILLEGAL_MOVE;
+
+        private static final Reason[] VALUES = values();
+    }
+
+    private final BitSet legal;
+    private final byte[] reasons; // ordinal of the reason per move
+    private final int size;
+
+    /**
+     * Instantiates the result.
+     * @param legal BitSet - the legal moves
+     * @param reasons byte[] - the ordinal of the {@link Reason} per move
+     * @param size int - the amount of validated moves
+     */
+    ValidationResult(BitSet legal, byte[] reasons, int size) {
+        this.legal = legal;
+        this.reasons = reasons;
+        this.size = size;
+    }
+
+    /**
+     * Checks if the move is legal.
+     * @param index int - the index of the move in the validated stream
+     * @return boolean - move is legal
+     */
+    public boolean isLegal(int index) {
+        return legal.get(index);
+    }
+
+    /**
+     * Returns why the move is not legal.
+     * @param index int - the index of the move in the validated stream
+     * @return Reason - the reason, {@link Reason#LEGAL} for legal moves
+     */
+    public Reason getReason(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " of " + size + " moves");
+        return Reason.VALUES[reasons[index]];
+    }
+
+    /**
+     * Returns the legal moves as bits.
+     * @return BitSet - a copy of the bits
+     */
+    public BitSet getLegal() {
+        return (BitSet) legal.clone();
+    }
+
+    public int getLegalCount() {
+        return legal.cardinality();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "ValidationResult{moves=" + size + ", legal=" + getLegalCount() + "}";
+    }
+}
@@ -0,0 +1,39 @@
+package chatzis.nikolas.chess.nnue;
+
+/**
+ * The output of the first layer of a {@link Network} for one position: the int16 sums of the feature columns
+ * of every piece, once from the view of white and once from the view of black. It is never changed after creation,
+ * the next board gets an updated copy.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public final class Accumulator {
+
+    private final Network network;
+    private final short[] values; // white view [0, hidden), black view [hidden, 2 * hidden)
+
+    Accumulator(Network network, short[] values) {
+        this.network = network;
+        this.values = values;
+    }
+
+    /**
+     * Returns the network, which calculated the values.
+     * @return Network - the network
+     */
+    public Network getNetwork() {
+        return network;
+    }
+
+    /**
+     * Returns a copy of the values.
+     * @return short[] - the values of the white view followed by the values of the black view
+     */
+    public short[] getValues() {
+        return values.clone();
+    }
+
+    short[] values() {
+        return values;
+    }
+}
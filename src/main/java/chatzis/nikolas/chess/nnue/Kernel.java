@@ -0,0 +1,57 @@
+package chatzis.nikolas.chess.nnue;
+
+import chatzis.nikolas.chess.utils.VectorSupport;
+
+/**
+ * The arithmetic of the {@link Network}: adding and subtracting int16 columns of the feature weights
+ * and the dot products of the dense layers. {@link #create()} uses the vector api, if the module jdk.incubator.vector
+ * is added (--add-modules jdk.incubator.vector), else scalar loops.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+abstract class Kernel {
+
+    /**
+     * Creates the fastest available kernel.
+     * @return Kernel - the vector kernel if available, else the scalar one
+     */
+    static Kernel create() {
+        return VectorSupport.loadVectorImplementation("chatzis.nikolas.chess.nnue.VectorKernel", ScalarKernel::new);
+    }
+
+    /**
+     * Adds a column to the values, wrapping on overflow like the int16 arithmetic of the vector kernel.
+     * @param values short[] - the values to change
+     * @param offset int - the first value
+     * @param weights short[] - the weights
+     * @param column int - the first weight of the column
+     * @param length int - the length of the column
+     */
+    abstract void add(short[] values, int offset, short[] weights, int column, int length);
+
+    /**
+     * Subtracts a column from the values.
+     * @param values short[] - the values to change
+     * @param offset int - the first value
+     * @param weights short[] - the weights
+     * @param column int - the first weight of the column
+     * @param length int - the length of the column
+     */
+    abstract void subtract(short[] values, int offset, short[] weights, int column, int length);
+
+    /**
+     * Multiplies the input with one row of the weights.
+     * @param input int[] - the input
+     * @param weights int[] - the weights
+     * @param row int - the first weight of the row
+     * @param length int - the length of the input
+     * @return int - the dot product
+     */
+    abstract int dot(int[] input, int[] weights, int row, int length);
+
+    /**
+     * Returns the name of the kernel for benchmarks.
+     * @return String - the name
+     */
+    abstract String getName();
+}
@@ -0,0 +1,318 @@
+package chatzis.nikolas.chess.nnue;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.game.Player;
+import chatzis.nikolas.chess.pieces.Piece;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * An efficiently updatable neural network: 768 inputs (piece index * 64 + position) are summed into int16 hidden
+ * values once from the view of every player (the {@link Accumulator}). Moving a piece only subtracts and adds
+ * a few columns, so {@link Board#makeMove} updates the accumulator instead of summing all pieces again.
+ * At a leaf only the small dense layers run: both views, the player to move first, are clipped to [0, 127],
+ * multiplied with int8 weights into the second layer, clipped again and summed into the output.
+ * <p>
+ * Quantisation: an activation of 127 is 1.0, the int8 weights of the dense layers are scaled by 64 and
+ * an output of 1.0 is {@value #OUTPUT_SCALE} centipawns.
+ * <p>
+ * File format (big-endian): the magic "NNUE", the version, the hidden size, the size of the second layer,
+ * the feature weights (int16, [feature][hidden]), the feature biases (int16), the weights of the second layer
+ * (int8, [output][2 * hidden]), its biases (int32), the output weights (int8) and the output bias (int32).
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class Network {
+
+    public static final int FEATURES = 12 * 64;
+
+    private static final int MAGIC = 0x4E4E5545;
+    private static final int VERSION = 1;
+    private static final int MAX_SIZE = 4096;
+    private static final int ACTIVATION_MAX = 127;
+    private static final int WEIGHT_SHIFT = 6;
+    private static final int OUTPUT_SCALE = 400;
+
+    private final int hidden;
+    private final int outputs;
+    private final short[] featureWeights; // [feature * hidden + i]
+    private final short[] featureBias;
+    private final int[] denseWeights; // [output * 2 * hidden + i], int8 values widened for the kernel
+    private final int[] denseBias;
+    private final int[] outputWeights; // int8 values
+    private final int outputBias;
+    private final Kernel kernel;
+
+    private Network(int hidden, int outputs, short[] featureWeights, short[] featureBias, int[] denseWeights,
+                    int[] denseBias, int[] outputWeights, int outputBias) {
+        this.hidden = hidden;
+        this.outputs = outputs;
+        this.featureWeights = featureWeights;
+        this.featureBias = featureBias;
+        this.denseWeights = denseWeights;
+        this.denseBias = denseBias;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+        this.kernel = Kernel.create();
+    }
+
+    /**
+     * Reads a network file.
+     * @param file Path - the file
+     * @return Network - the network
+     * @throws IOException - if the file cannot be read or is no network
+     */
+    public static Network load(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads a network, see the file format of the class.
+     * @param in InputStream - the input, which is not closed
+     * @return Network - the network
+     * @throws IOException - if the input fails or is no network
+     */
+    public static Network read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC)
+            throw new IOException("Not a network file");
+        int version = data.readInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported network version " + version);
+        int hidden = data.readInt();
+        int outputs = data.readInt();
+        if (hidden < 1 || hidden > MAX_SIZE || outputs < 1 || outputs > MAX_SIZE)
+            throw new IOException("Invalid network sizes " + hidden + ", " + outputs);
+
+        short[] featureWeights = new short[FEATURES * hidden];
+        for (int i = 0; i < featureWeights.length; i++)
+            featureWeights[i] = data.readShort();
+        short[] featureBias = new short[hidden];
+        for (int i = 0; i < hidden; i++)
+            featureBias[i] = data.readShort();
+        int[] denseWeights = new int[outputs * 2 * hidden];
+        for (int i = 0; i < denseWeights.length; i++)
+            denseWeights[i] = data.readByte();
+        int[] denseBias = new int[outputs];
+        for (int i = 0; i < outputs; i++)
+            denseBias[i] = data.readInt();
+        int[] outputWeights = new int[outputs];
+        for (int i = 0; i < outputs; i++)
+            outputWeights[i] = data.readByte();
+        int outputBias = data.readInt();
+        return new Network(hidden, outputs, featureWeights, featureBias, denseWeights, denseBias, outputWeights, outputBias);
+    }
+
+    /**
+     * Writes the network to a file.
+     * @param file Path - the file
+     * @throws IOException - if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(out);
+        }
+    }
+
+    /**
+     * Writes the network, see the file format of the class.
+     * @param out OutputStream - the output, which is flushed but not closed
+     * @throws IOException - if the output fails
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(hidden);
+        data.writeInt(outputs);
+        for (short weight : featureWeights)
+            data.writeShort(weight);
+        for (short bias : featureBias)
+            data.writeShort(bias);
+        for (int weight : denseWeights)
+            data.writeByte(weight);
+        for (int bias : denseBias)
+            data.writeInt(bias);
+        for (int weight : outputWeights)
+            data.writeByte(weight);
+        data.writeInt(outputBias);
+        data.flush();
+    }
+
+    /**
+     * Creates a network with random weights, e.g. for tests and benchmarks.
+     * The weights are small enough, that the hidden values of real positions rarely leave the clipped range.
+     * @param seed long - the seed of the weights
+     * @param hidden int - the hidden values per view
+     * @param outputs int - the size of the second layer
+     * @return Network - the network
+     */
+    public static Network random(long seed, int hidden, int outputs) {
+        Random random = new Random(seed);
+        short[] featureWeights = new short[FEATURES * hidden];
+        for (int i = 0; i < featureWeights.length; i++)
+            featureWeights[i] = (short) (random.nextInt(49) - 24);
+        short[] featureBias = new short[hidden];
+        for (int i = 0; i < hidden; i++)
+            featureBias[i] = (short) (32 + random.nextInt(64));
+        int[] denseWeights = new int[outputs * 2 * hidden];
+        for (int i = 0; i < denseWeights.length; i++)
+            denseWeights[i] = random.nextInt(129) - 64;
+        int[] denseBias = new int[outputs];
+        for (int i = 0; i < outputs; i++)
+            denseBias[i] = random.nextInt(4097) - 2048;
+        int[] outputWeights = new int[outputs];
+        for (int i = 0; i < outputs; i++)
+            outputWeights[i] = random.nextInt(129) - 64;
+        return new Network(hidden, outputs, featureWeights, featureBias, denseWeights, denseBias, outputWeights, 0);
+    }
+
+    /**
+     * Sums the columns of every piece of the board.
+     * @param board {@link Board} - the board
+     * @return Accumulator - the accumulator of the board
+     */
+    public Accumulator refresh(Board board) {
+        short[] values = new short[2 * hidden];
+        System.arraycopy(featureBias, 0, values, 0, hidden);
+        System.arraycopy(featureBias, 0, values, hidden, hidden);
+        for (int position = 0; position < 64; position++) {
+            Piece piece = board.getPieceOnBoard(position);
+            if (piece != null) {
+                kernel.add(values, 0, featureWeights, whiteColumn(piece.getIndex(), position), hidden);
+                kernel.add(values, hidden, featureWeights, blackColumn(piece.getIndex(), position), hidden);
+            }
+        }
+        return new Accumulator(this, values);
+    }
+
+    /**
+     * Updates the accumulator of a board for the next board. Only the positions of the move are compared,
+     * a special move (castling, en passant) may change other positions, so every position is compared.
+     * @param accumulator Accumulator - the accumulator of the board before the move
+     * @param before Piece[] - the pieces before the move, indexed by their position
+     * @param after Piece[] - the pieces after the move, indexed by their position
+     * @param from int - the start position of the move
+     * @param to int - the end position of the move
+     * @param special boolean - the move is a special move
+     * @return Accumulator - the accumulator of the board after the move
+     */
+    public Accumulator update(Accumulator accumulator, Piece[] before, Piece[] after, int from, int to, boolean special) {
+        short[] values = accumulator.values().clone();
+        if (special) {
+            for (int position = 0; position < 64; position++)
+                update(values, before[position], after[position], position);
+        } else {
+            update(values, before[from], after[from], from);
+            update(values, before[to], after[to], to);
+        }
+        return new Accumulator(this, values);
+    }
+
+    private void update(short[] values, Piece before, Piece after, int position) {
+        if (before == after)
+            return;
+        if (before != null) {
+            kernel.subtract(values, 0, featureWeights, whiteColumn(before.getIndex(), position), hidden);
+            kernel.subtract(values, hidden, featureWeights, blackColumn(before.getIndex(), position), hidden);
+        }
+        if (after != null) {
+            kernel.add(values, 0, featureWeights, whiteColumn(after.getIndex(), position), hidden);
+            kernel.add(values, hidden, featureWeights, blackColumn(after.getIndex(), position), hidden);
+        }
+    }
+
+    /**
+     * Runs the dense layers on the accumulator.
+     * @param accumulator Accumulator - the accumulator of the position
+     * @param player Player - the player to move
+     * @return int - the score in centipawns from the view of the player
+     */
+    public int evaluate(Accumulator accumulator, Player player) {
+        short[] values = accumulator.values();
+        int us = player == Player.WHITE ? 0 : hidden;
+        int them = hidden - us;
+        int[] input = new int[2 * hidden];
+        for (int i = 0; i < hidden; i++) {
+            input[i] = clip(values[us + i]);
+            input[hidden + i] = clip(values[them + i]);
+        }
+
+        int output = outputBias;
+        for (int o = 0; o < outputs; o++) {
+            int sum = kernel.dot(input, denseWeights, o * 2 * hidden, 2 * hidden) + denseBias[o];
+            output += clip(sum >> WEIGHT_SHIFT) * outputWeights[o];
+        }
+        return (int) ((long) output * OUTPUT_SCALE / (ACTIVATION_MAX << WEIGHT_SHIFT));
+    }
+
+    /**
+     * Evaluates the board with its accumulator, see {@link Board#getAccumulator(Network)}.
+     * @param board {@link Board} - the board
+     * @return int - the score in centipawns from the view of the player to move
+     */
+    public int evaluate(Board board) {
+        return evaluate(board.getAccumulator(this), board.getCurrentPlayer());
+    }
+
+    private static int clip(int value) {
+        return Math.max(0, Math.min(ACTIVATION_MAX, value));
+    }
+
+    private int whiteColumn(int pieceIndex, int position) {
+        return (pieceIndex * 64 + position) * hidden;
+    }
+
+    /**
+     * The black view swaps the colors and mirrors the ranks, so both players see their pieces as white pieces.
+     */
+    private int blackColumn(int pieceIndex, int position) {
+        return (((pieceIndex + 6) % 12) * 64 + (position ^ 56)) * hidden;
+    }
+
+    public int getHidden() {
+        return hidden;
+    }
+
+    /**
+     * Returns the name of the arithmetic for benchmarks.
+     * @return String - "scalar" or the vector width
+     */
+    public String getKernelName() {
+        return kernel.getName();
+    }
+
+    @Override
+    public String toString() {
+        return "Network{768x" + hidden + "x2, " + outputs + ", 1, " + kernel.getName() + "}";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof Network network))
+            return false;
+        return hidden == network.hidden && outputs == network.outputs && outputBias == network.outputBias
+                && Arrays.equals(featureWeights, network.featureWeights) && Arrays.equals(featureBias, network.featureBias)
+                && Arrays.equals(denseWeights, network.denseWeights) && Arrays.equals(denseBias, network.denseBias)
+                && Arrays.equals(outputWeights, network.outputWeights);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(featureWeights) + Arrays.hashCode(denseWeights);
+    }
+}
@@ -0,0 +1,118 @@
+package chatzis.nikolas.chess.nnue;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.move.Move;
+import chatzis.nikolas.chess.search.Evaluator;
+import chatzis.nikolas.chess.search.SearchBenchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Evaluates positions with a {@link Network} in place of the hand-crafted {@link chatzis.nikolas.chess.search.PieceSquareEvaluator}.
+ * The accumulators are only updated incrementally, if the network is set by {@link Board#setNetwork(Network)},
+ * else every evaluation sums all pieces again.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class NnueEvaluator implements Evaluator {
+
+    private final Network network;
+
+    /**
+     * Instantiates the evaluator.
+     * @param network Network - the network
+     */
+    public NnueEvaluator(Network network) {
+        this.network = network;
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        return network.evaluate(board);
+    }
+
+    public Network getNetwork() {
+        return network;
+    }
+
+    /**
+     * Measures the evaluations per second of the network on random games from the positions of the {@link SearchBenchmark}:
+     * with a full refresh of the accumulator, with incremental updates while making the moves, and the dense layers alone.
+     * Arguments: [file] [--hidden n] [--outputs n] [--positions n], a random network is used without a file.
+     * @param args String[] - the arguments
+     * @throws IOException - if the file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = null;
+        int hidden = 256;
+        int outputs = 32;
+        int positions = 200_000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--hidden" -> hidden = Integer.parseInt(args[++i]);
+                case "--outputs" -> outputs = Integer.parseInt(args[++i]);
+                case "--positions" -> positions = Integer.parseInt(args[++i]);
+                default -> file = Path.of(args[i]);
+            }
+        }
+        Network network = file != null ? Network.load(file) : Network.random(1, hidden, outputs);
+        System.out.println(network);
+
+        List<Board> boards = new ArrayList<>(positions);
+        Random random = new Random(1);
+        while (boards.size() < positions) {
+            Board board = Board.createNewBoard(SearchBenchmark.SUITE.get(boards.size() % SearchBenchmark.SUITE.size()));
+            for (int ply = 0; ply < 40 && boards.size() < positions; ply++) {
+                short[] moves = board.getLegalMoves();
+                if (moves.length == 0)
+                    break;
+                short move = moves[random.nextInt(moves.length)];
+                board = board.makeMove(board.getMove(Move.packedFrom(move), Move.packedTo(move)));
+                boards.add(board);
+            }
+        }
+
+        for (int round = 0; round < 3; round++) { // the first rounds warm up the compiler
+            long checksum = 0;
+            long start = System.nanoTime();
+            for (Board board : boards)
+                checksum += network.evaluate(network.refresh(board), board.getCurrentPlayer());
+            long refresh = System.nanoTime() - start;
+
+            List<Accumulator> accumulators = new ArrayList<>(boards.size());
+            for (Board board : boards)
+                accumulators.add(network.refresh(board));
+            start = System.nanoTime();
+            for (int i = 0; i < boards.size(); i++)
+                checksum += network.evaluate(accumulators.get(i), boards.get(i).getCurrentPlayer());
+            long dense = System.nanoTime() - start;
+
+            Board.setNetwork(network);
+            start = System.nanoTime();
+            long incremental = 0;
+            random.setSeed(round);
+            for (int game = 0; game < positions / 40; game++) {
+                Board board = Board.createNewBoard(SearchBenchmark.SUITE.get(game % SearchBenchmark.SUITE.size()));
+                for (int ply = 0; ply < 40; ply++) {
+                    short[] moves = board.getLegalMoves();
+                    if (moves.length == 0)
+                        break;
+                    short move = moves[random.nextInt(moves.length)];
+                    board = board.makeMove(board.getMove(Move.packedFrom(move), Move.packedTo(move)));
+                    checksum += network.evaluate(board);
+                    incremental++;
+                }
+            }
+            long updated = System.nanoTime() - start;
+            Board.setNetwork(null);
+
+            System.out.printf("Round %d: refresh %d evals/s, incremental (with move generation) %d evals/s, dense layers %d evals/s (%d)%n",
+                    round + 1, boards.size() * 1_000_000_000L / refresh, incremental * 1_000_000_000L / updated,
+                    boards.size() * 1_000_000_000L / dense, checksum);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package chatzis.nikolas.chess.nnue;
+
+/**
+ * The arithmetic of the {@link Network} without the vector api.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+class ScalarKernel extends Kernel {
+
+    @Override
+    void add(short[] values, int offset, short[] weights, int column, int length) {
+        for (int i = 0; i < length; i++)
+            values[offset + i] += weights[column + i];
+    }
+
+    @Override
+    void subtract(short[] values, int offset, short[] weights, int column, int length) {
+        for (int i = 0; i < length; i++)
+            values[offset + i] -= weights[column + i];
+    }
+
+    @Override
+    int dot(int[] input, int[] weights, int row, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++)
+            sum += input[i] * weights[row + i];
+        return sum;
+    }
+
+    @Override
+    String getName() {
+        return "scalar";
+    }
+}
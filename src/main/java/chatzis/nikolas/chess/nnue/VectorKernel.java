@@ -0,0 +1,62 @@
+package chatzis.nikolas.chess.nnue;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The arithmetic of the {@link Network} with the vector api: the int16 columns are added in short lanes,
+ * the dense layers multiply in int lanes. Only loaded if the module jdk.incubator.vector is added.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+class VectorKernel extends Kernel {
+
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    void add(short[] values, int offset, short[] weights, int column, int length) {
+        int upperBound = SHORTS.loopBound(length);
+        int i = 0;
+        for (; i < upperBound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, values, offset + i)
+                    .add(ShortVector.fromArray(SHORTS, weights, column + i))
+                    .intoArray(values, offset + i);
+        }
+        for (; i < length; i++)
+            values[offset + i] += weights[column + i];
+    }
+
+    @Override
+    void subtract(short[] values, int offset, short[] weights, int column, int length) {
+        int upperBound = SHORTS.loopBound(length);
+        int i = 0;
+        for (; i < upperBound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, values, offset + i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, column + i))
+                    .intoArray(values, offset + i);
+        }
+        for (; i < length; i++)
+            values[offset + i] -= weights[column + i];
+    }
+
+    @Override
+    int dot(int[] input, int[] weights, int row, int length) {
+        int upperBound = INTS.loopBound(length);
+        IntVector sum = IntVector.zero(INTS);
+        int i = 0;
+        for (; i < upperBound; i += INTS.length())
+            sum = sum.add(IntVector.fromArray(INTS, input, i).mul(IntVector.fromArray(INTS, weights, row + i)));
+        int result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++)
+            result += input[i] * weights[row + i];
+        return result;
+    }
+
+    @Override
+    String getName() {
+        return "vector " + SHORTS.length() + "x16";
+    }
+}
@@ -0,0 +1,202 @@
+package chatzis.nikolas.chess.perft;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.metrics.Metrics;
+import chatzis.nikolas.chess.metrics.PerftEvent;
+import chatzis.nikolas.chess.metrics.ProgressInfo;
+import chatzis.nikolas.chess.metrics.ProgressPublisher;
+import chatzis.nikolas.chess.move.Move;
+import chatzis.nikolas.chess.utils.FieldNameConverter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts every move sequence up to a depth, to verify the move generation.
+ * The moves of the last ply are counted without making them (bulk counting)
+ * and with a {@link PerftTable} transpositions are only counted once.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class Perft {
+
+    private final PerftTable table;
+    private long tableHits;
+    private ProgressPublisher progressPublisher;
+
+    /**
+     * Instantiates perft without a table.
+     */
+    public Perft() {
+        this(null);
+    }
+
+    /**
+     * Instantiates perft.
+     * @param table {@link PerftTable} - stores the counted subtrees (nullable)
+     */
+    public Perft(PerftTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Counts the leaf nodes of the board.
+     * @param board Board - the starting board
+     * @param depth int - the depth to count
+     * @return long - the amount of move sequences with the given depth
+     */
+    public long perft(Board board, int depth) {
+        return run(depth, () -> progressPublisher != null && depth > 1 ? countRoot(board, depth) : count(board, depth));
+    }
+
+    /**
+     * Counts the leaf nodes after every move of the board.
+     * @param board Board - the starting board
+     * @param depth int - the depth to count, including the divided move
+     * @return Map<String, Long> - the amount of move sequences per move, e.g. "e2e4"
+     */
+    public Map<String, Long> divide(Board board, int depth) {
+        Map<String, Long> divided = new LinkedHashMap<>();
+        run(depth, () -> {
+            long nodes = 0;
+            for (short packed : board.getLegalMoves()) {
+                byte from = Move.packedFrom(packed);
+                byte to = Move.packedTo(packed);
+                long moveNodes = depth <= 1 ? 1 : count(board.makeMove(board.getMove(from, to)), depth - 1);
+                divided.put(String.valueOf(FieldNameConverter.fromFieldNumber(from)) + String.valueOf(FieldNameConverter.fromFieldNumber(to)), moveNodes);
+                nodes += moveNodes;
+            }
+            return nodes;
+        });
+        return divided;
+    }
+
+    /**
+     * Runs one count, which resets the table hits and records a single {@link PerftEvent}.
+     * @param depth int - the depth to count
+     * @param counting LongSupplier - counts the leaf nodes
+     * @return long - the amount of leaf nodes
+     */
+    private long run(int depth, LongSupplier counting) {
+        PerftEvent event = new PerftEvent();
+        event.begin();
+        long allocated = Metrics.allocatedBytes();
+        tableHits = 0;
+
+        long nodes = counting.getAsLong();
+
+        Metrics.add(Metrics.Counter.PERFT_NODES, nodes);
+        if (event.shouldCommit()) {
+            event.depth = depth;
+            event.nodes = nodes;
+            event.tableHits = tableHits;
+            event.allocated = allocated >= 0 ? Metrics.allocatedBytes() - allocated : -1;
+            event.commit();
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the subtree of every root move and publishes the nodes after each of them.
+     * @param board Board - the starting board
+     * @param depth int - the depth to count
+     * @return long - the amount of leaf nodes
+     */
+    private long countRoot(Board board, int depth) {
+        long start = System.currentTimeMillis();
+        short[] moves = board.getLegalMoves();
+        long nodes = 0;
+        for (int i = 0; i < moves.length; i++) {
+            nodes += count(board.makeMove(board.getMove(Move.packedFrom(moves[i]), Move.packedTo(moves[i]))), depth - 1);
+            if (progressPublisher.hasSubscribers())
+                progressPublisher.submit(new ProgressInfo(ProgressInfo.Source.PERFT, depth, 0, List.of(), nodes,
+                        System.currentTimeMillis() - start, table != null ? table.getHashFull() : -1, i + 1, moves.length));
+        }
+        return nodes;
+    }
+
+    /**
+     * Will call itself till depth 1 is reached, where the legal moves are counted.
+     * @param board Board - the board
+     * @param depth int - the remaining depth
+     * @return long - the amount of leaf nodes
+     */
+    private long count(Board board, int depth) {
+        if (depth == 0)
+            return 1;
+        if (depth == 1)
+            return board.getLegalMoves().length;
+
+        // probed before generating the moves, so a transposition costs no move generation
+        if (table != null) {
+            long nodes = table.get(board.getHash(), depth);
+            if (nodes >= 0) {
+                tableHits++;
+                return nodes;
+            }
+        }
+
+        short[] moves = board.getLegalMoves();
+        long nodes = 0;
+        for (short move : moves)
+            nodes += count(board.makeMove(board.getMove(Move.packedFrom(move), Move.packedTo(move))), depth - 1);
+
+        if (table != null)
+            table.put(board.getHash(), depth, nodes);
+        return nodes;
+    }
+
+    /**
+     * Sets the publisher, which receives the counted nodes after every root move.
+     * Submitting never blocks the counting, slow subscribers miss older infos instead.
+     * @param publisher {@link ProgressPublisher} - the publisher (nullable)
+     */
+    public void setProgressPublisher(ProgressPublisher publisher) {
+        this.progressPublisher = publisher;
+    }
+
+    /**
+     * Returns the subtrees found in the table during the last run.
+     * @return long - the table hits
+     */
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    /**
+     * Runs perft from the command line.
+     * Arguments: depth [fen] [--hash mb] [--divide]
+     * @param args String[] - the arguments
+     */
+    public static void main(String[] args) {
+        int depth = Integer.parseInt(args[0]);
+        String fen = null;
+        int hash = 0;
+        boolean divide = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--hash"))
+                hash = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--divide"))
+                divide = true;
+            else
+                fen = fen == null ? args[i] : fen + " " + args[i];
+        }
+
+        Board board = fen == null ? Board.createNewBoard() : Board.createNewBoard(fen);
+        Perft perft = new Perft(hash > 0 ? new PerftTable(hash) : null);
+        long time = System.currentTimeMillis();
+        if (divide) {
+            long nodes = 0;
+            for (Map.Entry<String, Long> entry : perft.divide(board, depth).entrySet()) {
+                System.out.println(entry.getKey() + ": " + entry.getValue());
+                nodes += entry.getValue();
+            }
+            System.out.println("Nodes: " + nodes);
+        } else {
+            System.out.println("Nodes: " + perft.perft(board, depth));
+        }
+        System.out.println("Time: " + (System.currentTimeMillis() - time) + "ms");
+    }
+}
@@ -0,0 +1,95 @@
+package chatzis.nikolas.chess.perft;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Hash table of counted subtrees, indexed by the position key and the remaining depth.
+ * The entries live off-heap in a direct buffer, so big tables do not stress the garbage collector.
+ * An entry is two longs, the key is stored xor the data, so entries torn by concurrent writes are not found.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class PerftTable {
+
+    private static final int ENTRY_SIZE = 16;
+    private static final long DEPTH_KEY = 0x9E3779B97F4A7C15L;
+
+    private final ByteBuffer entries;
+    private final long mask;
+
+    /**
+     * Instantiates the table.
+     * @param megabytes int - the size of the table, rounded down to a power of two (at most 1GB)
+     */
+    public PerftTable(int megabytes) {
+        long entryCount = Long.highestOneBit(Math.max(ENTRY_SIZE, (long) megabytes << 20) / ENTRY_SIZE);
+        if (entryCount * ENTRY_SIZE > 1 << 30)
+            throw new IllegalArgumentException("Table of " + megabytes + "MB is too big");
+        this.entries = ByteBuffer.allocateDirect((int) (entryCount * ENTRY_SIZE)).order(ByteOrder.nativeOrder());
+        this.mask = entryCount - 1;
+    }
+
+    /**
+     * Looks up the amount of leaf nodes below the position.
+     * @param key long - the position key
+     * @param depth int - the remaining depth
+     * @return long - the amount of nodes or -1 if the subtree is not stored
+     */
+    public long get(long key, int depth) {
+        long depthKey = key + depth * DEPTH_KEY;
+        int index = index(depthKey);
+        long data = entries.getLong(index + 8);
+        if (data == 0 || (entries.getLong(index) ^ data) != depthKey || (data & 0xFF) != depth)
+            return -1;
+        return data >>> 8;
+    }
+
+    /**
+     * Stores the amount of leaf nodes below the position, replacing the previous entry.
+     * @param key long - the position key
+     * @param depth int - the remaining depth
+     * @param nodes long - the amount of leaf nodes
+     */
+    public void put(long key, int depth, long nodes) {
+        long depthKey = key + depth * DEPTH_KEY;
+        int index = index(depthKey);
+        long data = nodes << 8 | depth & 0xFF;
+        entries.putLong(index, depthKey ^ data);
+        entries.putLong(index + 8, data);
+    }
+
+    private int index(long depthKey) {
+        return (int) ((depthKey ^ depthKey >>> 32) & mask) * ENTRY_SIZE;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.capacity(); i += 8)
+            entries.putLong(i, 0);
+    }
+
+    /**
+     * Samples the first thousand entries to estimate how full the table is.
+     * @return int - used entries per thousand
+     */
+    public int getHashFull() {
+        int samples = (int) Math.min(1000, mask + 1);
+        int used = 0;
+        for (int i = 0; i < samples; i++) {
+            if (entries.getLong(i * ENTRY_SIZE + 8) != 0)
+                used++;
+        }
+        return used * 1000 / samples;
+    }
+
+    /**
+     * Returns the off-heap memory of the table.
+     * @return long - the size in bytes
+     */
+    public long getBytes() {
+        return entries.capacity();
+    }
+}
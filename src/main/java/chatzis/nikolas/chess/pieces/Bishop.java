@@ -2,31 +2,40 @@ package chatzis.nikolas.chess.pieces;
 
 import chatzis.nikolas.chess.game.Board;
 import chatzis.nikolas.chess.game.Player;
+import chatzis.nikolas.chess.utils.Mailbox;
+
+import java.util.Set;
 
 public class Bishop extends Piece {
 
-    public Bishop(Player player, byte position) {
-        super(player, 'B', position);
+    public static final Bishop WHITE = new Bishop(Player.WHITE);
+    public static final Bishop BLACK = new Bishop(Player.BLACK);
+
+    private Bishop(Player player) {
+        super(player, 'B');
     }
 
     /**
      * Adds every possible move the piece can make to hashset.
      * @param board {@link Board} - the board.
+     * @param position byte - the position of the bishop.
+     * @param moves Set<Byte> - the set to add the to-positions to.
      * @since 1.1-SNAPSHOT
      */
     @Override
-    public void addPossibleMoves(Board board) {
-        addRepeatingMove(board, new int[]{9, 7});
+    public void addPossibleMoves(Board board, byte position, Set<Byte> moves) {
+        addRepeatingMove(board, moves, position, Mailbox.BISHOP_OFFSETS);
     }
 
+
     /**
-     * Copies the instance of this class.
-     *
-     * @return {@link Piece} - copies instance
+     * Returns the positions the moves of the bishop depend on.
+     * @param board {@link Board} - the board.
+     * @param position byte - the position of the bishop.
+     * @return long - the positions as bits
      */
     @Override
-    public Piece clone() {
-        return new Bishop(belong, currentPosition);
+    public long getDependencies(Board board, byte position) {
+        return getRepeatingDependencies(board, position, Mailbox.BISHOP_OFFSETS);
     }
-
 }
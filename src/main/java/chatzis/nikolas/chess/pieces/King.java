@@ -2,29 +2,34 @@ package chatzis.nikolas.chess.pieces;
 
 import chatzis.nikolas.chess.game.Board;
 import chatzis.nikolas.chess.game.Player;
+import chatzis.nikolas.chess.move.Move;
 import chatzis.nikolas.chess.move.SpecialMove;
+import chatzis.nikolas.chess.utils.Mailbox;
+
+import java.util.Set;
 
 public class King extends Piece {
 
-    public King(Player player, byte currentPosition) {
-        super(player, 'K', currentPosition);
+    public static final King WHITE = new King(Player.WHITE);
+    public static final King BLACK = new King(Player.BLACK);
+
+    private King(Player player) {
+        super(player, 'K');
     }
 
     /**
      * Adds every possible move the piece can make to hashset.
      * @param board {@link Board} - the board.
+     * @param position byte - the position of the king.
+     * @param moves Set<Byte> - the set to add the to-positions to.
      * @since 1.1-SNAPSHOT
      */
     @Override
-    public void addPossibleMoves(Board board) {
-        for (int i = -1; i < 2; i++) {
-            addMoveWhenMoveableOrAttackable(board, (currentPosition + (8 + i)));
-            addMoveWhenMoveableOrAttackable(board, (currentPosition + (-8 + i)));
-        }
-        addMoveWhenMoveableOrAttackable(board, (currentPosition - 1));
-        addMoveWhenMoveableOrAttackable(board, (currentPosition + 1));
+    public void addPossibleMoves(Board board, byte position, Set<Byte> moves) {
+        for (int offset : Mailbox.KING_OFFSETS)
+            addMoveWhenMoveableOrAttackable(board, moves, position, offset);
 
-        if (board.kingIsNotChecked(getBelong())) {
+        if (!board.isSimulation() && board.kingIsNotChecked(getBelong())) {
             boolean[] castlingRights = board.getCastlingRights(getBelong());
 
             byte queenSideRookPos = belong.getQueenSidedRookStartingPosition();
@@ -37,14 +42,9 @@ public class King extends Piece {
                     board.getPieceOnBoard(queenSideRookPos + 3) == null) {
 
                 // king will not be in check
-                if (board.noneAttacks(getBelong().nextPlayer(), (byte) (currentPosition - 1))) {
+                if (board.noneAttacks(getBelong().nextPlayer(), (byte) (position - 1))) {
                     // method always checks for king check
-                    add(board, new SpecialMove(name, currentPosition, (byte) (currentPosition - 2), (pieceSet) -> {
-                        Piece rook = pieceSet.get(queenSideRookPos);
-                        pieceSet.put((byte) (queenSideRookPos + 3), rook);
-                        rook.setCurrentPosition((byte) (queenSideRookPos + 3));
-                        pieceSet.remove(queenSideRookPos);
-                    }));
+                    add(board, moves, position, position - 2);
                 }
             }
 
@@ -52,26 +52,37 @@ public class King extends Piece {
             if (castlingRights[0] &&
                     board.getPieceOnBoard(kingRookPos - 1) == null &&
                     board.getPieceOnBoard(kingRookPos - 2) == null) {
-                if (board.noneAttacks(getBelong().nextPlayer(), (byte) (currentPosition + 1))) {
+                if (board.noneAttacks(getBelong().nextPlayer(), (byte) (position + 1))) {
                     // method always checks for king check
-                    add(board, new SpecialMove(name, currentPosition, (byte) (currentPosition + 2), (pieceSet)  -> {
-                        Piece rook = pieceSet.get(kingRookPos);
-                        pieceSet.put((byte) (kingRookPos - 2), rook);
-                        rook.setCurrentPosition((byte) (kingRookPos - 2));
-                        pieceSet.remove(kingRookPos);
-
-                    }));
+                    add(board, moves, position, position + 2);
                 }
             }
         }
     }
 
     /**
-     * Copies the instance of this class.
-     * @return {@link Piece} - copies instance
+     * Creates the move of the king. Moving two fields to the side is a rochade, which also moves the rook.
+     * @param board {@link Board} - the board the move is made on.
+     * @param from byte - the position of the king.
+     * @param to byte - the position to move to.
+     * @return {@link Move} - the move.
      */
     @Override
-    public King clone() {
-        return new King(belong, currentPosition);
+    public Move getMove(Board board, byte from, byte to) {
+        if (to - from == -2) {
+            byte queenSideRookPos = belong.getQueenSidedRookStartingPosition();
+            return new SpecialMove(name, from, to, (pieces) -> {
+                pieces[queenSideRookPos + 3] = pieces[queenSideRookPos];
+                pieces[queenSideRookPos] = null;
+            });
+        }
+        if (to - from == 2) {
+            byte kingRookPos = belong.getKingSidedRookStartingPosition();
+            return new SpecialMove(name, from, to, (pieces) -> {
+                pieces[kingRookPos - 2] = pieces[kingRookPos];
+                pieces[kingRookPos] = null;
+            });
+        }
+        return super.getMove(board, from, to);
     }
 }
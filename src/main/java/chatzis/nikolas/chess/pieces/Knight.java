@@ -2,38 +2,45 @@ package chatzis.nikolas.chess.pieces;
 
 import chatzis.nikolas.chess.game.Board;
 import chatzis.nikolas.chess.game.Player;
+import chatzis.nikolas.chess.utils.Mailbox;
+
+import java.util.Set;
 
 public class Knight extends Piece {
 
+    public static final Knight WHITE = new Knight(Player.WHITE);
+    public static final Knight BLACK = new Knight(Player.BLACK);
+
     /**
      * Instantiates the class.
      *
      * @param player Player - the player the piece belongs to.
      */
-    public Knight(Player player, byte position) {
-        super(player, 'N', position);
+    private Knight(Player player) {
+        super(player, 'N');
     }
 
     /**
      * Adds every possible move the piece can make to hashset.
      * @param board {@link Board} - the board.
+     * @param position byte - the position of the knight.
+     * @param moves Set<Byte> - the set to add the to-positions to.
      * @since 1.1-SNAPSHOT
      */
     @Override
-    public void addPossibleMoves(Board board) {
-        for (int i : new int[]{6, 10, 15, 17}) {
-            for (byte m : new byte[]{1, -1})
-                addMoveWhenMoveableOrAttackable(board, (byte) (currentPosition + i * m));
-        }
+    public void addPossibleMoves(Board board, byte position, Set<Byte> moves) {
+        for (int offset : Mailbox.KNIGHT_OFFSETS)
+            addMoveWhenMoveableOrAttackable(board, moves, position, offset);
     }
 
     /**
-     * Copies the instance of this class.
-     *
-     * @return {@link Piece} - copies instance
+     * Returns the positions the moves of the knight depend on.
+     * @param board {@link Board} - the board.
+     * @param position byte - the position of the knight.
+     * @return long - the positions as bits
      */
     @Override
-    public Piece clone() {
-        return new Knight(belong, currentPosition);
+    public long getDependencies(Board board, byte position) {
+        return getTargetDependencies(position, Mailbox.KNIGHT_OFFSETS);
     }
 }
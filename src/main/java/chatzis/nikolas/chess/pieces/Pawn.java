@@ -2,78 +2,111 @@ package chatzis.nikolas.chess.pieces;
 
 import chatzis.nikolas.chess.game.Board;
 import chatzis.nikolas.chess.game.Player;
+import chatzis.nikolas.chess.move.Move;
 import chatzis.nikolas.chess.move.SpecialMove;
-import chatzis.nikolas.chess.utils.BoardUtils;
+import chatzis.nikolas.chess.utils.Mailbox;
+
+import java.util.Set;
 
 public class Pawn extends Piece {
 
     public static final char PAWN_NAME = 'P';
+    private static final int[] WHITE_TARGETS = {9, 10, 11};
+    private static final int[] BLACK_TARGETS = {-9, -10, -11};
+
+    public static final Pawn WHITE = new Pawn(Player.WHITE);
+    public static final Pawn BLACK = new Pawn(Player.BLACK);
 
     /**
      * Instantiates the class.
      *
      * @param player Player - the player the piece belongs to.
      */
-    public Pawn(Player player, byte currentPosition) {
-        super(player, PAWN_NAME, currentPosition);
+    private Pawn(Player player) {
+        super(player, PAWN_NAME);
     }
 
     /**
      * Adds every possible move the piece can make to hashset.
      * @param board {@link Board} - the board.
+     * @param position byte - the position of the pawn.
+     * @param moves Set<Byte> - the set to add the to-positions to.
      * @since 1.1-SNAPSHOT
      */
     @Override
-    public void addPossibleMoves(Board board) {
-        if (belong.equals(Player.WHITE)) {
-            if (board.canMove(currentPosition, currentPosition + 8)) {
-                add(board, currentPosition + 8);
-
-                if (currentPosition < 16 && board.canMove(currentPosition, currentPosition + 16))
-                    add(board, currentPosition + 16);
-            }
-
-            addMoveIfAttackableOrEnpassant(board, currentPosition + 7);
-            addMoveIfAttackableOrEnpassant(board, currentPosition + 9);
-        } else {
-            if (board.canMove(currentPosition, currentPosition - 8)) {
-                add(board, currentPosition - 8);
-
-                if (currentPosition > 47 && board.canMove(currentPosition, currentPosition - 16))
-                    add(board, currentPosition - 16);
-            }
+    public void addPossibleMoves(Board board, byte position, Set<Byte> moves) {
+        int forward = belong.equals(Player.WHITE) ? 10 : -10;
+        int push = Mailbox.move(position, forward);
+        if (push >= 0 && board.getPieceOnBoard(push) == null) {
+            add(board, moves, position, push);
 
-            addMoveIfAttackableOrEnpassant(board, currentPosition - 7);
-            addMoveIfAttackableOrEnpassant(board, currentPosition - 9);
+            boolean startingRow = belong.equals(Player.WHITE) ? position < 16 : position > 47;
+            int doublePush = Mailbox.move(push, forward);
+            if (startingRow && board.getPieceOnBoard(doublePush) == null)
+                add(board, moves, position, doublePush);
         }
+
+        addMoveIfAttackableOrEnpassant(board, moves, position, forward - 1);
+        addMoveIfAttackableOrEnpassant(board, moves, position, forward + 1);
     }
 
 
     /**
-     * Adds a move to the given list, if the fromPosition can attack the toPosition or the toPosition is the enPassant position
+     * Adds a move to the given list, if the pawn can attack the target or the target is the enPassant position
      * @param board {@link Board} - the board
-     * @param attackPosition int - the attackPosition.
+     * @param moves Set<Byte> - the set to add the to-position to.
+     * @param position byte - the position of the pawn.
+     * @param offset int - the {@link Mailbox} offset to the attacked position.
      */
-    protected void addMoveIfAttackableOrEnpassant(Board board, int attackPosition) {
-        if (BoardUtils.staysOnBoard(currentPosition, attackPosition)) {
-            if (board.isEnemyPiece(belong, (byte) attackPosition))
-                add(board, attackPosition);
-            else if (attackPosition == board.getEnPassant()) {
-                add(board, new SpecialMove(name, currentPosition, (byte) attackPosition, (pieceSet) ->
-                        pieceSet.remove((byte) (attackPosition + (belong == Player.WHITE ? -8 : 8)))));
-            }
+    protected void addMoveIfAttackableOrEnpassant(Board board, Set<Byte> moves, byte position, int offset) {
+        int attackPosition = Mailbox.move(position, offset);
+        if (attackPosition >= 0) {
+            if (board.isEnemyPiece(belong, (byte) attackPosition) || attackPosition == board.getEnPassant())
+                add(board, moves, position, attackPosition);
         }
     }
 
+    /**
+     * Checks if the pawn attacks the target position. Pawns attack diagonally, even if the target is empty.
+     * @param board {@link Board} - the board.
+     * @param position byte - the position of the pawn.
+     * @param target byte - the attacked position.
+     * @return boolean - the pawn attacks the target
+     */
+    @Override
+    public boolean attacks(Board board, byte position, byte target) {
+        int forward = belong == Player.WHITE ? 10 : -10;
+        return target == Mailbox.move(position, forward - 1) || target == Mailbox.move(position, forward + 1);
+    }
 
     /**
-     * Copies the instance of this class.
-     *
-     * @return {@link Piece} - copies instance
+     * Returns the positions the moves of the pawn depend on: the pushes and both attacks.
+     * The en passant position is not part of them.
+     * @param board {@link Board} - the board.
+     * @param position byte - the position of the pawn.
+     * @return long - the positions as bits
      */
     @Override
-    public Piece clone() {
-        return new Pawn(belong, currentPosition);
+    public long getDependencies(Board board, byte position) {
+        if (belong == Player.WHITE)
+            return getTargetDependencies(position, WHITE_TARGETS) | (position < 16 ? 1L << (position + 16) : 0);
+        return getTargetDependencies(position, BLACK_TARGETS) | (position > 47 ? 1L << (position - 16) : 0);
+    }
+
+    /**
+     * Creates the move of the pawn. Attacking the en passant position also removes the enemy pawn.
+     * @param board {@link Board} - the board the move is made on.
+     * @param from byte - the position of the pawn.
+     * @param to byte - the position to move to.
+     * @return {@link Move} - the move.
+     */
+    @Override
+    public Move getMove(Board board, byte from, byte to) {
+        if (to == board.getEnPassant() && (to - from) % 8 != 0) {
+            byte enemyPawn = (byte) (to + (belong == Player.WHITE ? -8 : 8));
+            return new SpecialMove(name, from, to, (pieces) -> pieces[enemyPawn] = null);
+        }
+        return super.getMove(board, from, to);
     }
 
 }
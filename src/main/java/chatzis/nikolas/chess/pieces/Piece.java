@@ -3,91 +3,155 @@ package chatzis.nikolas.chess.pieces;
 import chatzis.nikolas.chess.game.Board;
 import chatzis.nikolas.chess.game.Player;
 import chatzis.nikolas.chess.move.Move;
-import chatzis.nikolas.chess.utils.BoardUtils;
+import chatzis.nikolas.chess.utils.Mailbox;
 
 import java.util.HashSet;
-import java.util.Objects;
 import java.util.Set;
 
 /**
- * Abstract piece class which holds necessary information about owner, name and current position.
+ * Abstract piece class which holds necessary information about owner and name.
+ * Pieces are immutable flyweights: there is exactly one instance per type and colour,
+ * which is shared by every {@link Board}. The position of a piece is stored in the board.
  * @author Nikolas Chatzis
  * @since 1.0-SNAPSHOT
  */
-public abstract class Piece implements Cloneable {
+public abstract class Piece {
+
+    private static final String PIECE_NAMES = "PNBRQK";
 
     protected final Player belong;
     protected final char name;
-    protected byte currentPosition;
-    private final Move[] possibleMoves;
-    private Set<Byte> toMoves;
+    private final byte index;
 
 
     /**
      * Instantiates the class.
      * @param player Player - the player the piece belongs to.
      * @param name char - the abbreviation of the piece
-     * @param currentPosition byte - the starting position of the piece
      */
-    public Piece(Player player, char name, byte currentPosition) {
+    protected Piece(Player player, char name) {
         this.belong = player;
-        this.name = player.equals(Player.BLACK) ? (name + "").toLowerCase().charAt(0) :  name;
-        this.currentPosition = currentPosition;
-        this.possibleMoves = new Move[64];
+        this.name = player.equals(Player.BLACK) ? Character.toLowerCase(name) : name;
+        this.index = (byte) (PIECE_NAMES.indexOf(name) + (player.equals(Player.BLACK) ? PIECE_NAMES.length() : 0));
     }
 
     /**
-     * Adds every possible move the piece can make to hashset.
+     * Adds every possible move the piece can make from the given position to the set.
      * @param board {@link Board} - the board.
+     * @param position byte - the position of the piece on the board.
+     * @param moves Set<Byte> - the set to add the to-positions to.
      * @since 1.1-SNAPSHOT
      */
-    protected abstract void addPossibleMoves(Board board);
+    protected abstract void addPossibleMoves(Board board, byte position, Set<Byte> moves);
 
-    protected void add(Board board, Move move) {
-        if (board.kingIsNotInCheckAfterMove(move)) {
-            possibleMoves[move.to()] = move;
-            toMoves.add(move.to());
-        }
+    protected void add(Board board, Set<Byte> moves, Move move) {
+        if (board.kingIsNotInCheckAfterMove(move))
+            moves.add(move.to());
     }
 
-    protected void add(Board board, int to) {
-        add(board, (byte) to);
-    }
-
-    protected void add(Board board, byte to) {
-        if (board.kingIsNotInCheckAfterMove(new Move(name, currentPosition, to))) {
-            toMoves.add(to);
-        }
+    protected void add(Board board, Set<Byte> moves, byte from, int to) {
+        add(board, moves, getMove(board, from, (byte) to));
     }
 
-    public Move getMove(byte toPos) {
-        Move move = possibleMoves[toPos];
-        return move != null ? move : new Move(name, currentPosition, toPos);
+    /**
+     * Creates the move of this piece from the given position to the given position.
+     * Pieces with special moves (castling, en passant) override this method.
+     * @param board {@link Board} - the board the move is made on.
+     * @param from byte - the position of the piece.
+     * @param to byte - the position to move to.
+     * @return {@link Move} - the move.
+     */
+    public Move getMove(Board board, byte from, byte to) {
+        return new Move(name, from, to);
     }
 
     /**
      * Get all the legal move positions of the piece.
      * @param board Board - the board to get the positions.
-     * @return Set<Move> - all the to-positions
+     * @param position byte - the position of the piece on the board.
+     * @return Set<Byte> - all the to-positions
+     */
+    public Set<Byte> getMoves(Board board, byte position) {
+        Set<Byte> moves = new HashSet<>();
+        addPossibleMoves(board, position, moves);
+        return moves;
+    }
+
+    /**
+     * Checks if the piece attacks the target position, e.g. to find out if a king would move through check.
+     * @param board Board - the board, on which the attacked player is to move.
+     * @param position byte - the position of the piece on the board.
+     * @param target byte - the attacked position.
+     * @return boolean - the piece attacks the target
+     * @since 1.1-SNAPSHOT
+     */
+    public boolean attacks(Board board, byte position, byte target) {
+        return getMoves(board, position).contains(target);
+    }
+
+    /**
+     * Returns the positions the moves of the piece depend on, i.e. every position it moves through or to.
+     * As long as none of these positions change and the own king is not checked, the piece keeps its moves,
+     * apart from pins, which the board tracks itself. The king depends on every position.
+     * @param board Board - the board.
+     * @param position byte - the position of the piece on the board.
+     * @return long - the positions as bits, bit 0 is a1
+     * @since 1.1-SNAPSHOT
+     */
+    public long getDependencies(Board board, byte position) {
+        return -1L;
+    }
+
+    /**
+     * Returns the target positions of the offsets, which stay on the board.
+     * @param position byte - the position of the piece.
+     * @param offsets int[] - the {@link Mailbox} offsets to the targets.
+     * @return long - the positions as bits
+     */
+    protected static long getTargetDependencies(byte position, int[] offsets) {
+        long dependencies = 0;
+        for (int offset : offsets) {
+            int target = Mailbox.move(position, offset);
+            if (target >= 0)
+                dependencies |= 1L << target;
+        }
+        return dependencies;
+    }
+
+    /**
+     * Returns the positions of a repeating pattern till the first blocking piece, including the blocking piece.
+     * @param board {@link Board} - the board
+     * @param position byte - the position of the piece.
+     * @param offsets int[] - the {@link Mailbox} offsets of the directions.
+     * @return long - the positions as bits
      */
-    public Set<Byte> getMoves(Board board) {
-        if (toMoves == null) {
-            toMoves = new HashSet<>();
-            addPossibleMoves(board);
+    protected long getRepeatingDependencies(Board board, byte position, int[] offsets) {
+        long dependencies = 0;
+        for (int offset : offsets) {
+            int movingPosition = Mailbox.move(position, offset);
+            while (movingPosition >= 0) {
+                dependencies |= 1L << movingPosition;
+                if (board.getPieceOnBoard(movingPosition) != null)
+                    break;
+                movingPosition = Mailbox.move(movingPosition, offset);
+            }
         }
-        return toMoves;
+        return dependencies;
     }
 
     /**
-     * Checks if given toPosition is movable or stackable then adds to the moveList.
+     * Checks if the target of the offset is movable or attackable then adds it to the moveList.
      * @param board {@link Board} - the board to add.
-     * @param toPosition byte - position to check and move to.
+     * @param moves Set<Byte> - the set to add the to-position to.
+     * @param position byte - the position of the piece.
+     * @param offset int - the {@link Mailbox} offset to the target.
      */
-    protected void addMoveWhenMoveableOrAttackable(Board board, int toPosition) {
-        if (BoardUtils.staysOnBoard(currentPosition, toPosition)) {
+    protected void addMoveWhenMoveableOrAttackable(Board board, Set<Byte> moves, byte position, int offset) {
+        int toPosition = Mailbox.move(position, offset);
+        if (toPosition >= 0) {
             Piece pieceOnBoard = board.getPieceOnBoard(toPosition);
             if (pieceOnBoard == null || pieceOnBoard.isNotSamePlayer(belong))
-                add(board, toPosition); // checks if owned king would be under attack
+                add(board, moves, position, toPosition); // checks if owned king would be under attack
         }
     }
 
@@ -95,23 +159,20 @@ public abstract class Piece implements Cloneable {
     /**
      * Gets a repeating pattern from the current position till the piece cannot move further.
      * @param board {@link Board} - the board
-     * @param pattern int[] - the moving pattern.
+     * @param moves Set<Byte> - the set to add the to-positions to.
+     * @param position byte - the position of the piece.
+     * @param offsets int[] - the {@link Mailbox} offsets of the directions.
      */
-    protected void addRepeatingMove(Board board, int[] pattern) {
-        for (int i : pattern) {
-            for (byte m : new byte[]{1, -1}) {
-                i *= m;
-                byte copiedPosition = currentPosition;
-                byte movingPosition = (byte) (currentPosition + i);
-                while (board.canMove(copiedPosition, movingPosition)) {
-                    add(board, movingPosition);
-                    copiedPosition = movingPosition;
-                    movingPosition += i;
-                }
-
-                if (BoardUtils.staysOnBoard(copiedPosition, movingPosition) && board.isEnemyPiece(belong, movingPosition))
-                    add(board, movingPosition);
+    protected void addRepeatingMove(Board board, Set<Byte> moves, byte position, int[] offsets) {
+        for (int offset : offsets) {
+            int movingPosition = Mailbox.move(position, offset);
+            while (movingPosition >= 0 && board.getPieceOnBoard(movingPosition) == null) {
+                add(board, moves, position, movingPosition);
+                movingPosition = Mailbox.move(movingPosition, offset);
             }
+
+            if (movingPosition >= 0 && board.isEnemyPiece(belong, (byte) movingPosition))
+                add(board, moves, position, movingPosition);
         }
     }
 
@@ -125,11 +186,7 @@ public abstract class Piece implements Cloneable {
 
     @Override
     public String toString() {
-        return this.name + "(" + currentPosition + ")";
-    }
-
-    public void setCurrentPosition(byte currentPosition) {
-        this.currentPosition = currentPosition;
+        return String.valueOf(name);
     }
 
     public char getName() {
@@ -141,22 +198,11 @@ public abstract class Piece implements Cloneable {
     }
 
     /**
-     * Copies the instance of this class.
-     * @return {@link Piece} - copied instance
+     * Returns the unique index of the piece: white P, N, B, R, Q, K are 0 - 5, black are 6 - 11.
+     * @return byte - the index of the piece
      */
-    public abstract Piece clone();
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Piece piece = (Piece) o;
-        return name == piece.name && currentPosition == piece.currentPosition && Objects.equals(belong, piece.belong);
-    }
-
-    @Override
-    public int hashCode() {
-        return Objects.hash(belong, name, currentPosition);
+    public byte getIndex() {
+        return index;
     }
 
 }
@@ -2,35 +2,44 @@ package chatzis.nikolas.chess.pieces;
 
 import chatzis.nikolas.chess.game.Board;
 import chatzis.nikolas.chess.game.Player;
+import chatzis.nikolas.chess.utils.Mailbox;
+
+import java.util.Set;
 
 public class Queen extends Piece {
 
+    public static final Queen WHITE = new Queen(Player.WHITE);
+    public static final Queen BLACK = new Queen(Player.BLACK);
+
     /**
      * Instantiates the class.
      *
      * @param player Player - the player the piece belongs to.
      */
-    public Queen(Player player, byte position) {
-        super(player, 'Q', position);
+    private Queen(Player player) {
+        super(player, 'Q');
     }
 
     /**
      * Adds every possible move the piece can make to hashset.
      * @param board {@link Board} - the board.
+     * @param position byte - the position of the queen.
+     * @param moves Set<Byte> - the set to add the to-positions to.
      * @since 1.1-SNAPSHOT
      */
     @Override
-    public void addPossibleMoves(Board board) {
-        addRepeatingMove(board, new int[]{1, 7, 8, 9});
+    public void addPossibleMoves(Board board, byte position, Set<Byte> moves) {
+        addRepeatingMove(board, moves, position, Mailbox.QUEEN_OFFSETS);
     }
 
     /**
-     * Copies the instance of this class.
-     *
-     * @return {@link Piece} - copies instance
+     * Returns the positions the moves of the queen depend on.
+     * @param board {@link Board} - the board.
+     * @param position byte - the position of the queen.
+     * @return long - the positions as bits
      */
     @Override
-    public Piece clone() {
-        return new Queen(belong, currentPosition);
+    public long getDependencies(Board board, byte position) {
+        return getRepeatingDependencies(board, position, Mailbox.QUEEN_OFFSETS);
     }
 }
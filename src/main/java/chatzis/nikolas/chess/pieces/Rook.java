@@ -2,36 +2,44 @@ package chatzis.nikolas.chess.pieces;
 
 import chatzis.nikolas.chess.game.Board;
 import chatzis.nikolas.chess.game.Player;
+import chatzis.nikolas.chess.utils.Mailbox;
+
+import java.util.Set;
 
 public class Rook extends Piece {
 
+    public static final Rook WHITE = new Rook(Player.WHITE);
+    public static final Rook BLACK = new Rook(Player.BLACK);
+
     /**
      * Instantiates the class.
      *
      * @param player Player - the player the piece belongs to.
-     * @param position byte - the piece position
      */
-    public Rook(Player player, byte position) {
-        super (player, 'R', position);
+    private Rook(Player player) {
+        super (player, 'R');
     }
 
     /**
      * Adds every possible move the piece can make to hashset.
      * @param board {@link Board} - the board.
+     * @param position byte - the position of the rook.
+     * @param moves Set<Byte> - the set to add the to-positions to.
      * @since 1.1-SNAPSHOT
      */
     @Override
-    public void addPossibleMoves(Board board) {
-        addRepeatingMove(board, new int[]{1, 8});
+    public void addPossibleMoves(Board board, byte position, Set<Byte> moves) {
+        addRepeatingMove(board, moves, position, Mailbox.ROOK_OFFSETS);
     }
 
     /**
-     * Copies the instance of this class.
-     *
-     * @return {@link Piece} - copies instance
+     * Returns the positions the moves of the rook depend on.
+     * @param board {@link Board} - the board.
+     * @param position byte - the position of the rook.
+     * @return long - the positions as bits
      */
     @Override
-    public Piece clone() {
-        return new Rook(belong, currentPosition);
+    public long getDependencies(Board board, byte position) {
+        return getRepeatingDependencies(board, position, Mailbox.ROOK_OFFSETS);
     }
 }
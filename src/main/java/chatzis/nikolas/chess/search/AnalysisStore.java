@@ -0,0 +1,493 @@
+package chatzis.nikolas.chess.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistent store of analysed positions, keyed by {@link chatzis.nikolas.chess.game.Board#getHash()}, which holds
+ * the best move, the score, the depth and the nodes of a search. The keys are stable across restarts, because the
+ * Zobrist numbers have a fixed seed.
+ * <p>
+ * The store is a directory with two memory-mapped files of one generation:
+ * <ul>
+ *     <li>analysis-n.table - an open addressing hash table, which is never changed after it was written.
+ *     Lookups probe the mapped file directly, so opening the store only maps it instead of reading entries.</li>
+ *     <li>analysis-n.journal - an append-only segment of the results stored since the table was written.
+ *     Every record has a checksum, a record torn by a crash is discarded when the store is opened again.
+ *     Only the journal is read at startup, to index its keys.</li>
+ * </ul>
+ * When the journal is full, the table and the journal are compacted into the table of the next generation: it is
+ * written to a temporary file, forced to disk and atomically renamed, before the files of the old generation are
+ * deleted. A crash at any point leaves either the old or the new generation complete.
+ * <p>
+ * A result only replaces the stored result of a position, if it is at least as deep.
+ * Reads run concurrently, writes and compaction exclusively.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class AnalysisStore implements AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_RECORDS = 1 << 16;
+
+    private static final int TABLE_MAGIC = 0x414E5442; // "ANTB"
+    private static final int JOURNAL_MAGIC = 0x414E4A4C; // "ANJL"
+    private static final int VERSION = 1;
+    private static final int HEADER = 32; // magic, version, capacity or segment records, count, generation
+    private static final int RECORD = 32; // key, nodes, score, move, depth, reserved, checksum
+    private static final int CHECKSUM = 28;
+    private static final int MIN_CAPACITY = 1 << 10;
+    private static final int MAX_CAPACITY = 1 << 25; // one mapped buffer holds at most 2GB
+    private static final String PREFIX = "analysis-";
+    private static final String TABLE = ".table";
+    private static final String JOURNAL = ".journal";
+    private static final String TEMPORARY = ".tmp";
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final byte[] record = new byte[RECORD];
+    private final CRC32C crc = new CRC32C();
+
+    private long generation;
+    private FileChannel tableChannel;
+    private MappedByteBuffer table;
+    private int tableMask;
+    private int tableCount;
+    private FileChannel journalChannel;
+    private MappedByteBuffer journal;
+    private int journalCount;
+    private long[] indexKeys; // open addressing index of the journal, 0 is empty
+    private int[] indexRecords; // [slot] the latest record of the key
+    private int size;
+    private boolean closed;
+
+    /**
+     * Opens the store with {@link #DEFAULT_SEGMENT_RECORDS} records per journal.
+     * @param directory Path - the directory of the store, created if missing
+     * @throws IOException - if the files cannot be read, written or are corrupt
+     */
+    public AnalysisStore(Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    /**
+     * Opens the store. The newest complete generation is mapped, the records of its journal are indexed
+     * and the files of older generations and unfinished compactions are deleted.
+     * @param directory Path - the directory of the store, created if missing
+     * @param segmentRecords int - the records of one journal, before it is compacted into the table
+     * @throws IOException - if the files cannot be read, written or are corrupt
+     */
+    public AnalysisStore(Path directory, int segmentRecords) throws IOException {
+        if (segmentRecords < 1 || segmentRecords > MAX_CAPACITY / 2)
+            throw new IllegalArgumentException("Segment records must be between 1 and " + MAX_CAPACITY / 2);
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        Files.createDirectories(directory);
+
+        long newest = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMPORARY))
+                    Files.delete(file); // compaction did not finish, the old generation is still complete
+                else if (name.endsWith(TABLE))
+                    newest = Math.max(newest, parseGeneration(name, TABLE));
+            }
+        }
+        if (newest < 0) {
+            newest = 0;
+            writeTable(0, new long[0], new int[0], 0);
+        }
+        generation = newest;
+        mapTable();
+        mapJournal();
+        deleteOlderGenerations();
+    }
+
+    /**
+     * Looks up the position.
+     * @param key long - the position key
+     * @return Entry - the stored result or null
+     */
+    public Entry get(long key) {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            int offset = find(key);
+            if (offset == -1)
+                return null;
+            ByteBuffer buffer = offset >= 0 ? journal : table;
+            int position = offset >= 0 ? offset : -offset - 2;
+            return new Entry(buffer.getShort(position + 20), buffer.getInt(position + 16),
+                    buffer.getShort(position + 22), buffer.getLong(position + 8));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores the result of a search, if the position is not stored with a deeper result yet.
+     * A full journal is compacted first.
+     * @param key long - the position key, not 0
+     * @param move short - the packed best move or 0
+     * @param score int - the score from the view of the player to move
+     * @param depth int - the searched depth
+     * @param nodes long - the searched nodes
+     * @return boolean - the result was stored
+     * @throws IOException - if the compaction fails
+     */
+    public boolean put(long key, short move, int score, int depth, long nodes) throws IOException {
+        if (key == 0)
+            throw new IllegalArgumentException("Key 0 marks empty slots");
+        if (depth < 0 || depth > Short.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid depth " + depth);
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            if (journalCount >= segmentRecords)
+                compact();
+            int offset = find(key);
+            if (offset != -1) {
+                ByteBuffer buffer = offset >= 0 ? journal : table;
+                if (depth < buffer.getShort((offset >= 0 ? offset : -offset - 2) + 22))
+                    return false;
+            } else {
+                size++;
+            }
+
+            ByteBuffer bytes = ByteBuffer.wrap(record);
+            bytes.putLong(0, key).putLong(8, nodes).putInt(16, score).putShort(20, move).putShort(22, (short) depth).putInt(24, 0);
+            crc.reset();
+            crc.update(record, 0, CHECKSUM);
+            bytes.putInt(CHECKSUM, (int) crc.getValue());
+            journal.put(HEADER + journalCount * RECORD, record);
+            index(key, journalCount++);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Merges the table and the journal into the table of the next generation and starts an empty journal.
+     * @throws IOException - if the files cannot be written, the old generation is kept then
+     */
+    public void compact() throws IOException {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            long[] keys = new long[journalCount];
+            int[] records = new int[journalCount];
+            int unique = 0;
+            for (int slot = 0; slot < indexKeys.length; slot++) {
+                if (indexKeys[slot] != 0) {
+                    keys[unique] = indexKeys[slot];
+                    records[unique++] = indexRecords[slot];
+                }
+            }
+
+            long next = generation + 1;
+            writeTable(next, keys, records, unique);
+            Path oldTable = file(generation, TABLE);
+            Path oldJournal = file(generation, JOURNAL);
+            closeChannels();
+            generation = next;
+            mapTable();
+            mapJournal();
+            Files.deleteIfExists(oldTable);
+            Files.deleteIfExists(oldJournal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forces the journal to the disk, so the stored results survive a crash of the operating system.
+     * A crash of the process alone does not lose them.
+     */
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            journal.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the amount of stored positions.
+     * @return int - the positions
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the generation of the table, which is increased by every compaction.
+     * @return long - the generation
+     */
+    public long getGeneration() {
+        lock.readLock().lock();
+        try {
+            return generation;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forces the journal to the disk and closes the files.
+     * @throws IOException - if the files cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed)
+                return;
+            journal.force();
+            closeChannels();
+            closed = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the latest record of the key.
+     * @return int - the offset in the journal, -offset - 2 for an offset in the table or -1 if the key is not stored
+     */
+    private int find(long key) {
+        int mask = indexKeys.length - 1;
+        for (int slot = slot(key, mask); indexKeys[slot] != 0; slot = (slot + 1) & mask) {
+            if (indexKeys[slot] == key)
+                return HEADER + indexRecords[slot] * RECORD;
+        }
+        int offset = findInTable(table, tableMask, key);
+        return offset < 0 ? -1 : -offset - 2;
+    }
+
+    /**
+     * Probes the table for the key.
+     * @return int - the offset of the key or -(offset of the empty slot) - 1
+     */
+    private static int findInTable(ByteBuffer table, int mask, long key) {
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            int offset = HEADER + slot * RECORD;
+            long stored = table.getLong(offset);
+            if (stored == key)
+                return offset;
+            if (stored == 0)
+                return -offset - 1;
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        return (int) (key ^ key >>> 32) & mask;
+    }
+
+    private void index(long key, int recordIndex) {
+        int mask = indexKeys.length - 1;
+        int slot = slot(key, mask);
+        while (indexKeys[slot] != 0 && indexKeys[slot] != key)
+            slot = (slot + 1) & mask;
+        indexKeys[slot] = key;
+        indexRecords[slot] = recordIndex;
+    }
+
+    /**
+     * Writes the entries of the current table and the given journal records into the table of the generation.
+     * The journal records replace the table entries of the same key.
+     */
+    private void writeTable(long newGeneration, long[] keys, int[] records, int count) throws IOException {
+        long total = (long) tableCount + count;
+        int capacity = MIN_CAPACITY;
+        while (capacity < total * 2) {
+            capacity <<= 1;
+            if (capacity > MAX_CAPACITY)
+                throw new IOException("Store of " + total + " positions exceeds one table");
+        }
+
+        Path temporary = file(newGeneration, TABLE + TEMPORARY);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer target = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) capacity * RECORD);
+            int mask = capacity - 1;
+            int written = 0;
+            byte[] copy = new byte[RECORD];
+            for (int i = 0; i < count; i++) {
+                journal.get(HEADER + records[i] * RECORD, copy);
+                target.put(-findInTable(target, mask, keys[i]) - 1, copy);
+                written++;
+            }
+            if (table != null) {
+                for (int offset = HEADER; offset < table.capacity(); offset += RECORD) {
+                    long key = table.getLong(offset);
+                    if (key == 0)
+                        continue;
+                    int free = findInTable(target, mask, key);
+                    if (free < 0) { // not replaced by the journal
+                        table.get(offset, copy);
+                        target.put(-free - 1, copy);
+                        written++;
+                    }
+                }
+            }
+            target.putInt(0, TABLE_MAGIC).putInt(4, VERSION).putInt(8, capacity).putInt(12, written).putLong(16, newGeneration);
+            target.force();
+        }
+        Files.move(temporary, file(newGeneration, TABLE), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void mapTable() throws IOException {
+        Path file = file(generation, TABLE);
+        tableChannel = FileChannel.open(file, StandardOpenOption.READ);
+        long fileSize = tableChannel.size();
+        if (fileSize < HEADER)
+            throw new IOException("Corrupt table " + file);
+        table = tableChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        int capacity = table.getInt(8);
+        if (table.getInt(0) != TABLE_MAGIC || table.getInt(4) != VERSION || Integer.bitCount(capacity) != 1
+                || capacity > MAX_CAPACITY || fileSize != HEADER + (long) capacity * RECORD)
+            throw new IOException("Corrupt table " + file);
+        table.load(); // warms the page cache, so the first lookups do not wait for the disk
+        tableMask = capacity - 1;
+        tableCount = table.getInt(12);
+        size = tableCount;
+    }
+
+    /**
+     * Maps the journal of the generation and indexes its valid records. A torn record and everything after it are cleared.
+     */
+    private void mapJournal() throws IOException {
+        Path file = file(generation, JOURNAL);
+        journalChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long length = Math.max(journalChannel.size(), HEADER + (long) segmentRecords * RECORD);
+        journal = journalChannel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        int magic = journal.getInt(0);
+        if (magic == 0) {
+            journal.putInt(0, JOURNAL_MAGIC).putInt(4, VERSION).putInt(8, segmentRecords).putLong(16, generation);
+        } else if (magic != JOURNAL_MAGIC || journal.getInt(4) != VERSION || journal.getLong(16) != generation) {
+            throw new IOException("Corrupt journal " + file);
+        }
+
+        // a journal written with more records per segment is read completely and compacted by the next put
+        int records = (int) ((length - HEADER) / RECORD);
+        int capacity = Integer.highestOneBit(records * 2 - 1) << 1;
+        indexKeys = new long[capacity];
+        indexRecords = new int[capacity];
+        journalCount = 0;
+        byte[] copy = new byte[RECORD];
+        while (journalCount < records) {
+            int offset = HEADER + journalCount * RECORD;
+            long key = journal.getLong(offset);
+            if (key == 0)
+                break;
+            journal.get(offset, copy);
+            crc.reset();
+            crc.update(copy, 0, CHECKSUM);
+            if ((int) crc.getValue() != journal.getInt(offset + CHECKSUM)) {
+                // torn by a crash, nothing after it was completely appended
+                Arrays.fill(copy, (byte) 0);
+                for (int i = journalCount; i < records && journal.getLong(HEADER + i * RECORD) != 0; i++)
+                    journal.put(HEADER + i * RECORD, copy);
+                break;
+            }
+            if (find(key) == -1)
+                size++;
+            index(key, journalCount++);
+        }
+    }
+
+    private void deleteOlderGenerations() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String suffix = name.endsWith(TABLE) ? TABLE : name.endsWith(JOURNAL) ? JOURNAL : null;
+                if (suffix != null && parseGeneration(name, suffix) < generation)
+                    Files.delete(file);
+            }
+        }
+    }
+
+    private void closeChannels() throws IOException {
+        tableChannel.close();
+        journalChannel.close();
+    }
+
+    private void ensureOpen() {
+        if (closed)
+            throw new IllegalStateException("Store is closed");
+    }
+
+    private Path file(long fileGeneration, String suffix) {
+        return directory.resolve(PREFIX + fileGeneration + suffix);
+    }
+
+    private static long parseGeneration(String name, String suffix) {
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    /**
+     * A stored result, read from the mapped files.
+     */
+    public static final class Entry {
+
+        private final short move;
+        private final int score;
+        private final int depth;
+        private final long nodes;
+
+        private Entry(short move, int score, int depth, long nodes) {
+            this.move = move;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+        }
+
+        /**
+         * Returns the best move.
+         * @return short - the packed move or 0 if the position has no legal move
+         */
+        public short getMove() {
+            return move;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public boolean isMate() {
+            return Math.abs(score) > Search.MATE - Search.MAX_PLY;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package chatzis.nikolas.chess.search;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.move.Move;
+import chatzis.nikolas.chess.utils.VectorSupport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Evaluates a {@link PositionBatch} at once, with the same result as {@link PieceSquareEvaluator#evaluate}.
+ * {@link #create(PieceSquareEvaluator)} uses the vector api, if the module jdk.incubator.vector is added
+ * (--add-modules jdk.incubator.vector), else scalar loops.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public abstract class BatchEvaluator {
+
+    protected final int[] table; // [piece index * 64 + position], one more zero for empty slots
+
+    /**
+     * Instantiates the evaluator.
+     * @param evaluator {@link PieceSquareEvaluator} - the evaluator to copy the values from
+     */
+    protected BatchEvaluator(PieceSquareEvaluator evaluator) {
+        this.table = new int[PositionBatch.EMPTY + 1];
+        for (int piece = 0; piece < 12; piece++) {
+            for (int position = 0; position < 64; position++)
+                table[piece * 64 + position] = evaluator.getValue(piece, position);
+        }
+    }
+
+    /**
+     * Creates the fastest available evaluator.
+     * @param evaluator {@link PieceSquareEvaluator} - the evaluator to copy the values from
+     * @return BatchEvaluator - the vector evaluator if available, else the scalar one
+     */
+    public static BatchEvaluator create(PieceSquareEvaluator evaluator) {
+        return VectorSupport.loadVectorImplementation("chatzis.nikolas.chess.search.VectorBatchEvaluator",
+                () -> new ScalarBatchEvaluator(evaluator), evaluator);
+    }
+
+    /**
+     * Evaluates every position of the batch from the view of the player to move.
+     * @param batch {@link PositionBatch} - the positions
+     * @param scores int[] - receives the scores, at least as long as the batch
+     */
+    public abstract void evaluate(PositionBatch batch, int[] scores);
+
+    /**
+     * Evaluates the positions from the start index on without vectors.
+     * @param batch {@link PositionBatch} - the positions
+     * @param scores int[] - receives the scores
+     * @param start int - the first position
+     */
+    protected void evaluateScalar(PositionBatch batch, int[] scores, int start) {
+        int[][] features = batch.getFeatures();
+        int[] signs = batch.getSigns();
+        int slots = batch.getUsedSlots();
+        for (int i = start; i < batch.size(); i++) {
+            int score = 0;
+            for (int slot = 0; slot < slots; slot++)
+                score += table[features[slot][i]];
+            scores[i] = score * signs[i];
+        }
+    }
+
+    /**
+     * Measures the batch evaluation against evaluating every board on its own, on positions of random games.
+     * Arguments: [positions (default 1000)] [rounds (default 1000)]
+     * @param args String[] - the arguments
+     */
+    public static void main(String[] args) {
+        int positions = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        PieceSquareEvaluator evaluator = new PieceSquareEvaluator();
+        PositionBatch batch = new PositionBatch(positions);
+        List<Board> boards = new ArrayList<>();
+        Random random = new Random(7);
+        while (boards.size() < batch.capacity()) {
+            Board board = Board.createNewBoard();
+            for (int ply = 0; ply < 60 && board.getLegalMoves().length > 0 && boards.size() < batch.capacity(); ply++) {
+                short[] moves = board.getLegalMoves();
+                short move = moves[random.nextInt(moves.length)];
+                board = board.makeMove(board.getMove(Move.packedFrom(move), Move.packedTo(move)));
+                boards.add(board);
+                batch.add(board);
+            }
+        }
+
+        int[] scores = new int[batch.size()];
+        BatchEvaluator batchEvaluator = create(evaluator);
+        for (int round = 0; round < 3; round++) { // the first rounds warm up the compiler
+            long time = System.nanoTime();
+            for (int i = 0; i < rounds; i++)
+                batchEvaluator.evaluate(batch, scores);
+            long batched = System.nanoTime() - time;
+            time = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                for (int j = 0; j < boards.size(); j++)
+                    scores[j] = evaluator.evaluate(boards.get(j));
+            }
+            long single = System.nanoTime() - time;
+            System.out.printf("%s: %dms, per board: %dms, %.1fx%n", batchEvaluator.getClass().getSimpleName(),
+                    batched / 1_000_000, single / 1_000_000, (double) single / Math.max(1, batched));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package chatzis.nikolas.chess.search;
+
+import chatzis.nikolas.chess.game.Board;
+
+/**
+ * Evaluates a position without searching.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public interface Evaluator {
+
+    /**
+     * Evaluates the board.
+     * @param board {@link Board} - the board to evaluate
+     * @return int - the score in centipawns from the view of the current player
+     */
+    int evaluate(Board board);
+}
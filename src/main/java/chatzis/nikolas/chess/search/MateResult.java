@@ -0,0 +1,73 @@
+package chatzis.nikolas.chess.search;
+
+import chatzis.nikolas.chess.move.Move;
+
+import java.util.List;
+
+/**
+ * Result of a {@link MateSolver}: a proven mate with its line, a disproven mate or unknown if the budget ran out.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class MateResult {
+
+    /**
+     * Outcome of the proof.
+     */
+    public enum Status {
+        PROVEN,
+        DISPROVEN,
+        UNKNOWN
+    }
+
+    private final Status status;
+    private final int mateIn;
+    private final List<Move> line;
+    private final long nodes;
+    private final long millis;
+
+    /**
+     * Instantiates the result.
+     * @param status Status - the outcome
+     * @param mateIn int - the moves of the attacker till mate, 0 if not proven
+     * @param line List<Move> - the mating line with the best defence, empty if not proven
+     * @param nodes long - the searched nodes
+     * @param millis long - the time of the proof
+     */
+    public MateResult(Status status, int mateIn, List<Move> line, long nodes, long millis) {
+        this.status = status;
+        this.mateIn = mateIn;
+        this.line = List.copyOf(line);
+        this.nodes = nodes;
+        this.millis = millis;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isProven() {
+        return status == Status.PROVEN;
+    }
+
+    public int getMateIn() {
+        return mateIn;
+    }
+
+    public List<Move> getLine() {
+        return line;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    @Override
+    public String toString() {
+        return status + (isProven() ? " mate in " + mateIn + " " + line : "") + " nodes " + nodes + " time " + millis + "ms";
+    }
+}
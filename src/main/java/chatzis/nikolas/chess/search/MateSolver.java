@@ -0,0 +1,332 @@
+package chatzis.nikolas.chess.search;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.game.Player;
+import chatzis.nikolas.chess.move.Move;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Proves or disproves forced mates with a depth-first proof-number search (df-pn).
+ * The player to move is the attacker, a node is a board together with the remaining moves of the attacker,
+ * so the search cannot run into cycles. Mate in 1, 2, ... is tried till the limit, so the first proof is the
+ * shortest mate. The moves of the root are proven in parallel, all threads share one {@link ProofTable}.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class MateSolver implements AutoCloseable {
+
+    static final int INFINITY = 1 << 29;
+    private static final int MAX_MOVES = 256; // more than the legal moves of any position
+
+    private final ProofTable table;
+    private final ExecutorService executor;
+
+    private final AtomicLong nodes = new AtomicLong();
+    private final AtomicBoolean aborted = new AtomicBoolean();
+    private long nodeLimit;
+    private long deadline;
+    private boolean whiteAttacks;
+
+    /**
+     * Instantiates the solver.
+     * @param megabytes int - the size of the proof table
+     * @param threads int - the threads proving the root moves
+     * @throws IllegalArgumentException - if the table is smaller than 1MB
+     */
+    public MateSolver(int megabytes, int threads) {
+        this.table = new ProofTable(megabytes);
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Tries to prove that the player to move mates within the moves.
+     * One solver can only solve one board at a time.
+     * @param board {@link Board} - the board
+     * @param maxMoves int - the maximal moves of the attacker, e.g. 2 for mate in 2
+     * @param nodeLimit long - the maximal nodes (0 for unlimited)
+     * @param millis long - the maximal time (0 for unlimited)
+     * @return {@link MateResult} - the shortest mate, a disproof or unknown if a limit was reached
+     */
+    public synchronized MateResult solve(Board board, int maxMoves, long nodeLimit, long millis) {
+        long start = System.currentTimeMillis();
+        this.nodes.set(0);
+        this.aborted.set(false);
+        this.nodeLimit = nodeLimit > 0 ? nodeLimit : Long.MAX_VALUE;
+        this.deadline = millis > 0 ? start + millis : Long.MAX_VALUE;
+        this.whiteAttacks = board.getCurrentPlayer() == Player.WHITE;
+
+        MateResult.Status status = MateResult.Status.DISPROVEN;
+        for (int moves = 1; moves <= maxMoves; moves++) {
+            status = solveRoot(board, moves);
+            if (status == MateResult.Status.PROVEN) {
+                List<Move> line = new ArrayList<>();
+                if (!collectLine(board, moves, true, line))
+                    status = MateResult.Status.UNKNOWN; // the budget ran out while reading the line
+                return new MateResult(status, moves, status == MateResult.Status.PROVEN ? line : List.of(),
+                        nodes.get(), System.currentTimeMillis() - start);
+            }
+            if (status == MateResult.Status.UNKNOWN)
+                break;
+        }
+        return new MateResult(status, 0, List.of(), nodes.get(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Proves the moves of the root in parallel, till one is proven or all are disproven.
+     * @param board Board - the root
+     * @param moves int - the moves of the attacker
+     * @return MateResult.Status - the status of the root
+     */
+    private MateResult.Status solveRoot(Board board, int moves) {
+        short[] rootMoves = board.getLegalMoves();
+        AtomicBoolean proven = new AtomicBoolean();
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (short rootMove : rootMoves) {
+            Board child = board.makeMove(board.getMove(Move.packedFrom(rootMove), Move.packedTo(rootMove)));
+            results.add(executor.submit(() -> {
+                if (proven.get())
+                    return null;
+                long data = new Worker(proven).prove(child, moves - 1, false);
+                boolean childProven = data != 0 && ProofTable.proofNumber(data) == 0;
+                if (childProven)
+                    proven.set(true);
+                return data == 0 ? null : childProven;
+            }));
+        }
+
+        boolean unknown = false;
+        try {
+            for (Future<Boolean> result : results) {
+                Boolean childProven = result.get();
+                if (Boolean.TRUE.equals(childProven))
+                    return MateResult.Status.PROVEN;
+                unknown |= childProven == null;
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            aborted.set(true);
+            return MateResult.Status.UNKNOWN;
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException("Proof failed", exception.getCause());
+        }
+        return proven.get() ? MateResult.Status.PROVEN : unknown ? MateResult.Status.UNKNOWN : MateResult.Status.DISPROVEN;
+    }
+
+    /**
+     * Reads the mating line of a proven node: the attacker plays the fastest mate, the defender the longest defence.
+     * @param board Board - the node
+     * @param moves int - the remaining moves of the attacker
+     * @param attacker boolean - the attacker is to move
+     * @param line List<Move> - receives the moves
+     * @return boolean - the line is complete, false if the budget ran out
+     */
+    private boolean collectLine(Board board, int moves, boolean attacker, List<Move> line) {
+        short[] legalMoves = board.getLegalMoves();
+        if (legalMoves.length == 0)
+            return true; // mate
+        Worker worker = new Worker(new AtomicBoolean());
+
+        Move bestMove = null;
+        int bestMoves = attacker ? Integer.MAX_VALUE : -1;
+        for (short legalMove : legalMoves) {
+            Move move = board.getMove(Move.packedFrom(legalMove), Move.packedTo(legalMove));
+            Board child = board.makeMove(move);
+            // the fewest remaining attacker moves, which still prove the child
+            for (int childMoves = 0; childMoves <= (attacker ? moves - 1 : moves); childMoves++) {
+                long data = worker.prove(child, childMoves, !attacker);
+                if (data == 0)
+                    return false;
+                if (ProofTable.proofNumber(data) == 0) {
+                    if (attacker ? childMoves < bestMoves : childMoves > bestMoves) {
+                        bestMoves = childMoves;
+                        bestMove = move;
+                    }
+                    break;
+                }
+            }
+        }
+        if (bestMove == null)
+            return false;
+        line.add(bestMove);
+        return collectLine(board.makeMove(bestMove), bestMoves, !attacker, line);
+    }
+
+    /**
+     * Stops the threads of the solver.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The search of one thread.
+     */
+    private class Worker {
+
+        private final AtomicBoolean solved;
+        private long localNodes;
+        // per ply: the keys of the children and the proof and disproof number of the node
+        private long[][] childKeys = new long[0][];
+        private int[][] numbers = new int[0][];
+
+        private Worker(AtomicBoolean solved) {
+            this.solved = solved;
+        }
+
+        private void ensurePly(int ply) {
+            if (ply < numbers.length)
+                return;
+            int length = ply + 8;
+            childKeys = Arrays.copyOf(childKeys, length);
+            numbers = Arrays.copyOf(numbers, length);
+            for (int i = 0; i < length; i++) {
+                if (childKeys[i] == null)
+                    childKeys[i] = new long[MAX_MOVES];
+                if (numbers[i] == null)
+                    numbers[i] = new int[2];
+            }
+        }
+
+        /**
+         * Searches the node till it is proven or disproven.
+         * @return long - the table data of the node or 0 if the search was aborted
+         */
+        private long prove(Board board, int moves, boolean attacker) {
+            long key = ProofTable.key(board.getHash(), moves, whiteAttacks);
+            long data = table.probe(key);
+            if (data != 0 && (ProofTable.proofNumber(data) == 0 || ProofTable.disproofNumber(data) == 0))
+                return data;
+            mid(board, 0, moves, attacker, INFINITY, INFINITY);
+            flushNodes();
+            if (isAborted())
+                return 0;
+            return ProofTable.pack(numbers[0][0], numbers[0][1]);
+        }
+
+        /**
+         * Expands the node till its proof number reaches the proof threshold or its disproof number reaches
+         * the disproof threshold.
+         * The proof and the disproof number are stored in the numbers of the ply.
+         * @param board Board - the node
+         * @param ply int - the distance to the node the worker started with
+         * @param moves int - the remaining moves of the attacker
+         * @param attacker boolean - the attacker is to move (or node), else the defender (and node)
+         * @param proofThreshold int - the proof threshold
+         * @param disproofThreshold int - the disproof threshold
+         */
+        private void mid(Board board, int ply, int moves, boolean attacker, int proofThreshold, int disproofThreshold) {
+            ensurePly(ply);
+            int[] numbers = this.numbers[ply];
+            long key = ProofTable.key(board.getHash(), moves, whiteAttacks);
+            if (countNode()) {
+                numbers[0] = 1;
+                numbers[1] = 1;
+                return;
+            }
+
+            short[] legalMoves = board.getLegalMoves();
+            if (isTerminal(board, legalMoves, moves, attacker, numbers)) {
+                table.store(key, numbers[0], numbers[1]);
+                return;
+            }
+
+            // only the selected child is made, the others are looked up by their key
+            long[] childKeys = this.childKeys[ply];
+            int childMoves = attacker ? moves - 1 : moves;
+            for (int i = 0; i < legalMoves.length; i++)
+                childKeys[i] = ProofTable.key(board.getHashAfter(legalMoves[i]), childMoves, whiteAttacks);
+
+            while (true) {
+                // or node: proof = min, disproof = sum; and node: proof = sum, disproof = min
+                int min = INFINITY;
+                int second = INFINITY;
+                int sum = 0;
+                int best = -1;
+                int bestOther = 0;
+                for (int i = 0; i < legalMoves.length; i++) {
+                    long data = table.probe(childKeys[i]);
+                    int proof = data != 0 ? ProofTable.proofNumber(data) : 1;
+                    int disproof = data != 0 ? ProofTable.disproofNumber(data) : 1;
+                    int selecting = attacker ? proof : disproof;
+                    int summing = attacker ? disproof : proof;
+                    sum = Math.min(INFINITY, sum + summing);
+                    if (selecting < min) {
+                        second = min;
+                        min = selecting;
+                        best = i;
+                        bestOther = summing;
+                    } else if (selecting < second) {
+                        second = selecting;
+                    }
+                }
+                numbers[0] = attacker ? min : sum;
+                numbers[1] = attacker ? sum : min;
+
+                if (numbers[0] >= proofThreshold || numbers[1] >= disproofThreshold || isAborted())
+                    break;
+
+                int childProofThreshold;
+                int childDisproofThreshold;
+                if (attacker) {
+                    childProofThreshold = Math.min(proofThreshold, second + 1);
+                    childDisproofThreshold = Math.min(INFINITY, disproofThreshold - numbers[1] + bestOther);
+                } else {
+                    childProofThreshold = Math.min(INFINITY, proofThreshold - numbers[0] + bestOther);
+                    childDisproofThreshold = Math.min(disproofThreshold, second + 1);
+                }
+                short move = legalMoves[best];
+                mid(board.makeMove(board.getMove(Move.packedFrom(move), Move.packedTo(move))), ply + 1, childMoves, !attacker,
+                        childProofThreshold, childDisproofThreshold);
+                if (isAborted())
+                    break;
+            }
+            if (!isAborted())
+                table.store(key, numbers[0], numbers[1]);
+        }
+
+        /**
+         * Checks if the node is decided without children.
+         * @return boolean - the node is terminal, the numbers are set
+         */
+        private boolean isTerminal(Board board, short[] legalMoves, int moves, boolean attacker, int[] numbers) {
+            boolean proven;
+            if (legalMoves.length == 0)
+                proven = !attacker && !board.kingIsNotChecked(board.getCurrentPlayer()); // mate, else stalemate
+            else if (moves == 0)
+                proven = false; // the attacker has no moves left
+            else
+                return false;
+            numbers[0] = proven ? 0 : INFINITY;
+            numbers[1] = proven ? INFINITY : 0;
+            return true;
+        }
+
+        private boolean countNode() {
+            if ((++localNodes & 1023) == 0) {
+                flushNodes();
+                if (nodes.get() >= nodeLimit || System.currentTimeMillis() >= deadline)
+                    aborted.set(true);
+            }
+            return isAborted();
+        }
+
+        private void flushNodes() {
+            nodes.addAndGet(localNodes);
+            localNodes = 0;
+        }
+
+        private boolean isAborted() {
+            return aborted.get() || solved.get();
+        }
+    }
+}
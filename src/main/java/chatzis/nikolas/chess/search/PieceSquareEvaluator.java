@@ -0,0 +1,171 @@
+package chatzis.nikolas.chess.search;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.game.Player;
+import chatzis.nikolas.chess.pieces.Piece;
+
+/**
+ * Evaluates the material and the position of every piece by piece-square tables.
+ * The weights are the material values of P, N, B, R, Q, K followed by one table with 64 values for
+ * each piece. Tables are seen from white with a1 at index 0, black uses them mirrored.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class PieceSquareEvaluator implements Evaluator {
+
+    public static final int WEIGHTS = 6 + 6 * 64;
+
+    private static final int[] DEFAULT_WEIGHTS = createDefaultWeights();
+
+    private final int[] weights;
+    private final int[][] table; // [piece index][position], black values are negative
+
+    /**
+     * Instantiates the evaluator with the default weights.
+     */
+    public PieceSquareEvaluator() {
+        this(DEFAULT_WEIGHTS);
+    }
+
+    /**
+     * Instantiates the evaluator.
+     * @param weights int[] - material and piece-square weights, see {@link #WEIGHTS}
+     */
+    public PieceSquareEvaluator(int[] weights) {
+        if (weights.length != WEIGHTS)
+            throw new IllegalArgumentException("Expected " + WEIGHTS + " weights, got " + weights.length);
+        this.weights = weights.clone();
+        this.table = new int[12][64];
+        for (int piece = 0; piece < 6; piece++) {
+            for (int position = 0; position < 64; position++) {
+                table[piece][position] = weights[piece] + weights[6 + piece * 64 + position];
+                table[piece + 6][position] = -(weights[piece] + weights[6 + piece * 64 + (position ^ 56)]);
+            }
+        }
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        int score = evaluateWhite(board);
+        return board.getCurrentPlayer() == Player.WHITE ? score : -score;
+    }
+
+    /**
+     * Evaluates the board from the view of white.
+     * @param board {@link Board} - the board to evaluate
+     * @return int - the score in centipawns, positive if white is better
+     */
+    public int evaluateWhite(Board board) {
+        int score = 0;
+        for (int i = 0; i < 64; i++) {
+            Piece piece = board.getPieceOnBoard(i);
+            if (piece != null)
+                score += table[piece.getIndex()][i];
+        }
+        return score;
+    }
+
+    /**
+     * Returns the material value of the piece, kings are worth nothing.
+     * @param piece Piece - the piece
+     * @return int - the value in centipawns
+     */
+    public int getMaterial(Piece piece) {
+        return weights[piece.getIndex() % 6];
+    }
+
+    /**
+     * Returns the value of a piece on a position from the view of white, including its material.
+     * @param pieceIndex int - the index of the piece, see {@link Piece#getIndex()}
+     * @param position int - the position
+     * @return int - the value, negative for black pieces
+     */
+    public int getValue(int pieceIndex, int position) {
+        return table[pieceIndex][position];
+    }
+
+    /**
+     * Returns a copy of the weights.
+     * @return int[] - material and piece-square weights
+     */
+    public int[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * Returns a copy of the default weights.
+     * @return int[] - material and piece-square weights
+     */
+    public static int[] getDefaultWeights() {
+        return DEFAULT_WEIGHTS.clone();
+    }
+
+    private static int[] createDefaultWeights() {
+        int[] material = {100, 320, 330, 500, 900, 0};
+        // tables are written from rank 8 down to rank 1
+        int[][] tables = {
+                { // pawn
+                        0, 0, 0, 0, 0, 0, 0, 0,
+                        50, 50, 50, 50, 50, 50, 50, 50,
+                        10, 10, 20, 30, 30, 20, 10, 10,
+                        5, 5, 10, 25, 25, 10, 5, 5,
+                        0, 0, 0, 20, 20, 0, 0, 0,
+                        5, -5, -10, 0, 0, -10, -5, 5,
+                        5, 10, 10, -20, -20, 10, 10, 5,
+                        0, 0, 0, 0, 0, 0, 0, 0},
+                { // knight
+                        -50, -40, -30, -30, -30, -30, -40, -50,
+                        -40, -20, 0, 0, 0, 0, -20, -40,
+                        -30, 0, 10, 15, 15, 10, 0, -30,
+                        -30, 5, 15, 20, 20, 15, 5, -30,
+                        -30, 0, 15, 20, 20, 15, 0, -30,
+                        -30, 5, 10, 15, 15, 10, 5, -30,
+                        -40, -20, 0, 5, 5, 0, -20, -40,
+                        -50, -40, -30, -30, -30, -30, -40, -50},
+                { // bishop
+                        -20, -10, -10, -10, -10, -10, -10, -20,
+                        -10, 0, 0, 0, 0, 0, 0, -10,
+                        -10, 0, 5, 10, 10, 5, 0, -10,
+                        -10, 5, 5, 10, 10, 5, 5, -10,
+                        -10, 0, 10, 10, 10, 10, 0, -10,
+                        -10, 10, 10, 10, 10, 10, 10, -10,
+                        -10, 5, 0, 0, 0, 0, 5, -10,
+                        -20, -10, -10, -10, -10, -10, -10, -20},
+                { // rook
+                        0, 0, 0, 0, 0, 0, 0, 0,
+                        5, 10, 10, 10, 10, 10, 10, 5,
+                        -5, 0, 0, 0, 0, 0, 0, -5,
+                        -5, 0, 0, 0, 0, 0, 0, -5,
+                        -5, 0, 0, 0, 0, 0, 0, -5,
+                        -5, 0, 0, 0, 0, 0, 0, -5,
+                        -5, 0, 0, 0, 0, 0, 0, -5,
+                        0, 0, 0, 5, 5, 0, 0, 0},
+                { // queen
+                        -20, -10, -10, -5, -5, -10, -10, -20,
+                        -10, 0, 0, 0, 0, 0, 0, -10,
+                        -10, 0, 5, 5, 5, 5, 0, -10,
+                        -5, 0, 5, 5, 5, 5, 0, -5,
+                        0, 0, 5, 5, 5, 5, 0, -5,
+                        -10, 5, 5, 5, 5, 5, 0, -10,
+                        -10, 0, 5, 0, 0, 0, 0, -10,
+                        -20, -10, -10, -5, -5, -10, -10, -20},
+                { // king
+                        -30, -40, -40, -50, -50, -40, -40, -30,
+                        -30, -40, -40, -50, -50, -40, -40, -30,
+                        -30, -40, -40, -50, -50, -40, -40, -30,
+                        -30, -40, -40, -50, -50, -40, -40, -30,
+                        -20, -30, -30, -40, -40, -30, -30, -20,
+                        -10, -20, -20, -20, -20, -20, -20, -10,
+                        20, 20, 0, 0, 0, 0, 20, 20,
+                        20, 30, 10, 0, 0, 10, 30, 20}
+        };
+
+        int[] weights = new int[WEIGHTS];
+        System.arraycopy(material, 0, weights, 0, 6);
+        for (int piece = 0; piece < 6; piece++) {
+            for (int position = 0; position < 64; position++)
+                weights[6 + piece * 64 + position] = tables[piece][position ^ 56];
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,92 @@
+package chatzis.nikolas.chess.search;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.game.Player;
+import chatzis.nikolas.chess.pieces.Piece;
+
+import java.util.Arrays;
+
+/**
+ * Many positions in a structure-of-arrays layout, to evaluate them at once.
+ * Every position is stored as up to 32 features (piece index * 64 + position), one array per piece slot,
+ * so the same slot of consecutive positions is consecutive in memory. Unused slots hold {@link #EMPTY}.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class PositionBatch {
+
+    public static final int MAX_PIECES = 32;
+    public static final int EMPTY = 12 * 64;
+
+    private final int[][] features; // [slot][position]
+    private final int[] signs; // 1 if white is to move, else -1
+    private int size;
+    private int usedSlots;
+
+    /**
+     * Instantiates an empty batch.
+     * @param capacity int - the maximal amount of positions
+     */
+    public PositionBatch(int capacity) {
+        this.features = new int[MAX_PIECES][capacity];
+        this.signs = new int[capacity];
+        for (int[] slot : features)
+            Arrays.fill(slot, EMPTY);
+    }
+
+    /**
+     * Adds the position of the board.
+     * @param board Board - the board
+     * @return int - the index of the position in the batch
+     */
+    public int add(Board board) {
+        if (size == signs.length)
+            throw new IllegalStateException("Batch is full");
+        int slot = 0;
+        for (int i = 0; i < 64; i++) {
+            Piece piece = board.getPieceOnBoard(i);
+            if (piece == null)
+                continue;
+            if (slot == MAX_PIECES)
+                throw new IllegalArgumentException("Board has more than " + MAX_PIECES + " pieces");
+            features[slot++][size] = piece.getIndex() * 64 + i;
+        }
+        usedSlots = Math.max(usedSlots, slot);
+        signs[size] = board.getCurrentPlayer() == Player.WHITE ? 1 : -1;
+        return size++;
+    }
+
+    /**
+     * Removes every position.
+     */
+    public void clear() {
+        for (int slot = 0; slot < usedSlots; slot++)
+            Arrays.fill(features[slot], 0, size, EMPTY);
+        size = 0;
+        usedSlots = 0;
+    }
+
+    int[][] getFeatures() {
+        return features;
+    }
+
+    int[] getSigns() {
+        return signs;
+    }
+
+    /**
+     * Returns the amount of slots used by at least one position, the slots after are empty.
+     * @return int - the used slots
+     */
+    int getUsedSlots() {
+        return usedSlots;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return signs.length;
+    }
+}
@@ -0,0 +1,97 @@
+package chatzis.nikolas.chess.search;
+
+import java.util.Arrays;
+
+/**
+ * Memory bounded hash table of proof and disproof numbers, shared by the threads of a {@link MateSolver}.
+ * An entry is two longs, the key is stored xor the data, so entries torn by concurrent writes are not found.
+ * A new entry always replaces the old one.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class ProofTable {
+
+    private static final long MOVES_KEY = 0x9E3779B97F4A7C15L;
+    private static final long ATTACKER_KEY = 0xC2B2AE3D27D4EB4FL;
+    private static final int NUMBER_BITS = 30;
+    private static final long NUMBER_MASK = (1L << NUMBER_BITS) - 1;
+
+    private final long[] entries; // [key ^ data, data]
+    private final int mask;
+
+    /**
+     * Instantiates the table.
+     * @param megabytes int - the size of the table, rounded down to a power of two
+     * @throws IllegalArgumentException - if the size is smaller than 1MB or too big
+     */
+    public ProofTable(int megabytes) {
+        if (megabytes < 1)
+            throw new IllegalArgumentException("Table of " + megabytes + "MB is too small");
+        long entryCount = Long.highestOneBit(((long) megabytes << 20) / 16);
+        if (entryCount > 1 << 28)
+            throw new IllegalArgumentException("Table of " + megabytes + "MB is too big");
+        this.entries = new long[(int) entryCount * 2];
+        this.mask = (int) entryCount - 1;
+    }
+
+    /**
+     * Returns the key of a node.
+     * @param hash long - the position key
+     * @param moves int - the remaining moves of the attacker
+     * @param whiteAttacks boolean - white is the attacker
+     * @return long - the key
+     */
+    public static long key(long hash, int moves, boolean whiteAttacks) {
+        return hash + moves * MOVES_KEY + (whiteAttacks ? ATTACKER_KEY : 0);
+    }
+
+    /**
+     * Looks up the node.
+     * @param key long - the key of the node
+     * @return long - the data of the entry or 0 if the node is not stored
+     */
+    public long probe(long key) {
+        int index = index(key);
+        long data = entries[index + 1];
+        return (entries[index] ^ data) == key ? data : 0;
+    }
+
+    /**
+     * Stores the numbers of the node, replacing the entry in its slot.
+     * @param key long - the key of the node
+     * @param proofNumber int - the proof number
+     * @param disproofNumber int - the disproof number
+     */
+    public void store(long key, int proofNumber, int disproofNumber) {
+        int index = index(key);
+        long data = pack(proofNumber, disproofNumber);
+        entries[index] = key ^ data;
+        entries[index + 1] = data;
+    }
+
+    /**
+     * Packs the numbers like the data of an entry.
+     * @param proofNumber int - the proof number
+     * @param disproofNumber int - the disproof number
+     * @return long - the data
+     */
+    public static long pack(int proofNumber, int disproofNumber) {
+        return proofNumber | (long) disproofNumber << NUMBER_BITS;
+    }
+
+    public static int proofNumber(long data) {
+        return (int) (data & NUMBER_MASK);
+    }
+
+    public static int disproofNumber(long data) {
+        return (int) (data >>> NUMBER_BITS & NUMBER_MASK);
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ key >>> 32) & mask) << 1;
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 0);
+    }
+}
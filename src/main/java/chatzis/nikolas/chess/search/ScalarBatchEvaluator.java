@@ -0,0 +1,18 @@
+package chatzis.nikolas.chess.search;
+
+/**
+ * Batch evaluation without the vector api.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+class ScalarBatchEvaluator extends BatchEvaluator {
+
+    ScalarBatchEvaluator(PieceSquareEvaluator evaluator) {
+        super(evaluator);
+    }
+
+    @Override
+    public void evaluate(PositionBatch batch, int[] scores) {
+        evaluateScalar(batch, scores, 0);
+    }
+}
@@ -0,0 +1,501 @@
+package chatzis.nikolas.chess.search;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.game.MovePicker;
+import chatzis.nikolas.chess.game.Player;
+import chatzis.nikolas.chess.game.PositionHistory;
+import chatzis.nikolas.chess.metrics.Metrics;
+import chatzis.nikolas.chess.metrics.ProgressInfo;
+import chatzis.nikolas.chess.metrics.ProgressPublisher;
+import chatzis.nikolas.chess.metrics.SearchEvent;
+import chatzis.nikolas.chess.move.Move;
+import chatzis.nikolas.chess.pieces.Pawn;
+import chatzis.nikolas.chess.pieces.Piece;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Searches the best move of a board by an iterative deepening principal variation search
+ * with a quiescence search of captures and a transposition table.
+ * Null window nodes are pruned selectively by the enabled {@link Option}s.
+ * One instance can only run one search at a time.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class Search {
+
+    public static final int MATE = 30000;
+    public static final int MAX_PLY = 100;
+    private static final int INFINITY = 32000;
+    private static final int HISTORY_LIMIT = 1 << 20;
+    private static final int[] FUTILITY_MARGINS = {0, 200, 450}; // indexed by the remaining depth
+    private static final int[] RAZORING_MARGINS = {0, 300, 550};
+
+    /**
+     * The selective techniques and move ordering heuristics of the search, which can be toggled
+     * to measure their effect, e.g. by the {@link SearchBenchmark}.
+     */
+    public enum Option {
+        /** Searches a pass with a reduced depth first and prunes the node if that already fails high. */
+        NULL_MOVE,
+        /** Searches late quiet moves with a reduced depth and only re-searches them if they raise alpha. */
+        LATE_MOVE_REDUCTIONS,
+        /** Skips quiet moves at the frontier, if the static evaluation is far below alpha. */
+        FUTILITY_PRUNING,
+        /** Drops into the quiescence search at the frontier, if the static evaluation is far below alpha. */
+        RAZORING,
+        /** Orders the quiet moves, which caused a cutoff at the same ply, first. */
+        KILLER_MOVES,
+        /** Orders the quiet moves by how often they caused cutoffs. */
+        HISTORY_HEURISTIC
+    }
+
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    private final short[][] principalVariation;
+    private final int[] principalVariationLength;
+    private final short[][] killers;
+    private final int[] historyScores; // indexed by piece index * 64 + to-position
+    private final Set<Option> options;
+
+    private PositionHistory history;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private boolean abortable; // the first iteration always completes, so there is a move to return
+    private volatile boolean stopped;
+    private Consumer<SearchResult> iterationListener;
+    private Consumer<List<SearchResult>> linesListener;
+    private ProgressPublisher progressPublisher;
+    private short[] excludedMoves = new short[0]; // first moves of the lines found before in this iteration
+    private int excludedCount;
+
+    /**
+     * Instantiates the search with the {@link PieceSquareEvaluator} and a 16MB table.
+     */
+    public Search() {
+        this(new PieceSquareEvaluator(), new TranspositionTable(16));
+    }
+
+    /**
+     * Instantiates the search.
+     * @param evaluator {@link Evaluator} - the evaluation of the leaves
+     * @param table {@link TranspositionTable} - the table to store searched positions
+     */
+    public Search(Evaluator evaluator, TranspositionTable table) {
+        this.evaluator = evaluator;
+        this.table = table;
+        this.principalVariation = new short[MAX_PLY + 1][MAX_PLY + 1];
+        this.principalVariationLength = new int[MAX_PLY + 1];
+        this.killers = new short[MAX_PLY + 1][2];
+        this.historyScores = new int[12 * 64];
+        this.options = EnumSet.allOf(Option.class);
+    }
+
+    /**
+     * Searches the best move until one of the limits is reached.
+     * @param board {@link Board} - the board to search
+     * @param gameHistory {@link PositionHistory} - the positions of the game including the board (nullable)
+     * @param limits {@link SearchLimits} - the limits of the search
+     * @return {@link SearchResult} - the result of the deepest completed iteration
+     */
+    public SearchResult search(Board board, PositionHistory gameHistory, SearchLimits limits) {
+        return searchLines(board, gameHistory, limits, 1).get(0);
+    }
+
+    /**
+     * Searches the best lines (multi-PV) until one of the limits is reached.
+     * Every iteration searches the root once per line and excludes the first moves of the lines found before,
+     * so all lines share the table and the move ordering of the same search instead of searching independently.
+     * @param board {@link Board} - the board to search
+     * @param gameHistory {@link PositionHistory} - the positions of the game including the board (nullable)
+     * @param limits {@link SearchLimits} - the limits of the search
+     * @param lines int - the number of lines to search, limited by the number of legal moves
+     * @return List<SearchResult> - the lines of the deepest completed iteration, best line first
+     */
+    public List<SearchResult> searchLines(Board board, PositionHistory gameHistory, SearchLimits limits, int lines) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long allocated = Metrics.allocatedBytes();
+        long start = System.currentTimeMillis();
+
+        this.history = gameHistory != null ? new PositionHistory(gameHistory) : new PositionHistory();
+        if (history.size() == 0)
+            history.push(board);
+        this.nodes = 0;
+        this.nodeLimit = limits.getNodes() > 0 ? limits.getNodes() : Long.MAX_VALUE;
+        this.deadline = limits.getMillis() > 0 ? start + limits.getMillis() : Long.MAX_VALUE;
+        this.abortable = false;
+        this.stopped = false;
+        for (short[] killer : killers)
+            Arrays.fill(killer, (short) 0);
+        ageHistory();
+
+        int lineCount = Math.max(1, Math.min(lines, board.getLegalMoves().length));
+        this.excludedMoves = new short[lineCount];
+        int maxDepth = limits.getDepth() > 0 ? Math.min(limits.getDepth(), MAX_PLY - 1) : MAX_PLY - 1;
+        List<SearchResult> results = List.of(createResult(board, new short[0], 0, 0, start));
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            List<SearchResult> iteration = new ArrayList<>(lineCount);
+            excludedCount = 0;
+            while (iteration.size() < lineCount) {
+                int score = alphaBeta(board, depth, -INFINITY, INFINITY, 0, false);
+                if (isAborted())
+                    break;
+                short[] line = Arrays.copyOf(principalVariation[0], principalVariationLength[0]);
+                iteration.add(createResult(board, line, score, depth, start));
+                if (line.length == 0)
+                    break; // no legal move
+                excludedMoves[excludedCount++] = line[0];
+            }
+            excludedCount = 0;
+            if (isAborted())
+                break;
+            iteration.sort(Comparator.comparingInt(SearchResult::getScore).reversed());
+            results = Collections.unmodifiableList(iteration);
+            abortable = true;
+            if (iterationListener != null)
+                iterationListener.accept(results.get(0));
+            if (linesListener != null)
+                linesListener.accept(results);
+            if (progressPublisher != null && progressPublisher.hasSubscribers())
+                publishProgress(results.get(0));
+            int score = results.get(0).getScore();
+            if (lineCount == 1 && Math.abs(score) > MATE - MAX_PLY && MATE - Math.abs(score) <= depth)
+                break; // mate found within the full width of the search
+        }
+
+        SearchResult result = results.get(0);
+        Metrics.add(Metrics.Counter.SEARCH_NODES, nodes);
+        if (event.shouldCommit()) {
+            event.depth = result.getDepth();
+            event.nodes = nodes;
+            event.score = result.getScore();
+            event.bestMove = String.valueOf(result.getBestMove());
+            event.tableHitRate = table.getHitRate();
+            event.allocated = allocated >= 0 ? Metrics.allocatedBytes() - allocated : -1;
+            event.commit();
+        }
+        return results;
+    }
+
+    private void publishProgress(SearchResult result) {
+        progressPublisher.submit(new ProgressInfo(ProgressInfo.Source.SEARCH, result.getDepth(), result.getScore(),
+                ProgressInfo.toNotation(result.getPrincipalVariation()), result.getNodes(), result.getMillis(), table.getHashFull(), 0, 0));
+    }
+
+    private SearchResult createResult(Board board, short[] bestLine, int bestScore, int completedDepth, long start) {
+        List<Move> line = toMoves(board, bestLine);
+        return new SearchResult(line.isEmpty() ? null : line.get(0), bestScore, completedDepth, nodes,
+                System.currentTimeMillis() - start, line);
+    }
+
+    /**
+     * Sets the listener, which receives the result of every completed iteration while the search is running,
+     * e.g. to show the progress of an analysis. It is called on the searching thread.
+     * @param listener Consumer<SearchResult> - the listener (nullable)
+     */
+    public void setIterationListener(Consumer<SearchResult> listener) {
+        this.iterationListener = listener;
+    }
+
+    /**
+     * Sets the listener, which receives all lines of every completed iteration of {@link #searchLines},
+     * so clients see the lines of the lower depths while the search is running. It is called on the searching thread.
+     * @param listener Consumer<List<SearchResult>> - the listener (nullable)
+     */
+    public void setLinesListener(Consumer<List<SearchResult>> listener) {
+        this.linesListener = listener;
+    }
+
+    /**
+     * Sets the publisher, which receives the best line, the nodes and the table fill of every completed iteration.
+     * Submitting never blocks the search, slow subscribers miss older iterations instead.
+     * @param publisher {@link ProgressPublisher} - the publisher (nullable)
+     */
+    public void setProgressPublisher(ProgressPublisher publisher) {
+        this.progressPublisher = publisher;
+    }
+
+    /**
+     * Enables or disables a selective technique or move ordering heuristic, all are enabled by default.
+     * @param option {@link Option} - the option
+     * @param enabled boolean - enable the option
+     */
+    public void setOption(Option option, boolean enabled) {
+        if (enabled)
+            options.add(option);
+        else
+            options.remove(option);
+    }
+
+    /**
+     * Checks if a selective technique or move ordering heuristic is enabled.
+     * @param option {@link Option} - the option
+     * @return boolean - the option is enabled
+     */
+    public boolean isEnabled(Option option) {
+        return options.contains(option);
+    }
+
+    /**
+     * Stops the running search, which then returns the result of the last completed iteration.
+     * Interrupting the searching thread stops the search as well.
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+    private int alphaBeta(Board board, int depth, int alpha, int beta, int ply, boolean nullMoveAllowed) {
+        principalVariationLength[ply] = ply;
+        if (ply > 0 && (board.getHalfMoveClock() >= 100 || history.repetitions() > 0))
+            return 0;
+        if (depth <= 0)
+            return quiescence(board, alpha, beta, ply);
+        if (countNode())
+            return 0;
+        if (ply >= MAX_PLY)
+            return evaluator.evaluate(board);
+
+        long key = board.getHash();
+        long entry = table.probe(key);
+        short hashMove = 0;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT ||
+                        (bound == TranspositionTable.LOWER_BOUND && score >= beta) ||
+                        (bound == TranspositionTable.UPPER_BOUND && score <= alpha))
+                    return score;
+            }
+        }
+
+        boolean checked = !board.kingIsNotChecked(board.getCurrentPlayer());
+
+        // the selective techniques only prune null window nodes, which just have to prove a bound
+        boolean selective = ply > 0 && beta - alpha == 1 && !checked;
+        int staticScore = selective ? evaluator.evaluate(board) : 0;
+        if (selective && depth < RAZORING_MARGINS.length && options.contains(Option.RAZORING) &&
+                staticScore + RAZORING_MARGINS[depth] <= alpha) {
+            int score = quiescence(board, alpha, beta, ply);
+            if (score <= alpha)
+                return score;
+        }
+        if (selective && nullMoveAllowed && depth >= 3 && staticScore >= beta &&
+                options.contains(Option.NULL_MOVE) && hasPieces(board)) {
+            Board child = board.makeNullMove();
+            history.push(child);
+            int score = -alphaBeta(child, depth - 1 - (depth >= 7 ? 3 : 2), -beta, -beta + 1, ply + 1, false);
+            history.pop();
+            if (isAborted())
+                return 0;
+            if (score >= beta)
+                return score > MATE - MAX_PLY ? beta : score;
+        }
+        boolean futile = selective && depth < FUTILITY_MARGINS.length && options.contains(Option.FUTILITY_PRUNING) &&
+                staticScore + FUTILITY_MARGINS[depth] <= alpha;
+
+        // the moves are generated lazily, a cutoff by the first moves skips the generation of the others
+        boolean killerMoves = options.contains(Option.KILLER_MOVES);
+        MovePicker picker = new MovePicker(board, hashMove, killerMoves ? killers[ply][0] : 0, killerMoves ? killers[ply][1] : 0,
+                options.contains(Option.HISTORY_HEURISTIC) ? move -> historyScore(board, (short) move) : null);
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        short bestMove = 0;
+        int searched = 0;
+        short move;
+        while ((move = picker.next()) != 0) {
+            if (ply == 0 && isExcluded(move))
+                continue;
+            boolean quiet = capturedPiece(board, move) == null;
+            Board child = board.makeMove(board.getMove(Move.packedFrom(move), Move.packedTo(move)));
+            boolean givesCheck = !child.kingIsNotChecked(child.getCurrentPlayer());
+            if (futile && quiet && searched > 0 && !givesCheck)
+                continue; // a quiet move cannot raise the score enough at the frontier
+
+            history.push(child);
+            int score;
+            if (searched == 0) {
+                score = -alphaBeta(child, depth - 1, -beta, -alpha, ply + 1, true);
+            } else {
+                int reduction = 0;
+                if (depth >= 3 && searched >= 3 && quiet && !checked && !givesCheck && move != hashMove &&
+                        options.contains(Option.LATE_MOVE_REDUCTIONS) && !isKiller(ply, move)) {
+                    reduction = searched >= 6 && depth >= 5 ? 2 : 1;
+                    if (options.contains(Option.HISTORY_HEURISTIC) && historyScore(board, move) >= HISTORY_LIMIT / 4)
+                        reduction--; // the move often caused cutoffs before
+                }
+                // principal variation search: the later moves only have to prove that they are not better
+                score = -alphaBeta(child, depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, true);
+                if (score > alpha && reduction > 0)
+                    score = -alphaBeta(child, depth - 1, -alpha - 1, -alpha, ply + 1, true);
+                if (score > alpha && score < beta)
+                    score = -alphaBeta(child, depth - 1, -beta, -alpha, ply + 1, true);
+            }
+            history.pop();
+            searched++;
+            if (isAborted())
+                return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (alpha >= beta) {
+                        if (quiet)
+                            updateOrdering(board, move, depth, ply);
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (picker.getReturned() == 0)
+            return checked ? -MATE + ply : 0;
+
+        int bound = bestScore >= beta ? TranspositionTable.LOWER_BOUND :
+                bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        if (ply > 0 || excludedCount == 0) // the root score without the best moves must not replace the real one
+            table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    /**
+     * Checks if the current player has a piece besides pawns and the king,
+     * otherwise passing could be better than every move (zugzwang) and the null move must not be used.
+     * @param board {@link Board} - the board
+     * @return boolean - the current player has a piece
+     */
+    private static boolean hasPieces(Board board) {
+        for (int i = 0; i < 64; i++) {
+            Piece piece = board.getPieceOnBoard(i);
+            if (piece != null && piece.getBelong() == board.getCurrentPlayer() && piece.getIndex() % 6 != 0 && piece.getIndex() % 6 != 5)
+                return true;
+        }
+        return false;
+    }
+
+    private void updateOrdering(Board board, short move, int depth, int ply) {
+        if (options.contains(Option.KILLER_MOVES) && killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        if (options.contains(Option.HISTORY_HEURISTIC)) {
+            int index = board.getPieceOnBoard(Move.packedFrom(move)).getIndex() * 64 + Move.packedTo(move);
+            historyScores[index] += depth * depth;
+            if (historyScores[index] >= HISTORY_LIMIT)
+                ageHistory();
+        }
+    }
+
+    private boolean isKiller(int ply, short move) {
+        return options.contains(Option.KILLER_MOVES) && (killers[ply][0] == move || killers[ply][1] == move);
+    }
+
+    private int historyScore(Board board, short move) {
+        return historyScores[board.getPieceOnBoard(Move.packedFrom(move)).getIndex() * 64 + Move.packedTo(move)];
+    }
+
+    private void ageHistory() {
+        for (int i = 0; i < historyScores.length; i++)
+            historyScores[i] /= 2;
+    }
+
+    private boolean isExcluded(short move) {
+        for (int i = 0; i < excludedCount; i++)
+            if (excludedMoves[i] == move)
+                return true;
+        return false;
+    }
+
+    private int quiescence(Board board, int alpha, int beta, int ply) {
+        principalVariationLength[ply] = ply;
+        if (countNode())
+            return 0;
+
+        int standPat = evaluator.evaluate(board);
+        if (ply >= MAX_PLY || standPat >= beta)
+            return standPat;
+        alpha = Math.max(alpha, standPat);
+
+        if (!board.kingIsNotChecked(board.getCurrentPlayer()) && board.getLegalMoves().length == 0)
+            return -MATE + ply;
+
+        MovePicker picker = MovePicker.captures(board);
+        short move;
+        while ((move = picker.next()) != 0) {
+            Board child = board.makeMove(board.getMove(Move.packedFrom(move), Move.packedTo(move)));
+            int score = -quiescence(child, -beta, -alpha, ply + 1);
+            if (isAborted())
+                return 0;
+            if (score >= beta)
+                return score;
+            if (score > alpha) {
+                alpha = score;
+                updatePrincipalVariation(ply, move);
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Counts the node and checks the limits every 1024 nodes.
+     * @return boolean - the search has to stop
+     */
+    private boolean countNode() {
+        nodes++;
+        if (nodes >= nodeLimit || ((nodes & 1023) == 0 && (System.currentTimeMillis() >= deadline || Thread.currentThread().isInterrupted())))
+            stopped = true;
+        return isAborted();
+    }
+
+    private boolean isAborted() {
+        return stopped && abortable;
+    }
+
+    private void updatePrincipalVariation(int ply, short move) {
+        principalVariation[ply][ply] = move;
+        int length = principalVariationLength[ply + 1];
+        System.arraycopy(principalVariation[ply + 1], ply + 1, principalVariation[ply], ply + 1, length - ply - 1);
+        principalVariationLength[ply] = Math.max(length, ply + 1);
+    }
+
+    private static Piece capturedPiece(Board board, short move) {
+        byte to = Move.packedTo(move);
+        Piece victim = board.getPieceOnBoard(to);
+        if (victim == null && to == board.getEnPassant() && board.getPieceOnBoard(Move.packedFrom(move)) instanceof Pawn)
+            return board.getPieceOnBoard(to + (board.getCurrentPlayer() == Player.WHITE ? -8 : 8));
+        return victim;
+    }
+
+    private static int toTable(int score, int ply) {
+        return score > MATE - MAX_PLY ? score + ply : score < -MATE + MAX_PLY ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score > MATE - MAX_PLY ? score - ply : score < -MATE + MAX_PLY ? score + ply : score;
+    }
+
+    private static List<Move> toMoves(Board board, short[] line) {
+        List<Move> moves = new ArrayList<>();
+        for (short packed : line) {
+            Move move = board.getMove(Move.packedFrom(packed), Move.packedTo(packed));
+            if (move == null)
+                break;
+            moves.add(move);
+            board = board.makeMove(move);
+        }
+        return moves;
+    }
+}
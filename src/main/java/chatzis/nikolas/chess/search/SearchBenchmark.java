@@ -0,0 +1,78 @@
+package chatzis.nikolas.chess.search;
+
+import chatzis.nikolas.chess.game.Board;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Counts the nodes of fixed depth searches of a fixed suite of positions with different {@link Search.Option}s,
+ * to measure how much each selective technique reduces the effective branching factor.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public final class SearchBenchmark {
+
+    /** The positions of the benchmark, in the order {@link Board#createNewBoard(String)} reads them. */
+    public static final List<String> SUITE = List.of(
+            "RNBQKBNR/PPPPPPPP/8/8/8/8/pppppppp/rnbqkbnr w KQkq - 0 1",
+            "R3K2R/PPPBBPPP/2N2Q1p/1p2P3/3PN3/bn2pnp1/p1ppqpb1/r3k2r w KQkq - 0 1",
+            "8/4P1P1/8/1R3p1k/KP5r/3p4/2p5/8 w - - 0 1",
+            "R2Q1RK1/PP2BPPP/2N1BN2/2Pp4/3P4/2n1pn2/pp2bppp/r1bq1rk1 w - - 0 9",
+            "2KR3R/PPP2PPP/2N1BN2/3p4/4P3/2n2n2/ppp1qppp/r3kb1r b kq - 0 10"
+    );
+
+    private SearchBenchmark() {
+        throw new UnsupportedOperationException("SearchBenchmark is a utility class and should not be instantiated.");
+    }
+
+    /**
+     * Searches every position of the suite to the depth with only the given options enabled.
+     * Every position starts with a cleared table, so the results do not depend on each other.
+     * @param depth int - the depth of the searches
+     * @param options Set<Search.Option> - the enabled options
+     * @return long - the nodes of all searches
+     */
+    public static long nodes(int depth, Set<Search.Option> options) {
+        TranspositionTable table = new TranspositionTable(16);
+        long nodes = 0;
+        for (String fen : SUITE) {
+            table.clear();
+            Search search = new Search(new PieceSquareEvaluator(), table);
+            for (Search.Option option : Search.Option.values())
+                search.setOption(option, options.contains(option));
+            nodes += search.search(Board.createNewBoard(fen), null, SearchLimits.depth(depth)).getNodes();
+        }
+        return nodes;
+    }
+
+    /**
+     * Calculates the effective branching factor, which is the average growth of the nodes per ply.
+     * @param nodes long - the nodes of all searches of the suite
+     * @param depth int - the depth of the searches
+     * @return double - the effective branching factor
+     */
+    public static double branchingFactor(long nodes, int depth) {
+        return Math.pow((double) nodes / SUITE.size(), 1.0 / depth);
+    }
+
+    /**
+     * Prints the nodes and effective branching factor without any option, with each option alone and with all options.
+     * @param args String[] - [depth (default 5)]
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        print("none", depth, EnumSet.noneOf(Search.Option.class));
+        for (Search.Option option : Search.Option.values())
+            print(option.name(), depth, EnumSet.of(option));
+        print("all", depth, EnumSet.allOf(Search.Option.class));
+    }
+
+    private static void print(String name, int depth, Set<Search.Option> options) {
+        long time = System.currentTimeMillis();
+        long nodes = nodes(depth, options);
+        System.out.printf("%-22s nodes: %10d  ebf: %5.2f  time: %6dms%n", name, nodes, branchingFactor(nodes, depth),
+                System.currentTimeMillis() - time);
+    }
+}
@@ -0,0 +1,57 @@
+package chatzis.nikolas.chess.search;
+
+/**
+ * Limits when a search stops: a maximal depth, an amount of nodes or a time.
+ * A limit of zero is unlimited, the search stops as soon as one limit is reached.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class SearchLimits {
+
+    private final int depth;
+    private final long nodes;
+    private final long millis;
+
+    /**
+     * Instantiates the limits.
+     * @param depth int - the maximal depth (0 for unlimited)
+     * @param nodes long - the maximal amount of nodes (0 for unlimited)
+     * @param millis long - the maximal time in milliseconds (0 for unlimited)
+     */
+    public SearchLimits(int depth, long nodes, long millis) {
+        if (depth == 0 && nodes == 0 && millis == 0)
+            throw new IllegalArgumentException("A search needs at least one limit");
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, nodes, 0);
+    }
+
+    public static SearchLimits millis(long millis) {
+        return new SearchLimits(0, 0, millis);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchLimits{depth=" + depth + ", nodes=" + nodes + ", millis=" + millis + "}";
+    }
+}
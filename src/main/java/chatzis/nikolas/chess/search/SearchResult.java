@@ -0,0 +1,84 @@
+package chatzis.nikolas.chess.search;
+
+import chatzis.nikolas.chess.move.Move;
+
+import java.util.List;
+
+/**
+ * Result of a search: the best move, its score and the expected continuation.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class SearchResult {
+
+    private final Move bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long millis;
+    private final List<Move> principalVariation;
+
+    /**
+     * Instantiates the result.
+     * @param bestMove {@link Move} - the best move (nullable if there is no legal move)
+     * @param score int - the score in centipawns from the view of the current player
+     * @param depth int - the completely searched depth
+     * @param nodes long - the searched nodes
+     * @param millis long - the time of the search
+     * @param principalVariation List<Move> - the best move followed by the expected continuation
+     */
+    public SearchResult(Move bestMove, int score, int depth, long nodes, long millis, List<Move> principalVariation) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+        this.principalVariation = List.copyOf(principalVariation);
+    }
+
+    public Move getBestMove() {
+        return bestMove;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public List<Move> getPrincipalVariation() {
+        return principalVariation;
+    }
+
+    /**
+     * Returns the searched nodes per second.
+     * @return long - nodes per second
+     */
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(1, millis);
+    }
+
+    /**
+     * Checks if the score is a forced mate for one of the players.
+     * @return boolean - score is a mate score
+     */
+    public boolean isMate() {
+        return Math.abs(score) > Search.MATE - Search.MAX_PLY;
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + depth + " score " + (isMate() ? "mate " + (score > 0 ? "" : "-") + (Search.MATE - Math.abs(score) + 1) / 2 : "cp " + score) +
+                " nodes " + nodes + " nps " + getNodesPerSecond() + " pv " + principalVariation;
+    }
+}
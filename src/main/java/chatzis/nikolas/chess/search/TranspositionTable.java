@@ -0,0 +1,123 @@
+package chatzis.nikolas.chess.search;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hash table of searched positions, which stores the best move, the score and the searched depth.
+ * An entry is two longs, the key is stored xor the data, so entries torn by concurrent writes are not found.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class TranspositionTable {
+
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    private final long[] entries; // [key ^ data, data]
+    private final int mask;
+    private final LongAdder probes = new LongAdder(); // the analysis reuses the table for every worker
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Instantiates the table.
+     * @param megabytes int - the size of the table, rounded down to a power of two
+     */
+    public TranspositionTable(int megabytes) {
+        long entryCount = Long.highestOneBit(Math.max(1, (long) megabytes << 20) / 16);
+        if (entryCount > 1 << 28)
+            throw new IllegalArgumentException("Table of " + megabytes + "MB is too big");
+        this.entries = new long[(int) entryCount * 2];
+        this.mask = (int) entryCount - 1;
+    }
+
+    /**
+     * Looks up the position.
+     * @param key long - the position key
+     * @return long - the data of the entry or 0 if the position is not stored
+     */
+    public long probe(long key) {
+        probes.increment();
+        int index = index(key);
+        long data = entries[index + 1];
+        if ((entries[index] ^ data) != key || data == 0)
+            return 0;
+        hits.increment();
+        return data;
+    }
+
+    /**
+     * Stores the position, replacing an entry of another position or a less deep search.
+     * @param key long - the position key
+     * @param move short - the packed best move or 0
+     * @param score int - the score
+     * @param depth int - the searched depth
+     * @param bound int - {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}
+     */
+    public void store(long key, short move, int score, int depth, int bound) {
+        int index = index(key);
+        long old = entries[index + 1];
+        boolean samePosition = (entries[index] ^ old) == key;
+        if (samePosition && depth < depth(old) && bound != EXACT)
+            return;
+        if (samePosition && move == 0)
+            move = move(old);
+
+        long data = (move & 0xFFFFL) | (score & 0xFFFFL) << 16 | (long) (depth & 0xFF) << 32 | (long) bound << 40;
+        entries[index] = key ^ data;
+        entries[index + 1] = data;
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ key >>> 32) & mask) << 1;
+    }
+
+    public static short move(long data) {
+        return (short) data;
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 32 & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> 40 & 0x3);
+    }
+
+    /**
+     * Removes every entry and resets the statistics.
+     */
+    public void clear() {
+        Arrays.fill(entries, 0);
+        probes.reset();
+        hits.reset();
+    }
+
+    /**
+     * Returns the share of probes which found their position.
+     * @return double - hits per probe (0 - 1)
+     */
+    public double getHitRate() {
+        long probed = probes.sum();
+        return probed == 0 ? 0 : (double) hits.sum() / probed;
+    }
+
+    /**
+     * Samples the first thousand entries to estimate how full the table is.
+     * @return int - used entries per thousand
+     */
+    public int getHashFull() {
+        int used = 0;
+        int samples = Math.min(1000, entries.length / 2);
+        for (int i = 0; i < samples; i++) {
+            if (entries[i * 2 + 1] != 0)
+                used++;
+        }
+        return used * 1000 / samples;
+    }
+}
@@ -0,0 +1,36 @@
+package chatzis.nikolas.chess.search;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Batch evaluation with the vector api: every lane is one position, the values of one piece slot
+ * of all lanes are gathered from the table at once. Only loaded if the module jdk.incubator.vector is added.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+class VectorBatchEvaluator extends BatchEvaluator {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    VectorBatchEvaluator(PieceSquareEvaluator evaluator) {
+        super(evaluator);
+    }
+
+    @Override
+    public void evaluate(PositionBatch batch, int[] scores) {
+        int[][] features = batch.getFeatures();
+        int[] signs = batch.getSigns();
+        int slots = batch.getUsedSlots();
+        int upperBound = SPECIES.loopBound(batch.size());
+
+        int i = 0;
+        for (; i < upperBound; i += SPECIES.length()) {
+            IntVector score = IntVector.zero(SPECIES);
+            for (int slot = 0; slot < slots; slot++)
+                score = score.add(IntVector.fromArray(SPECIES, table, 0, features[slot], i));
+            score.mul(IntVector.fromArray(SPECIES, signs, i)).intoArray(scores, i);
+        }
+        evaluateScalar(batch, scores, i);
+    }
+}
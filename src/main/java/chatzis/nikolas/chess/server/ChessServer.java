@@ -0,0 +1,393 @@
+package chatzis.nikolas.chess.server;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.game.GameStatus;
+import chatzis.nikolas.chess.move.Move;
+import chatzis.nikolas.chess.move.MoveCache;
+import chatzis.nikolas.chess.search.AnalysisStore;
+import chatzis.nikolas.chess.search.PieceSquareEvaluator;
+import chatzis.nikolas.chess.search.Search;
+import chatzis.nikolas.chess.search.SearchLimits;
+import chatzis.nikolas.chess.search.SearchResult;
+import chatzis.nikolas.chess.search.TranspositionTable;
+import chatzis.nikolas.chess.tournament.OpeningSuite;
+import chatzis.nikolas.chess.utils.FieldNameConverter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Headless HTTP service of the rules and the search, built on the http server of the JDK.
+ * Boards are passed as Forsyth-Edwards Notation in the order of {@link Board#createNewBoard(String)},
+ * moves as from and to field, e.g. "e2e4". Parameters are read from the query and from url encoded POST bodies.
+ * <ul>
+ *     <li>/moves?fen= - all legal moves</li>
+ *     <li>/move?fen=&amp;move= - makes the move and returns the new board</li>
+ *     <li>/status?fen= - check, checkmate, stalemate, insufficient_material or ongoing</li>
+ *     <li>/bestmove?fen=&amp;depth= - the best move found at the depth, answered from the {@link AnalysisStore}
+ *     if the position was already searched at least as deep</li>
+ *     <li>/batch - POST with at most {@value #MAX_BATCH_REQUESTS} requests, one per line, e.g. "moves?fen=...",
+ *     answered in parallel as one array</li>
+ * </ul>
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class ChessServer {
+
+    private static final int DEFAULT_DEPTH = 4;
+    private static final int MAX_DEPTH = 6;
+    private static final int MAX_BATCH_REQUESTS = 1000;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ExecutorService batchExecutor; // bounded, so one batch cannot start a thread per line
+    private final Semaphore searchPermits; // every running search holds a table, so they are limited to the cores
+    private final Queue<Search> searches;
+    private final AnalysisStore store;
+
+    /**
+     * Instantiates the server without a store, which is not started yet.
+     * @param port int - the port to listen on (0 for any free port)
+     * @throws IOException - if the port cannot be bound
+     */
+    public ChessServer(int port) throws IOException {
+        this(port, null);
+    }
+
+    /**
+     * Instantiates the server, which is not started yet.
+     * @param port int - the port to listen on (0 for any free port)
+     * @param store {@link AnalysisStore} - keeps the searched positions across restarts (nullable)
+     * @throws IOException - if the port cannot be bound
+     */
+    public ChessServer(int port, AnalysisStore store) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = createExecutor();
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.batchExecutor = Executors.newFixedThreadPool(cores);
+        this.searchPermits = new Semaphore(cores);
+        this.searches = new ConcurrentLinkedQueue<>();
+        this.store = store;
+        server.setExecutor(executor);
+        for (String endpoint : new String[]{"moves", "move", "status", "bestmove"}) {
+            server.createContext("/" + endpoint, exchange -> {
+                Map<String, String> parameters = readParameters(exchange);
+                try {
+                    respond(exchange, 200, handle(endpoint, parameters, new HashMap<>()));
+                } catch (RuntimeException exception) {
+                    respond(exchange, 400, error(exception));
+                }
+            });
+        }
+        server.createContext("/batch", this::handleBatch);
+    }
+
+    /**
+     * Creates an executor with one virtual thread per task, if the running Java version has virtual threads,
+     * else a fixed pool with one thread per core.
+     * @return ExecutorService - the executor
+     */
+    static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException exception) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server and waits at most one second for running requests.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdownNow();
+        batchExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     * @return int - the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Answers one request.
+     * @param endpoint String - the endpoint without slash
+     * @param parameters Map<String, String> - the decoded parameters
+     * @param boards Map<String, Board> - boards by their notation, shared by the requests of one batch
+     * @return Json - the answer
+     * @throws IllegalArgumentException - if the endpoint, the notation or a parameter is invalid
+     */
+    private Json handle(String endpoint, Map<String, String> parameters, Map<String, Board> boards) {
+        String fen = parameters.get("fen");
+        Board board = fen == null ? Board.createNewBoard() : boards.computeIfAbsent(fen, ChessServer::parseBoard);
+        Json json = new Json();
+        switch (endpoint) {
+            case "moves" -> writeMoves(board, json);
+            case "move" -> writeMove(board, parameters.get("move"), json);
+            case "status" -> writeStatus(board, json);
+            case "bestmove" -> writeBestMove(board, parameters.get("depth"), json);
+            default -> throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+        }
+        return json;
+    }
+
+    /**
+     * Creates the board of the notation.
+     * @param fen String - the Forsyth-Edwards Notation
+     * @return Board - the board
+     * @throws IllegalArgumentException - if the notation is invalid
+     */
+    private static Board parseBoard(String fen) {
+        try {
+            return Board.createNewBoard(fen);
+        } catch (RuntimeException exception) {
+            throw new IllegalArgumentException("Invalid notation " + fen, exception);
+        }
+    }
+
+    private static Json error(RuntimeException exception) {
+        return new Json().beginObject().name("error").value(String.valueOf(exception.getMessage())).endObject();
+    }
+
+    private void writeMoves(Board board, Json json) {
+        json.beginObject().name("fen").value(board.toFen()).name("moves").beginArray();
+        for (short move : board.getLegalMoves())
+            json.value(FieldNameConverter.fromFieldNumber(Move.packedFrom(move)), FieldNameConverter.fromFieldNumber(Move.packedTo(move)));
+        json.endArray().endObject();
+    }
+
+    private void writeMove(Board board, String move, Json json) {
+        if (move == null)
+            throw new IllegalArgumentException("Parameter move is missing");
+        Board moved = board.makeMove(OpeningSuite.parseMove(board, move));
+        json.beginObject().name("move").value(move).name("fen").value(moved.toFen()).endObject();
+    }
+
+    private void writeStatus(Board board, Json json) {
+        GameStatus gameStatus = board.getStatus();
+        boolean check = !board.kingIsNotChecked(board.getCurrentPlayer());
+        String status = gameStatus == GameStatus.ONGOING && check ? "check" : gameStatus.name().toLowerCase(Locale.ROOT);
+        json.beginObject().name("status").value(status).name("check").value(check)
+                .name("halfMoveClock").value(board.getHalfMoveClock()).name("fullMoveNumber").value(board.getFullMoveNumber())
+                .endObject();
+    }
+
+    private void writeBestMove(Board board, String depthParameter, Json json) {
+        int depth = depthParameter == null ? DEFAULT_DEPTH : Integer.parseInt(depthParameter);
+        if (depth < 1 || depth > MAX_DEPTH)
+            throw new IllegalArgumentException("Depth must be between 1 and " + MAX_DEPTH);
+
+        if (store != null) {
+            AnalysisStore.Entry entry = store.get(board.getHash());
+            if (entry != null && entry.getDepth() >= depth && isLegal(board, entry.getMove())) {
+                json.beginObject().name("move");
+                if (entry.getMove() == 0)
+                    json.value((String) null);
+                else
+                    json.value(FieldNameConverter.fromFieldNumber(Move.packedFrom(entry.getMove())), FieldNameConverter.fromFieldNumber(Move.packedTo(entry.getMove())));
+                json.name("score").value(entry.getScore()).name("mate").value(entry.isMate()).name("depth").value(entry.getDepth())
+                        .name("nodes").value(entry.getNodes()).name("pv").beginArray();
+                if (entry.getMove() != 0)
+                    json.value(FieldNameConverter.fromFieldNumber(Move.packedFrom(entry.getMove())), FieldNameConverter.fromFieldNumber(Move.packedTo(entry.getMove())));
+                json.endArray().name("stored").value(true).endObject();
+                return;
+            }
+        }
+
+        SearchResult result;
+        searchPermits.acquireUninterruptibly();
+        try {
+            Search search = searches.poll();
+            if (search == null)
+                search = new Search(new PieceSquareEvaluator(), new TranspositionTable(16));
+            try {
+                result = search.search(board, null, SearchLimits.depth(depth));
+            } finally {
+                searches.offer(search);
+            }
+        } finally {
+            searchPermits.release();
+        }
+        if (store != null) {
+            Move best = result.getBestMove();
+            try {
+                store.put(board.getHash(), best == null ? 0 : Move.pack(best.from(), best.to()), result.getScore(), result.getDepth(), result.getNodes());
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        json.beginObject().name("move");
+        if (result.getBestMove() == null)
+            json.value((String) null);
+        else
+            json.value(FieldNameConverter.fromFieldNumber(result.getBestMove().from()), FieldNameConverter.fromFieldNumber(result.getBestMove().to()));
+        json.name("score").value(result.getScore()).name("mate").value(result.isMate()).name("depth").value(result.getDepth())
+                .name("nodes").value(result.getNodes()).name("pv").beginArray();
+        for (Move move : result.getPrincipalVariation())
+            json.value(FieldNameConverter.fromFieldNumber(move.from()), FieldNameConverter.fromFieldNumber(move.to()));
+        json.endArray().name("stored").value(false).endObject();
+    }
+
+    /**
+     * Checks a stored move against the board, so a colliding key never answers with an illegal move.
+     * @param board Board - the board
+     * @param move short - the packed move or 0 if the stored position had no legal move
+     * @return boolean - the move is legal or both have no legal move
+     */
+    private static boolean isLegal(Board board, short move) {
+        short[] legalMoves = board.getLegalMoves();
+        if (move == 0)
+            return legalMoves.length == 0;
+        for (short legalMove : legalMoves) {
+            if (legalMove == move)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Answers every line of the body as own request. The requests run in parallel on a pool with one thread per core,
+     * boards with the same notation are only created once, so their moves are only generated once.
+     * @param exchange HttpExchange - the exchange
+     * @throws IOException - if the exchange fails
+     */
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        String body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isBlank())
+                lines.add(line);
+        }
+        if (lines.size() > MAX_BATCH_REQUESTS) {
+            respond(exchange, 400, new Json().beginObject().name("error")
+                    .value("Batch has " + lines.size() + " requests, at most " + MAX_BATCH_REQUESTS + " are allowed").endObject());
+            return;
+        }
+
+        Map<String, Board> boards = new ConcurrentHashMap<>();
+        List<Future<String>> results = new ArrayList<>();
+        for (String line : lines) {
+            int query = line.indexOf('?');
+            String endpoint = (query < 0 ? line : line.substring(0, query)).trim().replaceFirst("^/", "");
+            Map<String, String> parameters = parseParameters(query < 0 ? "" : line.substring(query + 1).trim());
+            results.add(batchExecutor.submit(() -> {
+                try {
+                    return handle(endpoint, parameters, boards).toString();
+                } catch (RuntimeException exception) {
+                    return error(exception).toString();
+                }
+            }));
+        }
+
+        Json json = new Json().beginArray();
+        try {
+            for (Future<String> result : results)
+                json.raw(result.get());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, new Json().beginObject().name("error").value("Interrupted").endObject());
+            return;
+        } catch (ExecutionException exception) {
+            respond(exchange, 500, new Json().beginObject().name("error").value(String.valueOf(exception.getCause())).endObject());
+            return;
+        }
+        respond(exchange, 200, json.endArray());
+    }
+
+    private static Map<String, String> readParameters(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = parseParameters(exchange.getRequestURI().getRawQuery());
+        if ("POST".equals(exchange.getRequestMethod())) {
+            try (InputStream in = exchange.getRequestBody()) {
+                parameters.putAll(parseParameters(new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+            }
+        }
+        return parameters;
+    }
+
+    private static Map<String, String> parseParameters(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null || query.isEmpty())
+            return parameters;
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0)
+                parameters.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static void respond(HttpExchange exchange, int status, Json json) throws IOException {
+        byte[] bytes = json.toBytes();
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Starts the server.
+     * Arguments: [port] [--store directory], the port defaults to 8080
+     * @param args String[] - the arguments
+     * @throws IOException - if the port cannot be bound or the store cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        AnalysisStore store = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--store"))
+                store = new AnalysisStore(Path.of(args[++i]));
+            else
+                port = Integer.parseInt(args[i]);
+        }
+        if (store != null) {
+            AnalysisStore closing = store;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    closing.close();
+                } catch (IOException exception) {
+                    exception.printStackTrace();
+                }
+            }));
+        }
+
+        Board.setMoveCache(new MoveCache(100_000, 32L << 20));
+        ChessServer server = new ChessServer(port, store);
+        server.start();
+        System.out.println("Listening on port " + server.getPort());
+    }
+}
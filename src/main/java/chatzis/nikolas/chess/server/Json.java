@@ -0,0 +1,154 @@
+package chatzis.nikolas.chess.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal streaming JSON writer, which writes directly into one buffer without building a tree.
+ * Commas between values are inserted automatically.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class Json {
+
+    private final StringBuilder builder;
+    private boolean[] first; // per nesting level: no value was written yet
+    private int level;
+
+    /**
+     * Instantiates an empty writer.
+     */
+    public Json() {
+        this.builder = new StringBuilder(256);
+        this.first = new boolean[8];
+        this.first[0] = true;
+    }
+
+    public Json beginObject() {
+        return begin('{');
+    }
+
+    public Json endObject() {
+        return end('}');
+    }
+
+    public Json beginArray() {
+        return begin('[');
+    }
+
+    public Json endArray() {
+        return end(']');
+    }
+
+    /**
+     * Writes the name of the next value of an object.
+     * @param name String - the name
+     * @return Json - this writer
+     */
+    public Json name(String name) {
+        separate();
+        quote(name);
+        builder.append(':');
+        first[level] = true; // the value follows without a comma
+        return this;
+    }
+
+    public Json value(String value) {
+        separate();
+        if (value == null)
+            builder.append("null");
+        else
+            quote(value);
+        return this;
+    }
+
+    public Json value(long value) {
+        separate();
+        builder.append(value);
+        return this;
+    }
+
+    public Json value(boolean value) {
+        separate();
+        builder.append(value);
+        return this;
+    }
+
+    /**
+     * Writes an already serialized value.
+     * @param json CharSequence - valid JSON
+     * @return Json - this writer
+     */
+    public Json raw(CharSequence json) {
+        separate();
+        builder.append(json);
+        return this;
+    }
+
+    /**
+     * Writes a quoted string of the two field names of a move, e.g. "e2e4".
+     * @param from char[] - the from-field name
+     * @param to char[] - the to-field name
+     * @return Json - this writer
+     */
+    public Json value(char[] from, char[] to) {
+        separate();
+        builder.append('"').append(from).append(to).append('"');
+        return this;
+    }
+
+    private Json begin(char bracket) {
+        separate();
+        builder.append(bracket);
+        if (++level == first.length)
+            first = Arrays.copyOf(first, level * 2);
+        first[level] = true;
+        return this;
+    }
+
+    private Json end(char bracket) {
+        builder.append(bracket);
+        level--;
+        return this;
+    }
+
+    private void separate() {
+        if (!first[level])
+            builder.append(',');
+        first[level] = false;
+    }
+
+    private void quote(String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> builder.append("\\\"");
+                case '\\' -> builder.append("\\\\");
+                case '\n' -> builder.append("\\n");
+                case '\r' -> builder.append("\\r");
+                case '\t' -> builder.append("\\t");
+                default -> {
+                    if (c < 0x20)
+                        builder.append(String.format("\\u%04x", (int) c));
+                    else
+                        builder.append(c);
+                }
+            }
+        }
+        builder.append('"');
+    }
+
+    /**
+     * Returns the written JSON encoded as UTF-8.
+     * @return byte[] - the bytes
+     */
+    public byte[] toBytes() {
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return builder.toString();
+    }
+}
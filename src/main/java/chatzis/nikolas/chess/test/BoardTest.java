@@ -1,10 +1,68 @@
 package chatzis.nikolas.chess.test;
 
 import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.game.GameStatus;
+import chatzis.nikolas.chess.game.MovePicker;
+import chatzis.nikolas.chess.game.Player;
+import chatzis.nikolas.chess.game.PositionHistory;
+import chatzis.nikolas.chess.metrics.Metrics;
+import chatzis.nikolas.chess.move.Move;
+import chatzis.nikolas.chess.move.MoveCache;
+import chatzis.nikolas.chess.move.MoveValidator;
+import chatzis.nikolas.chess.move.ValidationResult;
+import chatzis.nikolas.chess.nnue.Network;
+import chatzis.nikolas.chess.nnue.NnueEvaluator;
+import chatzis.nikolas.chess.perft.Perft;
+import chatzis.nikolas.chess.pieces.Pawn;
+import chatzis.nikolas.chess.search.AnalysisStore;
+import chatzis.nikolas.chess.search.BatchEvaluator;
+import chatzis.nikolas.chess.search.MateResult;
+import chatzis.nikolas.chess.search.MateSolver;
+import chatzis.nikolas.chess.search.PieceSquareEvaluator;
+import chatzis.nikolas.chess.search.PositionBatch;
+import chatzis.nikolas.chess.search.ProofTable;
+import chatzis.nikolas.chess.search.Search;
+import chatzis.nikolas.chess.search.SearchBenchmark;
+import chatzis.nikolas.chess.search.SearchLimits;
+import chatzis.nikolas.chess.search.SearchResult;
+import chatzis.nikolas.chess.search.TranspositionTable;
+import chatzis.nikolas.chess.server.ChessServer;
+import chatzis.nikolas.chess.tournament.OpeningSuite;
+import chatzis.nikolas.chess.tournament.Pgn;
+import chatzis.nikolas.chess.tournament.Sprt;
+import chatzis.nikolas.chess.tournament.TournamentRunner;
+import chatzis.nikolas.chess.tuning.Tuner;
+import chatzis.nikolas.chess.tuning.TuningSet;
 import chatzis.nikolas.chess.utils.BoardUtils;
 import chatzis.nikolas.chess.utils.FieldNameConverter;
+import chatzis.nikolas.chess.utils.Mailbox;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -17,11 +75,675 @@ public class BoardTest {
     @Test
     void rochadeNormal() {
         Board board = Board.createNewBoard("R3K2R/PPPPPPPP/8/8/8/8/pppppppp/r3k2r w KQkq - 0 1");
-        assertEquals("[c1,d1,f1,g1]", FieldNameConverter.fromFieldNumbers(board.getPieceOnBoard(4).getMoves(board)));
-        assertEquals("[c8,d8,f8,g8]", FieldNameConverter.fromFieldNumbers(board.getPieceOnBoard(60).getMoves(board)));
+        assertEquals("[c1,d1,f1,g1]", FieldNameConverter.fromFieldNumbers(board.getMoves((byte) 4)));
+        assertEquals("[c8,d8,f8,g8]", FieldNameConverter.fromFieldNumbers(board.getMoves((byte) 60)));
+
+        //assertTrue(board.makeMove(board.getMoves((byte) 4).get(2)).getPieceOnBoard(3) instanceof Rook);
+        //assertTrue(board.makeMove(board.getMoves((byte) 4).get(3)).getPieceOnBoard(5) instanceof Rook);
+    }
+
+    @Test
+    void sharedPieces() {
+        Board board = Board.createNewBoard();
+        Board moved = board.makeMove(board.getMove((byte) 12, (byte) 28));
+        assertSame(board.getPieceOnBoard(12), moved.getPieceOnBoard(28));
+        assertSame(Pawn.WHITE, board.getPieceOnBoard(12));
+        assertNull(moved.getPieceOnBoard(12));
+        assertEquals("[e3,e4]", FieldNameConverter.fromFieldNumbers(board.getMoves((byte) 12)));
+    }
+
+    @Test
+    void incrementalMoves() {
+        Metrics.reset();
+        Metrics.setEnabled(true);
+        try {
+            Board board = Board.createNewBoard();
+            for (int[] move : new int[][]{{11, 27}, {52, 44}, {1, 18}, {61, 25}}) {
+                board.getLegalMoves();
+                board = board.makeMove(board.getMove((byte) move[0], (byte) move[1]));
+            }
+            // the knight on c3 is pinned by the bishop, although the bishop is not one of its targets
+            assertTrue(board.getMoves((byte) 18).isEmpty());
+            assertEquals(Set.of((byte) 20, (byte) 28), board.getMoves((byte) 12));
+            assertTrue(Metrics.get(Metrics.Counter.REUSED_PIECE_MOVES) > 0);
+        } finally {
+            Metrics.setEnabled(false);
+        }
+    }
+
+    @Test
+    void metrics() {
+        Metrics.reset();
+        Metrics.increment(Metrics.Counter.SEARCH_NODES);
+        assertEquals(0, Metrics.get(Metrics.Counter.SEARCH_NODES)); // disabled by default
+
+        Metrics.setEnabled(true);
+        try {
+            Metrics.increment(Metrics.Counter.SEARCH_NODES);
+            Metrics.add(Metrics.Counter.SEARCH_NODES, 41);
+            assertEquals(197281, new Perft().perft(Board.createNewBoard(), 4));
+            assertEquals(42, Metrics.get(Metrics.Counter.SEARCH_NODES));
+            assertEquals(197281, Metrics.get(Metrics.Counter.PERFT_NODES));
+            assertTrue(Metrics.get(Metrics.Counter.MAKE_MOVE) > 0);
+
+            Map<Metrics.Counter, Long> snapshot = Metrics.snapshot();
+            assertEquals(Metrics.Counter.values().length, snapshot.size());
+            assertEquals(42, snapshot.get(Metrics.Counter.SEARCH_NODES));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Metrics.dump(new PrintStream(out, true, StandardCharsets.UTF_8));
+            List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+            assertEquals(Metrics.Counter.values().length, lines.size());
+            assertTrue(lines.contains("search_nodes 42"));
+            assertTrue(lines.contains("perft_nodes 197281"));
+        } finally {
+            Metrics.setEnabled(false);
+            Metrics.reset();
+        }
+        assertEquals(0, Metrics.get(Metrics.Counter.SEARCH_NODES));
+    }
+
+    @Test
+    void fen() {
+        Board board = Board.createNewBoard();
+        assertEquals("RNBQKBNR/PPPPPPPP/8/8/8/8/pppppppp/rnbqkbnr w KQkq - 0 1", board.toFen());
+        board = board.makeMove(board.getMove((byte) 12, (byte) 28));
+        assertEquals("RNBQKBNR/PPPP1PPP/8/4P3/8/8/pppppppp/rnbqkbnr b KQkq e3 0 1", board.toFen());
+        assertEquals(board.toFen(), Board.createNewBoard(board.toFen()).toFen());
+        assertEquals(board.getHash(), Board.createNewBoard(board.toFen()).getHash());
+    }
+
+    @Test
+    void hashAfter() {
+        Random random = new Random(7);
+        for (String fen : new String[]{"RNBQKBNR/PPPPPPPP/8/8/8/8/pppppppp/rnbqkbnr w KQkq - 0 1",
+                "R3K2R/8/8/8/8/8/8/r3k2r w KQkq - 0 1", "4K3/8/8/8/3Pp3/8/8/4k3 w - e6 0 1"}) {
+            Board board = Board.createNewBoard(fen);
+            for (int ply = 0; ply < 60 && board.getLegalMoves().length > 0; ply++) {
+                short[] moves = board.getLegalMoves();
+                for (short move : moves) {
+                    Board child = board.makeMove(board.getMove(Move.packedFrom(move), Move.packedTo(move)));
+                    assertEquals(child.getHash(), board.getHashAfter(move), board.toFen() + " " + move);
+                }
+                short move = moves[random.nextInt(moves.length)];
+                board = board.makeMove(board.getMove(Move.packedFrom(move), Move.packedTo(move)));
+            }
+        }
+    }
 
-        //assertTrue(board.makeMove(board.getPieceOnBoard(4).getMoves(board).get(2)).getPieceOnBoard(3) instanceof Rook);
-        //assertTrue(board.makeMove(board.getPieceOnBoard(4).getMoves(board).get(3)).getPieceOnBoard(5) instanceof Rook);
+    @Test
+    void batchValidation() {
+        String start = Board.createNewBoard().toFen();
+        List<Map.Entry<String, String>> pairs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            pairs.add(Map.entry(start, "e2e4"));
+            pairs.add(Map.entry(start, "e2e5"));
+            pairs.add(Map.entry(start, "e7e5"));
+            pairs.add(Map.entry(start, "e3e4"));
+            pairs.add(Map.entry(start, "e9"));
+            pairs.add(Map.entry("invalid", "e2e4"));
+        }
+        try (MoveValidator validator = new MoveValidator(4, 64)) {
+            ValidationResult result = validator.validate(pairs.stream());
+            assertEquals(6000, result.size());
+            assertEquals(1000, result.getLegalCount());
+            assertTrue(result.isLegal(5994));
+            assertEquals(ValidationResult.Reason.ILLEGAL_MOVE, result.getReason(5995));
+            assertEquals(ValidationResult.Reason.NOT_CURRENT_PLAYER, result.getReason(5996));
+            assertEquals(ValidationResult.Reason.NO_PIECE, result.getReason(5997));
+            assertEquals(ValidationResult.Reason.INVALID_MOVE, result.getReason(5998));
+            assertEquals(ValidationResult.Reason.INVALID_POSITION, result.getReason(5999));
+        }
+    }
+
+    @Test
+    void nnue() throws IOException {
+        Network network = Network.random(3, 32, 8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        network.write(out);
+        assertEquals(network, Network.read(new ByteArrayInputStream(out.toByteArray())));
+
+        Board.setNetwork(network);
+        try {
+            // castling and en passant move a second piece
+            Board castled = Board.createNewBoard("R3K2R/PPPBBPPP/2N2Q1p/1p2P3/3PN3/bn2pnp1/p1ppqpb1/r3k2r w KQkq - 0 1");
+            castled = castled.makeMove(castled.getMove((byte) 4, (byte) 6));
+            assertArrayEquals(network.refresh(castled).getValues(), castled.getAccumulator(network).getValues());
+            Board passant = Board.createNewBoard();
+            for (String move : new String[]{"e2e4", "a7a6", "e4e5", "d7d5", "e5d6"}) {
+                passant = passant.makeMove(passant.getMove(FieldNameConverter.fromFieldName(move.substring(0, 2)),
+                        FieldNameConverter.fromFieldName(move.substring(2))));
+            }
+            assertNull(passant.getPieceOnBoard(FieldNameConverter.fromFieldName("d5")));
+            assertArrayEquals(network.refresh(passant).getValues(), passant.getAccumulator(network).getValues());
+
+            Random random = new Random(11);
+            for (int game = 0; game < 20; game++) {
+                Board board = Board.createNewBoard(SearchBenchmark.SUITE.get(game % SearchBenchmark.SUITE.size()));
+                for (int ply = 0; ply < 80 && board.getLegalMoves().length > 0; ply++) {
+                    short[] moves = board.getLegalMoves();
+                    short move = moves[random.nextInt(moves.length)];
+                    board = ply % 7 == 6 && board.kingIsNotChecked(board.getCurrentPlayer()) ? board.makeNullMove() :
+                            board.makeMove(board.getMove(Move.packedFrom(move), Move.packedTo(move)));
+                    assertArrayEquals(network.refresh(board).getValues(), board.getAccumulator(network).getValues());
+                    assertEquals(network.evaluate(network.refresh(board), board.getCurrentPlayer()), network.evaluate(board));
+                }
+            }
+
+            SearchResult result = new Search(new NnueEvaluator(network), new TranspositionTable(1))
+                    .search(Board.createNewBoard(), null, SearchLimits.depth(3));
+            assertNotNull(result.getBestMove());
+        } finally {
+            Board.setNetwork(null);
+        }
+    }
+
+    @Test
+    void analysisStore() throws IOException {
+        Path directory = Files.createTempDirectory("analysis");
+        short move = Move.pack(12, 28);
+        try (AnalysisStore store = new AnalysisStore(directory, 8)) {
+            assertNull(store.get(1));
+            assertTrue(store.put(1, move, 25, 4, 1000));
+            assertTrue(store.put(1, move, 30, 6, 5000));
+            assertFalse(store.put(1, (short) 0, 0, 5, 10)); // a shallower result is ignored
+            assertEquals(6, store.get(1).getDepth());
+            for (long key = 2; key <= 20; key++) // fills the journal twice
+                assertTrue(store.put(key, move, (int) key, 3, key * 100));
+            assertEquals(20, store.size());
+            assertEquals(2, store.getGeneration());
+            assertTrue(store.put(5, (short) 0, -30000 + 3, 7, 50)); // replaces an entry of the table
+        }
+
+        try (AnalysisStore store = new AnalysisStore(directory, 8)) {
+            assertEquals(20, store.size());
+            AnalysisStore.Entry entry = store.get(1);
+            assertEquals(move, entry.getMove());
+            assertEquals(30, entry.getScore());
+            assertEquals(6, entry.getDepth());
+            assertEquals(5000, entry.getNodes());
+            assertEquals(7, store.get(5).getDepth());
+            assertTrue(store.get(5).isMate());
+            assertEquals(1700, store.get(17).getNodes());
+            store.put(21, move, 0, 1, 1);
+            store.put(22, move, 0, 1, 1);
+        }
+
+        // a crash tore the last record (the eighth of the journal), an unfinished compaction left a temporary table
+        Path journal = directory.resolve("analysis-2.journal");
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), 32 + 7 * 32 + 8);
+        }
+        Files.write(directory.resolve("analysis-3.table.tmp"), new byte[100]);
+        try (AnalysisStore store = new AnalysisStore(directory, 8)) {
+            assertNotNull(store.get(21));
+            assertNull(store.get(22));
+            assertEquals(21, store.size());
+            assertTrue(store.put(22, move, 0, 1, 1));
+            store.compact();
+        }
+        try (AnalysisStore store = new AnalysisStore(directory, 8)) {
+            assertEquals(22, store.size());
+            assertEquals(3, store.getGeneration());
+            assertNotNull(store.get(22));
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of("analysis-3.journal", "analysis-3.table"), files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+        Files.delete(directory.resolve("analysis-3.journal"));
+        Files.delete(directory.resolve("analysis-3.table"));
+        Files.delete(directory);
+    }
+
+    @Test
+    void sprt() {
+        Sprt sprt = new Sprt(0, 10, 0.05, 0.05);
+        assertEquals(-2.9444, sprt.getLowerBound(), 1e-4);
+        assertEquals(2.9444, sprt.getUpperBound(), 1e-4);
+        assertEquals(1.7337, sprt.logLikelihoodRatio(60, 20, 20), 1e-4);
+        assertEquals(Sprt.Result.CONTINUE, sprt.test(60, 20, 20));
+        assertEquals(17.337, sprt.logLikelihoodRatio(600, 200, 200), 1e-3);
+        assertEquals(Sprt.Result.H1_ACCEPTED, sprt.test(600, 200, 200));
+        assertEquals(-6.8997, sprt.logLikelihoodRatio(3000, 4000, 3000), 1e-4);
+        assertEquals(Sprt.Result.H0_ACCEPTED, sprt.test(3000, 4000, 3000));
+        assertEquals(0, sprt.logLikelihoodRatio(0, 0, 0));
+
+        assertEquals(0.5, Sprt.expectedScore(0), 1e-9);
+        assertEquals(0.5144, Sprt.expectedScore(10), 1e-4);
+        assertEquals(100, Sprt.elo(Sprt.expectedScore(100)), 1e-9);
+        double[] elo = Sprt.estimateElo(60, 20, 20); // score 0.7 with a deviation of 0.04
+        assertEquals(147.19, elo[0], 1e-2);
+        assertEquals(66.01, elo[1], 1e-2);
+        assertEquals(0, Sprt.estimateElo(30, 40, 30)[0], 1e-9);
+        assertEquals(Double.POSITIVE_INFINITY, Sprt.estimateElo(0, 0, 0)[1]);
+    }
+
+    @Test
+    void pgn() {
+        Board board = Board.createNewBoard("RN2KN2/8/8/8/R7/8/8/7k w - - 0 1");
+        assertEquals("Nbd2", Pgn.toSan(board, move(board, "b1d2")));
+        assertEquals("Nfd2", Pgn.toSan(board, move(board, "f1d2")));
+        assertEquals("R1a3", Pgn.toSan(board, move(board, "a1a3")));
+        assertEquals("R5a3", Pgn.toSan(board, move(board, "a5a3")));
+        assertEquals("Ra8+", Pgn.toSan(board, move(board, "a5a8")));
+        assertEquals("Kd1", Pgn.toSan(board, move(board, "e1d1")));
+        Board backRank = Board.createNewBoard("R3K3/8/8/8/8/8/6pp/7k w - - 0 1");
+        assertEquals("Ra8#", Pgn.toSan(backRank, move(backRank, "a1a8")));
+        Board start = Board.createNewBoard();
+        assertEquals("e4", Pgn.toSan(start, move(start, "e2e4")));
+
+        String game = Pgn.write(Map.of("Result", "1-0"), List.of("e4", "e5", "Qh5"), "1-0");
+        assertEquals("[Result \"1-0\"]\n\n1. e4 e5 2. Qh5 1-0\n\n", game);
+    }
+
+    @Test
+    void adjudication() throws Exception {
+        // the fixed-node search of black finds the mate after the opening
+        TournamentRunner runner = new TournamentRunner(Search::new, Search::new, SearchLimits.nodes(2000),
+                new OpeningSuite(List.of("f2f3 e7e5 g2g4")), 1, null);
+        StringWriter pgn = new StringWriter();
+        TournamentRunner.Summary summary = runner.run(1, pgn);
+        assertEquals(1, summary.getLosses());
+        assertTrue(pgn.toString().contains("1. f3 e5 2. g4 Qh4# 0-1"), pgn.toString());
+        assertTrue(pgn.toString().contains("[Termination \"checkmate\"]"));
+
+        Board stalemate = Board.createNewBoard("8/8/8/8/8/1QK5/8/k7 b - - 0 1");
+        assertArrayEquals(new String[]{"1/2-1/2", "stalemate"}, TournamentRunner.adjudicate(stalemate, history(stalemate), 0));
+
+        Board fiftyMoves = Board.createNewBoard("RN2KN2/8/8/8/R7/8/8/7k w - - 100 80");
+        assertArrayEquals(new String[]{"1/2-1/2", "fifty-move rule"}, TournamentRunner.adjudicate(fiftyMoves, history(fiftyMoves), 0));
+        Board notYet = Board.createNewBoard("RN2KN2/8/8/8/R7/8/8/7k w - - 99 80");
+        assertNull(TournamentRunner.adjudicate(notYet, history(notYet), 0));
+
+        Board board = Board.createNewBoard();
+        PositionHistory history = history(board);
+        for (int i = 0; i < 8; i++) {
+            assertNull(TournamentRunner.adjudicate(board, history, i));
+            board = board.makeMove(move(board, new String[]{"g1f3", "g8f6", "f3g1", "f6g8"}[i % 4]));
+            history.push(board);
+        }
+        assertArrayEquals(new String[]{"1/2-1/2", "threefold repetition"}, TournamentRunner.adjudicate(board, history, 8));
+    }
+
+    private static Move move(Board board, String move) {
+        return OpeningSuite.parseMove(board, move);
+    }
+
+    private static PositionHistory history(Board board) {
+        PositionHistory history = new PositionHistory();
+        history.push(board);
+        return history;
+    }
+
+    @Test
+    void chessServer() throws Exception {
+        ChessServer server = new ChessServer(0);
+        server.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            String url = "http://localhost:" + server.getPort();
+            String start = Board.createNewBoard().toFen();
+
+            HttpResponse<String> response = get(client, url + "/moves?fen=" + URLEncoder.encode(start, StandardCharsets.UTF_8));
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().startsWith("{\"fen\":\"" + start + "\",\"moves\":[\"b1a3\",\"b1c3\""), response.body());
+            assertEquals(20, response.body().split("\",\"").length - 1);
+
+            response = get(client, url + "/move?move=e2e4");
+            assertEquals(200, response.statusCode());
+            assertEquals("{\"move\":\"e2e4\",\"fen\":\"RNBQKBNR/PPPP1PPP/8/4P3/8/8/pppppppp/rnbqkbnr b KQkq e3 0 1\"}", response.body());
+            response = get(client, url + "/move?move=e2e5");
+            assertEquals(400, response.statusCode());
+            assertEquals("{\"error\":\"Move e2e5 is not legal\"}", response.body());
+
+            List<Board> foolsMate = OpeningSuite.play(new String[]{"f2f3", "e7e5", "g2g4", "d8h4"});
+            String mate = foolsMate.get(foolsMate.size() - 1).toFen();
+            response = get(client, url + "/status?fen=" + URLEncoder.encode(mate, StandardCharsets.UTF_8));
+            assertEquals("{\"status\":\"checkmate\",\"check\":true,\"halfMoveClock\":1,\"fullMoveNumber\":3}", response.body());
+            response = get(client, url + "/status?fen=bad");
+            assertEquals(400, response.statusCode());
+            assertEquals("{\"error\":\"Invalid notation bad\"}", response.body());
+
+            response = get(client, url + "/bestmove?depth=2");
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().matches("\\{\"move\":\"[a-h][1-8][a-h][1-8]\",\"score\":-?\\d+,\"mate\":false,\"depth\":2,.*"), response.body());
+            assertEquals(400, get(client, url + "/bestmove?depth=7").statusCode());
+
+            String batch = "moves\nstatus?fen=bad\n\nbestmove?depth=1\n";
+            response = client.send(HttpRequest.newBuilder(URI.create(url + "/batch")).POST(HttpRequest.BodyPublishers.ofString(batch)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            assertTrue(response.body().startsWith("[{\"fen\":\"" + start + "\""), response.body());
+            assertTrue(response.body().contains("},{\"error\":\"Invalid notation bad\"},{\"move\":"), response.body());
+
+            response = client.send(HttpRequest.newBuilder(URI.create(url + "/batch")).POST(HttpRequest.BodyPublishers.ofString("status\n".repeat(1001))).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode());
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static HttpResponse<String> get(HttpClient client, String url) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void batchEvaluation() {
+        PieceSquareEvaluator evaluator = new PieceSquareEvaluator();
+        PositionBatch batch = new PositionBatch(1003);
+        List<Board> boards = new ArrayList<>();
+        Random random = new Random(7);
+        while (boards.size() < batch.capacity()) {
+            Board board = Board.createNewBoard();
+            for (int ply = 0; ply < 60 && board.getLegalMoves().length > 0 && boards.size() < batch.capacity(); ply++) {
+                short[] moves = board.getLegalMoves();
+                short move = moves[random.nextInt(moves.length)];
+                board = board.makeMove(board.getMove(Move.packedFrom(move), Move.packedTo(move)));
+                boards.add(board);
+                batch.add(board);
+            }
+        }
+
+        int[] scores = new int[batch.size()];
+        BatchEvaluator batchEvaluator = BatchEvaluator.create(evaluator);
+        batchEvaluator.evaluate(batch, scores);
+        for (int i = 0; i < boards.size(); i++)
+            assertEquals(evaluator.evaluate(boards.get(i)), scores[i]);
+        assertEquals(boards.size(), batch.size());
+    }
+
+    @Test
+    void tuning() throws IOException {
+        // positions of random games, labelled by the side with more material
+        PieceSquareEvaluator evaluator = new PieceSquareEvaluator();
+        List<Board> boards = new ArrayList<>();
+        StringBuilder lines = new StringBuilder("# fen result\n");
+        Random random = new Random(48);
+        while (boards.size() < 2000) {
+            Board board = Board.createNewBoard();
+            for (int ply = 0; ply < 80 && board.getLegalMoves().length > 0; ply++) {
+                short[] moves = board.getLegalMoves();
+                short move = moves[random.nextInt(moves.length)];
+                board = board.makeMove(board.getMove(Move.packedFrom(move), Move.packedTo(move)));
+                int score = evaluator.evaluateWhite(board);
+                boards.add(board);
+                lines.append(board.toFen()).append(score > 50 ? " 1-0" : score < -50 ? " 0-1" : " [0.5]").append('\n');
+            }
+        }
+
+        TuningSet set = TuningSet.load(new StringReader(lines.toString()));
+        assertEquals(boards.size(), set.size());
+        Tuner tuner = new Tuner(set, PieceSquareEvaluator.getDefaultWeights());
+        double scaling = tuner.fitScaling();
+        // the compact arrays evaluate like the boards
+        double expected = 0;
+        for (int i = 0; i < boards.size(); i++) {
+            double difference = set.getResult(i) - 1 / (1 + Math.pow(10, -scaling * evaluator.evaluateWhite(boards.get(i)) / 400));
+            expected += difference * difference;
+        }
+        assertEquals(expected / boards.size(), tuner.error(), 1e-9);
+
+        double error = tuner.error();
+        for (int i = 0; i < 20; i++)
+            assertTrue(tuner.iterate() <= error + 1e-9);
+        assertTrue(tuner.error() < error);
+        assertTrue(tuner.getPositionsPerSecond() > 0);
+        assertEquals(PieceSquareEvaluator.WEIGHTS, new PieceSquareEvaluator(tuner.getWeights()).getWeights().length);
+        assertThrows(IllegalArgumentException.class, () -> set.add("8/8/8/8/8/8/8/8 w - - 0 1 2-0"));
+    }
+
+    @Test
+    void mateSolver() {
+        assertThrows(IllegalArgumentException.class, () -> new MateSolver(0, 1));
+        try (MateSolver solver = new MateSolver(16, 2)) {
+            MateResult result = solver.solve(Board.createNewBoard("7R/8/8/8/3K4/8/8/3k4 w - - 0 1"), 4, 0, 0);
+            assertTrue(result.isProven());
+            assertEquals(3, result.getMateIn());
+            assertEquals(5, result.getLine().size());
+
+            Board board = Board.createNewBoard("7R/8/8/8/3K4/8/8/3k4 w - - 0 1");
+            for (Move move : result.getLine())
+                board = board.makeMove(move);
+            assertEquals(0, board.getLegalMoves().length);
+            assertFalse(board.kingIsNotChecked(board.getCurrentPlayer()));
+
+            assertEquals(MateResult.Status.DISPROVEN, solver.solve(Board.createNewBoard(), 2, 0, 0).getStatus());
+        }
+    }
+
+    @Test
+    void proofTable() {
+        ProofTable table = new ProofTable(1);
+        table.store(2, 5, 7);
+        table.store(3, 11, 13); // the slot next to the first key
+        assertEquals(5, ProofTable.proofNumber(table.probe(2)));
+        assertEquals(7, ProofTable.disproofNumber(table.probe(2)));
+        assertEquals(11, ProofTable.proofNumber(table.probe(3)));
+        assertEquals(13, ProofTable.disproofNumber(table.probe(3)));
+        assertEquals(0, table.probe(4));
+    }
+
+    @Test
+    void transpositionTable() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(2, (short) 5, 7, 3, TranspositionTable.EXACT);
+        table.store(3, (short) 11, -13, 4, TranspositionTable.LOWER_BOUND); // the slot next to the first key
+        assertEquals(5, TranspositionTable.move(table.probe(2)));
+        assertEquals(7, TranspositionTable.score(table.probe(2)));
+        assertEquals(11, TranspositionTable.move(table.probe(3)));
+        assertEquals(-13, TranspositionTable.score(table.probe(3)));
+        assertEquals(4, TranspositionTable.depth(table.probe(3)));
+        assertEquals(0, table.probe(4));
+        assertEquals(5.0 / 6, table.getHitRate(), 1e-9);
+        table.clear();
+        assertEquals(0, table.getHitRate());
+    }
+
+    @Test
+    void multiPv() {
+        Board board = Board.createNewBoard("K2R4/8/8/3q4/8/8/8/7k w - - 0 1");
+        Search search = new Search();
+        List<List<SearchResult>> iterations = new ArrayList<>();
+        search.setLinesListener(iterations::add);
+        List<SearchResult> lines = search.searchLines(board, null, SearchLimits.depth(3), 3);
+
+        assertEquals(3, iterations.size());
+        assertSame(lines, iterations.get(2));
+        assertEquals(3, lines.size());
+        assertEquals(27, lines.get(0).getBestMove().to());
+        Set<Short> firstMoves = new HashSet<>();
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals(3, lines.get(i).getDepth());
+            assertTrue(firstMoves.add(Move.pack(lines.get(i).getBestMove().from(), lines.get(i).getBestMove().to())));
+            if (i > 0)
+                assertTrue(lines.get(i - 1).getScore() >= lines.get(i).getScore());
+        }
+        assertEquals(lines.get(0).getScore(), new Search().search(board, null, SearchLimits.depth(3)).getScore());
+        assertEquals(3, search.searchLines(Board.createNewBoard("K7/8/8/8/8/8/8/k7 w - - 0 1"), null, SearchLimits.depth(1), 5).size());
+    }
+
+    @Test
+    void selectiveSearch() {
+        Board board = Board.createNewBoard().makeMove(Board.createNewBoard().getMove((byte) 12, (byte) 28));
+        Board passed = board.makeNullMove();
+        assertEquals(Player.WHITE, passed.getCurrentPlayer());
+        assertEquals(-1, passed.getEnPassant());
+        assertEquals(Board.createNewBoard("RNBQKBNR/PPPP1PPP/8/4P3/8/8/pppppppp/rnbqkbnr w KQkq - 0 1").getHash(), passed.getHash());
+        assertEquals(board.getLegalMoves().length, passed.makeNullMove().getLegalMoves().length);
+
+        long nodes = SearchBenchmark.nodes(3, EnumSet.noneOf(Search.Option.class));
+        long selectiveNodes = SearchBenchmark.nodes(3, EnumSet.allOf(Search.Option.class));
+        assertTrue(selectiveNodes < nodes, selectiveNodes + " >= " + nodes);
+    }
+
+    @Test
+    void movePicker() {
+        Board board = Board.createNewBoard("R3K2R/PPPBBPPP/2N2Q1p/1p2P3/3PN3/bn2pnp1/p1ppqpb1/r3k2r w KQkq - 0 1");
+        short hashMove = Move.pack(4, 6);
+        short killer = Move.pack(0, 1);
+        MovePicker picker = new MovePicker(board, hashMove, killer, (short) 0, null);
+        assertEquals(hashMove, picker.next());
+        assertEquals(MovePicker.Stage.HASH_MOVE, picker.getStage());
+
+        Set<Short> moves = new HashSet<>(Set.of(hashMove));
+        List<MovePicker.Stage> stages = new ArrayList<>();
+        short move;
+        while ((move = picker.next()) != 0) {
+            assertTrue(moves.add(move));
+            if (stages.isEmpty() || stages.get(stages.size() - 1) != picker.getStage())
+                stages.add(picker.getStage());
+        }
+        assertEquals(List.of(MovePicker.Stage.GOOD_CAPTURES, MovePicker.Stage.KILLER_MOVES, MovePicker.Stage.QUIET_MOVES,
+                MovePicker.Stage.BAD_CAPTURES), stages);
+        assertEquals(48, picker.getReturned());
+        for (short legalMove : board.getLegalMoves())
+            assertTrue(moves.contains(legalMove));
+    }
+
+    @Test
+    void checkEvasions() {
+        // the pawn on d5 checks the king on e4 and can be captured en passant
+        Board board = Board.createNewBoard("8/8/8/4K3/3pP3/8/8/7k w - d6 0 1");
+        assertTrue(board.getMoves((byte) 36).contains((byte) 43));
+        assertFalse(board.getMoves((byte) 28).contains((byte) 36));
+        // double check by the rook and the knight: the rook on a3 must not capture the knight
+        board = Board.createNewBoard("4K3/PPP2PPP/R2n4/8/8/8/ppp2ppp/4r2k w - - 0 1");
+        assertEquals(Set.of(Move.pack(4, 3), Move.pack(4, 5), Move.pack(4, 11)), toSet(board.getLegalMoves()));
+        // the queen on e2 can only be captured by the king and the knight on c3
+        board = Board.createNewBoard("R3K2R/PPP1qPPP/2N2N2/8/8/8/ppp2ppp/r3k2r w - - 0 1");
+        assertEquals(Set.of(Move.pack(4, 12), Move.pack(18, 12)), toSet(board.getLegalMoves()));
+    }
+
+    @Test
+    void gameStatus() {
+        assertEquals(GameStatus.ONGOING, Board.createNewBoard().getStatus());
+        // the rook on a1 mates the king behind its pawns
+        assertEquals(GameStatus.CHECKMATE, Board.createNewBoard("r6K/6PP/8/8/8/8/8/k7 w - - 0 1").getStatus());
+        assertEquals(GameStatus.STALEMATE, Board.createNewBoard("2K5/8/8/8/8/1Q6/8/k7 b - - 0 1").getStatus());
+        // the only other piece is pinned
+        assertEquals(GameStatus.STALEMATE, Board.createNewBoard("K7/N1k5/8/8/8/8/8/r7 w - - 0 1").getStatus());
+
+        assertEquals(GameStatus.INSUFFICIENT_MATERIAL, Board.createNewBoard("K7/8/8/8/8/8/8/7k w - - 0 1").getStatus());
+        assertEquals(GameStatus.INSUFFICIENT_MATERIAL, Board.createNewBoard("K7/8/8/8/8/8/8/6nk w - - 0 1").getStatus());
+        // bishops on fields of the same and of different colours
+        assertEquals(GameStatus.INSUFFICIENT_MATERIAL, Board.createNewBoard("K1B5/8/8/8/8/8/8/5b1k w - - 0 1").getStatus());
+        assertEquals(GameStatus.ONGOING, Board.createNewBoard("K1B5/8/8/8/8/8/8/2b4k w - - 0 1").getStatus());
+        assertEquals(GameStatus.ONGOING, Board.createNewBoard("K7/8/8/8/8/8/8/5nnk w - - 0 1").getStatus());
+        assertEquals(GameStatus.ONGOING, Board.createNewBoard("K7/P7/8/8/8/8/8/7k w - - 0 1").getStatus());
+
+        // the status agrees with the generated moves along random games
+        Random random = new Random(45);
+        for (int game = 0; game < 20; game++) {
+            Board board = Board.createNewBoard();
+            for (int ply = 0; ply < 200; ply++) {
+                short[] moves = board.getLegalMoves();
+                GameStatus status = board.getStatus();
+                if (moves.length == 0) {
+                    assertEquals(board.kingIsNotChecked(board.getCurrentPlayer()) ? GameStatus.STALEMATE : GameStatus.CHECKMATE, status);
+                    break;
+                }
+                assertTrue(status == GameStatus.ONGOING || status == GameStatus.INSUFFICIENT_MATERIAL);
+                short move = moves[random.nextInt(moves.length)];
+                board = board.makeMove(board.getMove(Move.packedFrom(move), Move.packedTo(move)));
+            }
+        }
+    }
+
+    private static Set<Short> toSet(short[] moves) {
+        Set<Short> set = new HashSet<>();
+        for (short move : moves)
+            set.add(move);
+        return set;
+    }
+
+    @Test
+    void staticExchange() {
+        // the pawn on e5 is defended by the pawn on d6
+        Board board = Board.createNewBoard("K3R3/8/8/8/4p3/3p4/8/7k w - - 0 1");
+        assertEquals(-400, board.staticExchange((byte) 4, (byte) 36));
+        // the rook on e1 recaptures through the rook on e2 (x-ray)
+        board = Board.createNewBoard("K3R3/4R3/8/8/4p3/8/8/4r2k w - - 0 1");
+        assertEquals(100, board.staticExchange((byte) 12, (byte) 36));
+        assertEquals(0, Board.createNewBoard().staticExchange((byte) 12, (byte) 28));
+        // en passant
+        board = Board.createNewBoard("K7/8/8/3Pp3/8/8/8/7k b - d3 0 1");
+        assertEquals(100, board.staticExchange((byte) 28, (byte) 19));
+    }
+
+    @Test
+    void moveCache() {
+        MoveCache cache = new MoveCache(16, 16 * 200);
+        Board.setMoveCache(cache);
+        try {
+            Board board = Board.createNewBoard();
+            assertEquals(20, board.getLegalMoves().length);
+            assertEquals(1, cache.getMisses());
+            assertSame(board.getLegalMoves(), Board.createNewBoard().getLegalMoves());
+            assertEquals(2, cache.getHits());
+            assertEquals("[e3,e4]", FieldNameConverter.fromFieldNumbers(board.getMoves((byte) 12)));
+
+            for (short move : board.getLegalMoves())
+                board.makeMove(board.getMove(Move.packedFrom(move), Move.packedTo(move))).getLegalMoves();
+            assertTrue(cache.size() <= 16);
+            assertTrue(cache.getBytes() <= 16 * 200);
+            assertTrue(cache.getEvictions() >= 5);
+        } finally {
+            Board.setMoveCache(null);
+        }
+    }
+
+    @Test
+    void repetition() {
+        Board board = Board.createNewBoard();
+        PositionHistory history = new PositionHistory();
+        history.push(board);
+        for (int i = 0; i < 2; i++) {
+            for (byte[] move : new byte[][]{{6, 21}, {62, 45}, {21, 6}, {45, 62}}) {
+                assertFalse(history.isThreefoldRepetition());
+                board = board.makeMove(board.getMove(move[0], move[1]));
+                history.push(board);
+            }
+        }
+        assertEquals(8, board.getHalfMoveClock());
+        assertEquals(5, board.getFullMoveNumber());
+        assertTrue(history.isThreefoldRepetition());
+
+        history.pop();
+        assertFalse(history.isDraw());
+
+        // the null moves reset the half move clock, so the start position is not found again
+        board = Board.createNewBoard();
+        history.clear();
+        history.push(board);
+        for (byte[] move : new byte[][]{{62, 45}, {45, 62}}) {
+            board = board.makeNullMove();
+            history.push(board);
+            board = board.makeMove(board.getMove(move[0], move[1]));
+            history.push(board);
+        }
+        assertEquals(Board.createNewBoard().getHash(), board.getHash());
+        assertEquals(0, history.repetitions());
+    }
+
+    @Test
+    void fiftyMoveRule() {
+        Board board = Board.createNewBoard("K6R/8/8/8/8/8/8/k6r b - - 99 80");
+        PositionHistory history = new PositionHistory();
+        history.push(board);
+        assertFalse(history.isFiftyMoveRule());
+
+        Board quiet = board.makeMove(board.getMove((byte) 63, (byte) 62));
+        history.push(quiet);
+        assertEquals(100, quiet.getHalfMoveClock());
+        assertEquals(81, quiet.getFullMoveNumber());
+        assertTrue(history.isFiftyMoveRule());
+
+        history.pop();
+        Board capture = board.makeMove(board.getMove((byte) 63, (byte) 7));
+        history.push(capture);
+        assertEquals(0, capture.getHalfMoveClock());
+        assertFalse(history.isDraw());
     }
 
     @Test
@@ -36,6 +758,7 @@ public class BoardTest {
      * Will try to position a piece from "one side to the other" over the edge of the board.
      */
     @Test
+    @SuppressWarnings("deprecation")
     void staysOnBoard() {
         for (int i = 0; i < 64; i += 8) {
             assertFalse(BoardUtils.staysOnBoard(i, i + 11));
@@ -111,6 +834,24 @@ public class BoardTest {
         }
     }
 
+    @Test
+    void mailbox() {
+        for (int position = 0; position < 64; position++) {
+            assertEquals(position, Mailbox.fromMailbox(Mailbox.toMailbox(position)));
+            // row and column steps of the queen offsets {1, -1, 10, -10, 9, -9, 11, -11}
+            int[][] steps = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}, {1, -1}, {-1, 1}, {1, 1}, {-1, -1}};
+            for (int i = 0; i < steps.length; i++) {
+                int row = position / 8 + steps[i][0];
+                int column = position % 8 + steps[i][1];
+                int expected = row >= 0 && row < 8 && column >= 0 && column < 8 ? row * 8 + column : -1;
+                assertEquals(expected, Mailbox.move(position, Mailbox.QUEEN_OFFSETS[i]));
+            }
+        }
+        assertEquals(-1, Mailbox.move(7, 12)); // knight jump from h1 over the right border
+        assertEquals(22, Mailbox.move(7, 19));
+        assertEquals(-1, Mailbox.move(8, 8));
+    }
+
 
 
 }
\ No newline at end of file
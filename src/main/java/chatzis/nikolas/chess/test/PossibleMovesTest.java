@@ -1,13 +1,30 @@
 package chatzis.nikolas.chess.test;
 
+import chatzis.nikolas.chess.distributed.Coordinator;
+import chatzis.nikolas.chess.distributed.TaskResult;
+import chatzis.nikolas.chess.distributed.Worker;
 import chatzis.nikolas.chess.game.Board;
-import chatzis.nikolas.chess.pieces.Piece;
+import chatzis.nikolas.chess.metrics.ProgressInfo;
+import chatzis.nikolas.chess.metrics.ProgressPublisher;
+import chatzis.nikolas.chess.perft.Perft;
+import chatzis.nikolas.chess.perft.PerftTable;
 import org.junit.jupiter.api.Test;
 
-import java.util.Map;
-import java.util.Set;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Test class will evaluate every possible moves from depth 1 - 4.
@@ -17,36 +34,135 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
  */
 public class PossibleMovesTest {
 
+    private static final String KIWIPETE = "R3K2R/PPPBBPPP/2N2Q1p/1p2P3/3PN3/bn2pnp1/p1ppqpb1/r3k2r w KQkq - 0 1";
+    private static final String ENDGAME = "8/4P1P1/8/1R3p1k/KP5r/3p4/2p5/8 w - - 0 1";
+
     @Test
     void depthTest() {
-        assertEquals(20, numberOfMoves(Board.createNewBoard(), 1));
-        assertEquals(400, numberOfMoves(Board.createNewBoard(), 2));
-        assertEquals(8902, numberOfMoves(Board.createNewBoard(), 3));
-        assertEquals(197303, numberOfMoves(Board.createNewBoard(), 4));
+        Perft perft = new Perft();
+        assertEquals(20, perft.perft(Board.createNewBoard(), 1));
+        assertEquals(400, perft.perft(Board.createNewBoard(), 2));
+        assertEquals(8902, perft.perft(Board.createNewBoard(), 3));
+        assertEquals(197281, perft.perft(Board.createNewBoard(), 4));
     }
 
     @Test
-    void performanceTest() {
-        long l = System.currentTimeMillis();
-        System.out.println(numberOfMoves(Board.createNewBoard(), 5) + " moves in " + (System.currentTimeMillis()-l) + "ms");
+    void complexPositions() {
+        Perft perft = new Perft(new PerftTable(16));
+        assertEquals(48, perft.perft(Board.createNewBoard(KIWIPETE), 1));
+        assertEquals(2039, perft.perft(Board.createNewBoard(KIWIPETE), 2));
+        assertEquals(97862, perft.perft(Board.createNewBoard(KIWIPETE), 3));
+        assertEquals(43238, perft.perft(Board.createNewBoard(ENDGAME), 4));
+    }
+
+    @Test
+    void hashedPerft() {
+        Perft perft = new Perft(new PerftTable(16));
+        assertEquals(197281, perft.perft(Board.createNewBoard(), 4));
+        assertEquals(0, perft.getTableHits());
+        assertEquals(197281, perft.perft(Board.createNewBoard(), 4));
+        assertEquals(1, perft.getTableHits());
+        long divided = perft.divide(Board.createNewBoard(), 4).values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(197281, divided);
+        assertEquals(20, perft.getTableHits()); // every root move of the whole run
+    }
+
+    @Test
+    void distributedPerft() throws IOException {
+        // not a resource of the try, because the dying worker closes it itself
+        ServerSocket dying = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        try (Worker first = new Worker(0, 16); Worker second = new Worker(0, 0)) {
+            first.start();
+            second.start();
+            // accepts one task and dies before answering it
+            Thread dyingWorker = new Thread(() -> {
+                try (Socket socket = dying.accept()) {
+                    dying.close();
+                    socket.getInputStream().read();
+                } catch (IOException ignored) {
+                    // the coordinator closed the connection
+                }
+            });
+            dyingWorker.start();
+
+            InetAddress loopback = InetAddress.getLoopbackAddress();
+            Coordinator coordinator = new Coordinator(List.of(new InetSocketAddress(loopback, first.getPort()),
+                    new InetSocketAddress(loopback, second.getPort()), new InetSocketAddress(loopback, dying.getLocalPort())));
+            List<TaskResult> arrived = new ArrayList<>();
+            coordinator.setResultListener(arrived::add);
+            assertEquals(197281, coordinator.perft(Board.createNewBoard(), 4));
+            assertEquals(1, coordinator.getRequeued());
+            assertEquals(400, arrived.size());
+            assertEquals(97862, coordinator.perft(Board.createNewBoard(KIWIPETE), 3));
+            assertEquals(43238, coordinator.perft(Board.createNewBoard(ENDGAME), 4));
+
+            List<TaskResult> results = coordinator.analyse(List.of(Board.createNewBoard(), Board.createNewBoard(KIWIPETE)), 2);
+            assertEquals(2, results.size());
+            assertNotNull(results.get(1).getMove());
+            assertTrue(results.get(1).getTask().getFen().startsWith("R3K2R"));
+        } finally {
+            dying.close();
+        }
+    }
+
+    @Test
+    void progressPublisher() throws Exception {
+        List<ProgressInfo> received = new CopyOnWriteArrayList<>();
+        CompletableFuture<Boolean> completed = new CompletableFuture<>();
+        try (ProgressPublisher publisher = new ProgressPublisher(2)) {
+            // a slow subscriber, which blocks on its first info, while perft keeps publishing
+            publisher.subscribe(new Flow.Subscriber<>() {
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(ProgressInfo info) {
+                    if (received.isEmpty())
+                        sleep();
+                    received.add(info);
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    completed.completeExceptionally(throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.complete(true);
+                }
+            });
+
+            Perft perft = new Perft(new PerftTable(16));
+            perft.setProgressPublisher(publisher);
+            assertEquals(197281, perft.perft(Board.createNewBoard(), 4));
+            assertTrue(publisher.getDropped() > 0);
+        }
+        assertTrue(completed.get(10, TimeUnit.SECONDS));
+        // only the oldest infos are dropped, the last one is the complete count
+        ProgressInfo last = received.get(received.size() - 1);
+        assertEquals(197281, last.getNodes());
+        assertEquals(20, last.getCompleted());
+        assertEquals(20, last.getTotal());
     }
 
-    /**
-     * Will call itself till depth 0 is reached.
-     * Counts the amount of moves per depth.
-     * @param board Board - the starting board
-     * @param depth int - the depth to look for
-     * @return int - all possible moves
-     */
-    private int numberOfMoves(Board board, int depth) {
-        if (depth == 0)
-            return 1;
-        int i = 0;
-        for (Map.Entry<Piece, Set<Byte>> entry : board.getAllMovePositions().entrySet()) {
-            for (Byte toPos : entry.getValue()) {
-                i += numberOfMoves(board.makeMove(entry.getKey().getMove(toPos)), depth -1);
-            }
+    private static void sleep() {
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
         }
-        return i;
+    }
+
+    @Test
+    void performanceTest() {
+        long l = System.currentTimeMillis();
+        System.out.println(new Perft(new PerftTable(64)).perft(Board.createNewBoard(), 5) + " moves in " + (System.currentTimeMillis()-l) + "ms");
     }
 }
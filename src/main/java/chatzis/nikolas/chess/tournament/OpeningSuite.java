@@ -0,0 +1,121 @@
+package chatzis.nikolas.chess.tournament;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.move.Move;
+import chatzis.nikolas.chess.utils.FieldNameConverter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Openings the games of a tournament start with. An opening is a line of moves from the default board,
+ * written as from and to field, e.g. "e2e4 e7e5 g1f3".
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class OpeningSuite {
+
+    private static final String[] DEFAULT_OPENINGS = {
+            "e2e4 e7e5 g1f3 b8c6",
+            "e2e4 c7c5 g1f3 d7d6",
+            "e2e4 e7e6 d2d4 d7d5",
+            "e2e4 c7c6 d2d4 d7d5",
+            "d2d4 d7d5 c2c4 e7e6",
+            "d2d4 g8f6 c2c4 g7g6",
+            "d2d4 g8f6 c2c4 e7e6",
+            "c2c4 e7e5 b1c3 g8f6",
+            "g1f3 d7d5 g2g3 g8f6",
+            "e2e4 d7d5 e4d5 d8d5",
+    };
+
+    private final List<String[]> openings;
+
+    /**
+     * Instantiates the suite.
+     * @param openings List<String> - the openings, one line of moves each
+     */
+    public OpeningSuite(List<String> openings) {
+        if (openings.isEmpty())
+            throw new IllegalArgumentException("Suite has no openings");
+        this.openings = new ArrayList<>();
+        for (String opening : openings) {
+            String[] moves = opening.isBlank() ? new String[0] : opening.trim().split("\\s+");
+            play(moves); // fails on illegal moves
+            this.openings.add(moves);
+        }
+    }
+
+    /**
+     * Returns the built-in openings.
+     * @return OpeningSuite - the default suite
+     */
+    public static OpeningSuite createDefault() {
+        return new OpeningSuite(List.of(DEFAULT_OPENINGS));
+    }
+
+    /**
+     * Loads the openings from a file with one opening per line. Empty lines and lines starting with # are skipped.
+     * @param file Path - the file
+     * @return OpeningSuite - the loaded suite
+     * @throws IOException - if the file cannot be read
+     */
+    public static OpeningSuite load(Path file) throws IOException {
+        List<String> openings = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            if (!line.isBlank() && !line.startsWith("#"))
+                openings.add(line);
+        }
+        return new OpeningSuite(openings);
+    }
+
+    public int size() {
+        return openings.size();
+    }
+
+    /**
+     * Returns the moves of the opening.
+     * @param index int - index of the opening, wraps around
+     * @return String[] - the moves, e.g. "e2e4"
+     */
+    public String[] getOpening(int index) {
+        return openings.get(index % openings.size()).clone();
+    }
+
+    /**
+     * Plays the moves from the default board.
+     * @param moves String[] - the moves, e.g. "e2e4"
+     * @return List<Board> - the default board followed by the board after every move
+     */
+    public static List<Board> play(String[] moves) {
+        List<Board> boards = new ArrayList<>();
+        Board board = Board.createNewBoard();
+        boards.add(board);
+        for (String move : moves) {
+            board = board.makeMove(parseMove(board, move));
+            boards.add(board);
+        }
+        return boards;
+    }
+
+    /**
+     * Parses a move written as from and to field, e.g. "e2e4".
+     * @param board {@link Board} - the board to move on
+     * @param move String - the move
+     * @return {@link Move} - the legal move
+     * @throws IllegalArgumentException - if the move is not legal
+     */
+    public static Move parseMove(Board board, String move) {
+        if (move.length() != 4)
+            throw new IllegalArgumentException("Move " + move + " is not written as from and to field");
+        byte from = FieldNameConverter.fromFieldName(move.substring(0, 2));
+        byte to = FieldNameConverter.fromFieldName(move.substring(2));
+        for (short legal : board.getLegalMoves()) {
+            if (Move.packedFrom(legal) == from && Move.packedTo(legal) == to)
+                return board.getMove(from, to);
+        }
+        throw new IllegalArgumentException("Move " + move + " is not legal");
+    }
+}
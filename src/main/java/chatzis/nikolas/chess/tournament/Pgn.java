@@ -0,0 +1,108 @@
+package chatzis.nikolas.chess.tournament;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.move.Move;
+import chatzis.nikolas.chess.pieces.King;
+import chatzis.nikolas.chess.pieces.Pawn;
+import chatzis.nikolas.chess.pieces.Piece;
+import chatzis.nikolas.chess.utils.FieldNameConverter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Converts moves into the standard algebraic notation and games into the portable game notation.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class Pgn {
+
+    private Pgn() {
+        throw new UnsupportedOperationException("Pgn is a utility class and should not be instantiated.");
+    }
+
+    /**
+     * Converts the move into the standard algebraic notation, e.g. "Nbd2", "exd5", "O-O" or "Qh5#".
+     * @param board {@link Board} - the board before the move
+     * @param move {@link Move} - the legal move
+     * @return String - the move in algebraic notation
+     */
+    public static String toSan(Board board, Move move) {
+        byte from = move.from();
+        byte to = move.to();
+        Piece piece = board.getPieceOnBoard(from);
+        StringBuilder san = new StringBuilder();
+
+        if (piece instanceof King && Math.abs(to - from) == 2) {
+            san.append(to > from ? "O-O" : "O-O-O");
+        } else {
+            boolean capture = board.getPieceOnBoard(to) != null || (piece instanceof Pawn && to == board.getEnPassant());
+            if (piece instanceof Pawn) {
+                if (capture)
+                    san.append(FieldNameConverter.fromFieldNumber(from)[0]).append('x');
+            } else {
+                san.append(Character.toUpperCase(piece.getName())).append(disambiguation(board, piece, from, to));
+                if (capture)
+                    san.append('x');
+            }
+            san.append(FieldNameConverter.fromFieldNumber(to));
+        }
+
+        Board after = board.makeMove(move);
+        if (!after.kingIsNotChecked(after.getCurrentPlayer()))
+            san.append(after.getLegalMoves().length == 0 ? '#' : '+');
+        return san.toString();
+    }
+
+    private static String disambiguation(Board board, Piece piece, byte from, byte to) {
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (Map.Entry<Byte, Set<Byte>> entry : board.getAllMovePositions().entrySet()) {
+            byte other = entry.getKey();
+            if (other != from && board.getPieceOnBoard(other) == piece && entry.getValue().contains(to)) {
+                ambiguous = true;
+                sameFile |= other % 8 == from % 8;
+                sameRank |= other / 8 == from / 8;
+            }
+        }
+        char[] field = FieldNameConverter.fromFieldNumber(from);
+        if (!ambiguous)
+            return "";
+        if (!sameFile)
+            return String.valueOf(field[0]);
+        if (!sameRank)
+            return String.valueOf(field[1]);
+        return new String(field);
+    }
+
+    /**
+     * Writes one game.
+     * @param tags Map<String, String> - the tags in their order, e.g. Event, White, Black, Result
+     * @param sanMoves List<String> - the moves in algebraic notation starting from the default board
+     * @param result String - "1-0", "0-1" or "1/2-1/2"
+     * @return String - the game in portable game notation
+     */
+    public static String write(Map<String, String> tags, List<String> sanMoves, String result) {
+        StringBuilder pgn = new StringBuilder();
+        for (Map.Entry<String, String> tag : tags.entrySet())
+            pgn.append('[').append(tag.getKey()).append(" \"").append(tag.getValue().replace("\"", "'")).append("\"]\n");
+        pgn.append('\n');
+
+        int lineLength = 0;
+        for (int i = 0; i <= sanMoves.size(); i++) {
+            String token = i == sanMoves.size() ? result : (i % 2 == 0 ? (i / 2 + 1) + ". " : "") + sanMoves.get(i);
+            if (lineLength > 0 && lineLength + token.length() + 1 > 80) {
+                pgn.append('\n');
+                lineLength = 0;
+            } else if (lineLength > 0) {
+                pgn.append(' ');
+                lineLength++;
+            }
+            pgn.append(token);
+            lineLength += token.length();
+        }
+        return pgn.append("\n\n").toString();
+    }
+}
@@ -0,0 +1,135 @@
+package chatzis.nikolas.chess.tournament;
+
+/**
+ * Sequential probability ratio test, whether engine A is elo1 stronger (H1) or only elo0 stronger (H0) than engine B.
+ * Uses the normal approximation of the generalized SPRT on the game scores with logistic elo.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class Sprt {
+
+    /**
+     * Outcome of the test.
+     */
+    public enum Result {
+        H1_ACCEPTED("H1 accepted (pass)"),
+        H0_ACCEPTED("H0 accepted (fail)"),
+        CONTINUE("continue");
+
+        private final String description;
+
+        Result(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+
+    /**
+     * Instantiates the test.
+     * @param elo0 double - elo difference of the null hypothesis
+     * @param elo1 double - elo difference of the alternative hypothesis
+     * @param alpha double - probability to accept H1, although H0 is true
+     * @param beta double - probability to accept H0, although H1 is true
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        if (elo0 >= elo1)
+            throw new IllegalArgumentException("elo0 has to be smaller than elo1");
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Calculates the log-likelihood ratio of the results.
+     * @param wins int - wins of engine A
+     * @param draws int - draws
+     * @param losses int - losses of engine A
+     * @return double - the log-likelihood ratio
+     */
+    public double logLikelihoodRatio(int wins, int draws, int losses) {
+        int games = wins + draws + losses;
+        if (games == 0)
+            return 0;
+        double score = (wins + draws / 2.0) / games;
+        double variance = (wins * square(1 - score) + draws * square(0.5 - score) + losses * square(score)) / games;
+        if (variance == 0)
+            return 0;
+        double score0 = expectedScore(elo0);
+        double score1 = expectedScore(elo1);
+        return (score1 - score0) * (2 * score - score0 - score1) * games / (2 * variance);
+    }
+
+    /**
+     * Tests the results.
+     * @param wins int - wins of engine A
+     * @param draws int - draws
+     * @param losses int - losses of engine A
+     * @return Result - the outcome
+     */
+    public Result test(int wins, int draws, int losses) {
+        double llr = logLikelihoodRatio(wins, draws, losses);
+        if (llr >= upperBound)
+            return Result.H1_ACCEPTED;
+        if (llr <= lowerBound)
+            return Result.H0_ACCEPTED;
+        return Result.CONTINUE;
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * Returns the expected score of an engine with the elo difference.
+     * @param elo double - the elo difference
+     * @return double - the expected score (0 - 1)
+     */
+    public static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * Returns the elo difference of an engine with the score.
+     * @param score double - the score (0 - 1)
+     * @return double - the elo difference, infinite for a score of 0 or 1
+     */
+    public static double elo(double score) {
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    /**
+     * Estimates the elo difference of engine A and the error of the estimate.
+     * @param wins int - wins of engine A
+     * @param draws int - draws
+     * @param losses int - losses of engine A
+     * @return double[] - [elo, 95% error margin]
+     */
+    public static double[] estimateElo(int wins, int draws, int losses) {
+        int games = wins + draws + losses;
+        if (games == 0)
+            return new double[]{0, Double.POSITIVE_INFINITY};
+        double score = (wins + draws / 2.0) / games;
+        double deviation = Math.sqrt((wins * square(1 - score) + draws * square(0.5 - score) + losses * square(score)) / games / games);
+        double upper = elo(Math.min(1, score + 1.96 * deviation));
+        double lower = elo(Math.max(0, score - 1.96 * deviation));
+        return new double[]{elo(score), (upper - lower) / 2};
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+}
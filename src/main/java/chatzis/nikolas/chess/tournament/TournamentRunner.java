@@ -0,0 +1,301 @@
+package chatzis.nikolas.chess.tournament;
+
+import chatzis.nikolas.chess.game.Board;
+import chatzis.nikolas.chess.game.GameStatus;
+import chatzis.nikolas.chess.game.Player;
+import chatzis.nikolas.chess.game.PositionHistory;
+import chatzis.nikolas.chess.move.Move;
+import chatzis.nikolas.chess.nnue.Network;
+import chatzis.nikolas.chess.nnue.NnueEvaluator;
+import chatzis.nikolas.chess.search.PieceSquareEvaluator;
+import chatzis.nikolas.chess.search.Search;
+import chatzis.nikolas.chess.search.SearchLimits;
+import chatzis.nikolas.chess.search.TranspositionTable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Plays games of two engines against each other without a gui, to measure which engine is stronger.
+ * Every opening of the suite is played twice with switched colors, games run concurrently on all threads.
+ * Games are adjudicated on checkmate, stalemate, threefold repetition, the fifty-move rule and a move limit.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class TournamentRunner {
+
+    private static final int MAX_PLIES = 600;
+
+    private final ThreadLocal<Search> engineA;
+    private final ThreadLocal<Search> engineB;
+    private final SearchLimits limits;
+    private final OpeningSuite openings;
+    private final int threads;
+    private final Sprt sprt;
+
+    /**
+     * Instantiates the runner.
+     * @param engineA Supplier<Search> - creates engine A, once per thread
+     * @param engineB Supplier<Search> - creates engine B, once per thread
+     * @param limits {@link SearchLimits} - the limits of every move, e.g. fixed nodes or time
+     * @param openings {@link OpeningSuite} - the openings to start from
+     * @param threads int - games played at the same time
+     * @param sprt {@link Sprt} - stops the tournament as soon as the test is decided (nullable)
+     */
+    public TournamentRunner(Supplier<Search> engineA, Supplier<Search> engineB, SearchLimits limits,
+                            OpeningSuite openings, int threads, Sprt sprt) {
+        this.engineA = ThreadLocal.withInitial(engineA);
+        this.engineB = ThreadLocal.withInitial(engineB);
+        this.limits = limits;
+        this.openings = openings;
+        this.threads = threads;
+        this.sprt = sprt;
+    }
+
+    /**
+     * Plays the games and writes every finished game into the pgn.
+     * @param games int - the maximal amount of games
+     * @param pgn Writer - receives the games in portable game notation (nullable)
+     * @return Summary - the results of engine A
+     * @throws IOException - if the pgn cannot be written
+     * @throws InterruptedException - if the thread is interrupted while waiting for games
+     */
+    public Summary run(int games, Writer pgn) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CompletionService<GameRecord> completion = new ExecutorCompletionService<>(executor);
+        AtomicBoolean decided = new AtomicBoolean();
+        for (int round = 0; round < games; round++) {
+            int finalRound = round;
+            completion.submit(() -> decided.get() ? null : play(finalRound));
+        }
+
+        Summary summary = new Summary();
+        try {
+            for (int i = 0; i < games; i++) {
+                GameRecord game = completion.take().get();
+                if (game == null)
+                    continue;
+                summary.add(game);
+                if (pgn != null) {
+                    pgn.write(game.toPgn());
+                    pgn.flush();
+                }
+                if (sprt != null) {
+                    summary.sprtResult = sprt.test(summary.wins, summary.draws, summary.losses);
+                    summary.logLikelihoodRatio = sprt.logLikelihoodRatio(summary.wins, summary.draws, summary.losses);
+                    if (summary.sprtResult != Sprt.Result.CONTINUE)
+                        decided.set(true);
+                }
+            }
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException("Game failed", exception.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return summary;
+    }
+
+    /**
+     * Plays one game.
+     * @param round int - the number of the game, decides the opening and the colors
+     * @return GameRecord - the played game
+     */
+    private GameRecord play(int round) {
+        boolean engineAWhite = round % 2 == 0;
+        Board board = Board.createNewBoard();
+        PositionHistory history = new PositionHistory();
+        history.push(board);
+        List<String> sanMoves = new ArrayList<>();
+        for (String opening : openings.getOpening(round / 2)) {
+            Move move = OpeningSuite.parseMove(board, opening);
+            sanMoves.add(Pgn.toSan(board, move));
+            board = board.makeMove(move);
+            history.push(board);
+        }
+
+        String[] adjudication;
+        while ((adjudication = adjudicate(board, history, sanMoves.size())) == null) {
+            Search engine = (board.getCurrentPlayer() == Player.WHITE) == engineAWhite ? engineA.get() : engineB.get();
+            Move move = engine.search(board, history, limits).getBestMove();
+            sanMoves.add(Pgn.toSan(board, move));
+            board = board.makeMove(move);
+            history.push(board);
+        }
+        return new GameRecord(round, engineAWhite, sanMoves, adjudication[0], adjudication[1]);
+    }
+
+    /**
+     * Decides if the game is over by checkmate, stalemate, insufficient material, threefold repetition,
+     * the fifty-move rule or the move limit.
+     * @param board {@link Board} - the current board
+     * @param history {@link PositionHistory} - the positions of the game, including the current board
+     * @param plies int - the plies played so far
+     * @return String[] - [result, termination], e.g. ["0-1", "checkmate"], or null if the game continues
+     */
+    public static String[] adjudicate(Board board, PositionHistory history, int plies) {
+        GameStatus status = board.getStatus();
+        if (status.isOver()) {
+            boolean checkmate = status == GameStatus.CHECKMATE;
+            String result = !checkmate ? "1/2-1/2" : board.getCurrentPlayer() == Player.WHITE ? "0-1" : "1-0";
+            String termination = status == GameStatus.INSUFFICIENT_MATERIAL ? "insufficient material" : status.name().toLowerCase(Locale.ROOT);
+            return new String[]{result, termination};
+        }
+        if (history.isThreefoldRepetition())
+            return new String[]{"1/2-1/2", "threefold repetition"};
+        if (history.isFiftyMoveRule())
+            return new String[]{"1/2-1/2", "fifty-move rule"};
+        if (plies >= MAX_PLIES)
+            return new String[]{"1/2-1/2", "move limit"};
+        return null;
+    }
+
+    /**
+     * One finished game.
+     */
+    private static class GameRecord {
+        private final int round;
+        private final boolean engineAWhite;
+        private final List<String> sanMoves;
+        private final String result;
+        private final String termination;
+
+        private GameRecord(int round, boolean engineAWhite, List<String> sanMoves, String result, String termination) {
+            this.round = round;
+            this.engineAWhite = engineAWhite;
+            this.sanMoves = sanMoves;
+            this.result = result;
+            this.termination = termination;
+        }
+
+        /**
+         * Returns the score of engine A.
+         * @return double - 1 for a win, 0.5 for a draw and 0 for a loss
+         */
+        private double scoreOfA() {
+            if (result.equals("1/2-1/2"))
+                return 0.5;
+            return result.equals("1-0") == engineAWhite ? 1 : 0;
+        }
+
+        private String toPgn() {
+            Map<String, String> tags = new LinkedHashMap<>();
+            tags.put("Event", "Tournament");
+            tags.put("Site", "?");
+            tags.put("Date", LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy.MM.dd")));
+            tags.put("Round", String.valueOf(round + 1));
+            tags.put("White", engineAWhite ? "Engine A" : "Engine B");
+            tags.put("Black", engineAWhite ? "Engine B" : "Engine A");
+            tags.put("Result", result);
+            tags.put("Termination", termination);
+            tags.put("PlyCount", String.valueOf(sanMoves.size()));
+            return Pgn.write(tags, sanMoves, result);
+        }
+    }
+
+    /**
+     * Results of engine A against engine B.
+     */
+    public static class Summary {
+        private int wins;
+        private int draws;
+        private int losses;
+        private Sprt.Result sprtResult;
+        private double logLikelihoodRatio;
+
+        private void add(GameRecord game) {
+            double score = game.scoreOfA();
+            if (score == 1)
+                wins++;
+            else if (score == 0)
+                losses++;
+            else
+                draws++;
+        }
+
+        public int getWins() {
+            return wins;
+        }
+
+        public int getDraws() {
+            return draws;
+        }
+
+        public int getLosses() {
+            return losses;
+        }
+
+        /**
+         * Returns the result of the sequential probability ratio test.
+         * @return Sprt.Result - the result (nullable if no test was run)
+         */
+        public Sprt.Result getSprtResult() {
+            return sprtResult;
+        }
+
+        @Override
+        public String toString() {
+            double[] elo = Sprt.estimateElo(wins, draws, losses);
+            String summary = String.format("Games %d: +%d =%d -%d, elo %.1f +/- %.1f", wins + draws + losses, wins, draws, losses, elo[0], elo[1]);
+            if (sprtResult != null)
+                summary += String.format(", LLR %.2f, %s", logLikelihoodRatio, sprtResult);
+            return summary;
+        }
+    }
+
+    /**
+     * Plays a tournament of the default search against itself, or with --network against the same search
+     * evaluating by the network file.
+     * Arguments: --games n, --nodes n, --movetime ms, --threads n, --hash mb, --openings file, --pgn file,
+     * --elo0 elo, --elo1 elo, --alpha p, --beta p, --network file
+     * @param args String[] - the arguments
+     * @throws Exception - if the files cannot be read or written
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2)
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+
+        int games = Integer.parseInt(options.getOrDefault("games", "100"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int hash = Integer.parseInt(options.getOrDefault("hash", "16"));
+        SearchLimits limits = options.containsKey("movetime") ?
+                SearchLimits.millis(Long.parseLong(options.get("movetime"))) :
+                SearchLimits.nodes(Long.parseLong(options.getOrDefault("nodes", "5000")));
+        OpeningSuite openings = options.containsKey("openings") ?
+                OpeningSuite.load(Path.of(options.get("openings"))) : OpeningSuite.createDefault();
+        Sprt sprt = new Sprt(Double.parseDouble(options.getOrDefault("elo0", "0")), Double.parseDouble(options.getOrDefault("elo1", "10")),
+                Double.parseDouble(options.getOrDefault("alpha", "0.05")), Double.parseDouble(options.getOrDefault("beta", "0.05")));
+
+        Supplier<Search> engine = () -> new Search(new PieceSquareEvaluator(), new TranspositionTable(hash));
+        Supplier<Search> challenger = engine;
+        if (options.containsKey("network")) {
+            Network network = Network.load(Path.of(options.get("network")));
+            Board.setNetwork(network);
+            challenger = () -> new Search(new NnueEvaluator(network), new TranspositionTable(hash));
+        }
+        TournamentRunner runner = new TournamentRunner(challenger, engine, limits, openings, threads, sprt);
+        if (options.containsKey("pgn")) {
+            try (Writer pgn = Files.newBufferedWriter(Path.of(options.get("pgn")))) {
+                System.out.println(runner.run(games, pgn));
+            }
+        } else {
+            System.out.println(runner.run(games, null));
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package chatzis.nikolas.chess.tuning;
+
+import chatzis.nikolas.chess.search.PieceSquareEvaluator;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+/**
+ * Tunes the weights of the {@link PieceSquareEvaluator} on a {@link TuningSet} (Texel tuning):
+ * the evaluation of white is mapped to an expected result by 1 / (1 + 10^(-k * eval / 400)) and the mean squared error
+ * to the game results is minimised by gradient descent (Adam). The evaluation is linear in the weights, so every
+ * iteration only sums the values of the features and distributes the gradient back to the material and the table of a feature.
+ * The positions are split into chunks, which are evaluated in parallel on the common pool.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class Tuner {
+
+    private static final int FEATURES = 12 * 64;
+    private static final int KING = 5;
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+
+    private final TuningSet set;
+    private final double[] weights;
+    private final int[] materialWeight; // [feature] the index of the material weight
+    private final int[] tableWeight; // [feature] the index of the piece-square weight
+    private final int[] signs; // [feature] 1 for white pieces, -1 for black
+    private final double[] momentum;
+    private final double[] velocity;
+    private final int chunks;
+    private double scaling = 1;
+    private double learningRate = 1;
+    private int iterations;
+    private long positionsPerSecond;
+
+    /**
+     * Instantiates the tuner.
+     * @param set TuningSet - the labelled positions
+     * @param weights int[] - the initial weights, see {@link PieceSquareEvaluator#WEIGHTS}
+     */
+    public Tuner(TuningSet set, int[] weights) {
+        if (weights.length != PieceSquareEvaluator.WEIGHTS)
+            throw new IllegalArgumentException("Expected " + PieceSquareEvaluator.WEIGHTS + " weights, got " + weights.length);
+        this.set = set;
+        this.weights = new double[weights.length];
+        for (int i = 0; i < weights.length; i++)
+            this.weights[i] = weights[i];
+        this.materialWeight = new int[FEATURES];
+        this.tableWeight = new int[FEATURES];
+        this.signs = new int[FEATURES];
+        for (int piece = 0; piece < 12; piece++) {
+            boolean white = piece < 6;
+            for (int position = 0; position < 64; position++) {
+                int feature = piece * 64 + position;
+                materialWeight[feature] = piece % 6;
+                tableWeight[feature] = 6 + piece % 6 * 64 + (white ? position : position ^ 56);
+                signs[feature] = white ? 1 : -1;
+            }
+        }
+        this.momentum = new double[weights.length];
+        this.velocity = new double[weights.length];
+        this.chunks = Math.max(1, Math.min(set.size() / 1024, Runtime.getRuntime().availableProcessors() * 4));
+    }
+
+    /**
+     * Sets the step size of every iteration.
+     * @param learningRate double - the step size in centipawns
+     */
+    public void setLearningRate(double learningRate) {
+        this.learningRate = learningRate;
+    }
+
+    /**
+     * Finds the scaling k of the current weights with the smallest error, so the weights are tuned against
+     * the best fitting curve instead of the centipawn scale itself.
+     * @return double - the scaling
+     */
+    public double fitScaling() {
+        double low = 0;
+        double high = 10;
+        double[] table = createTable();
+        for (int i = 0; i < 60; i++) {
+            double left = low + (high - low) / 3;
+            double right = high - (high - low) / 3;
+            if (error(table, left) < error(table, right))
+                high = right;
+            else
+                low = left;
+        }
+        scaling = (low + high) / 2;
+        return scaling;
+    }
+
+    /**
+     * Returns the mean squared error of the current weights.
+     * @return double - the error
+     */
+    public double error() {
+        return error(createTable(), scaling);
+    }
+
+    private double error(double[] table, double k) {
+        short[] features = set.getFeatures();
+        int[] offsets = set.getOffsets();
+        return IntStream.range(0, chunks).parallel().mapToDouble(chunk -> {
+            double sum = 0;
+            for (int i = start(chunk); i < start(chunk + 1); i++) {
+                double evaluation = 0;
+                for (int f = offsets[i]; f < offsets[i + 1]; f++)
+                    evaluation += table[features[f]];
+                double difference = set.getResult(i) - sigmoid(k * evaluation);
+                sum += difference * difference;
+            }
+            return sum;
+        }).sum() / Math.max(1, set.size());
+    }
+
+    /**
+     * Runs one iteration of gradient descent over all positions.
+     * @return double - the error before the iteration
+     */
+    public double iterate() {
+        long start = System.nanoTime();
+        double[] table = createTable();
+        short[] features = set.getFeatures();
+        int[] offsets = set.getOffsets();
+        double k = scaling;
+
+        // partial gradients of the error per feature, summed over the chunks
+        double[][] partials = IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+            double[] gradient = new double[FEATURES + 1]; // the last element is the error
+            for (int i = start(chunk); i < start(chunk + 1); i++) {
+                double evaluation = 0;
+                for (int f = offsets[i]; f < offsets[i + 1]; f++)
+                    evaluation += table[features[f]];
+                double expected = sigmoid(k * evaluation);
+                double difference = expected - set.getResult(i);
+                gradient[FEATURES] += difference * difference;
+                double slope = difference * expected * (1 - expected);
+                for (int f = offsets[i]; f < offsets[i + 1]; f++)
+                    gradient[features[f]] += slope;
+            }
+            return gradient;
+        }).toArray(double[][]::new);
+
+        double[] gradient = new double[weights.length];
+        double error = 0;
+        double factor = 2 * k * Math.log(10) / 400 / Math.max(1, set.size());
+        for (double[] partial : partials) {
+            error += partial[FEATURES];
+            for (int feature = 0; feature < FEATURES; feature++) {
+                double slope = partial[feature] * signs[feature] * factor;
+                gradient[materialWeight[feature]] += slope;
+                gradient[tableWeight[feature]] += slope;
+            }
+        }
+
+        iterations++;
+        double correction1 = 1 - Math.pow(BETA1, iterations);
+        double correction2 = 1 - Math.pow(BETA2, iterations);
+        for (int i = 0; i < weights.length; i++) {
+            if (i == KING)
+                continue; // both players always have their king, its material cancels out
+            momentum[i] = BETA1 * momentum[i] + (1 - BETA1) * gradient[i];
+            velocity[i] = BETA2 * velocity[i] + (1 - BETA2) * gradient[i] * gradient[i];
+            weights[i] -= learningRate * (momentum[i] / correction1) / (Math.sqrt(velocity[i] / correction2) + EPSILON);
+        }
+
+        positionsPerSecond = (long) (set.size() * 1e9 / Math.max(1, System.nanoTime() - start));
+        return error / Math.max(1, set.size());
+    }
+
+    /**
+     * Returns the positions evaluated per second by the last iteration.
+     * @return long - positions per second
+     */
+    public long getPositionsPerSecond() {
+        return positionsPerSecond;
+    }
+
+    public double getScaling() {
+        return scaling;
+    }
+
+    /**
+     * Returns the current weights rounded to centipawns.
+     * @return int[] - material and piece-square weights, see {@link PieceSquareEvaluator#WEIGHTS}
+     */
+    public int[] getWeights() {
+        int[] rounded = new int[weights.length];
+        for (int i = 0; i < weights.length; i++)
+            rounded[i] = (int) Math.round(weights[i]);
+        return rounded;
+    }
+
+    /**
+     * Writes the weights in the layout of the default weights of the {@link PieceSquareEvaluator}:
+     * the material followed by one table per piece, written from rank 8 down to rank 1.
+     * @param weights int[] - the weights
+     * @param out PrintStream - the output
+     */
+    public static void writeTables(int[] weights, PrintStream out) {
+        String[] names = {"pawn", "knight", "bishop", "rook", "queen", "king"};
+        StringBuilder material = new StringBuilder("int[] material = {");
+        for (int piece = 0; piece < 6; piece++)
+            material.append(piece > 0 ? ", " : "").append(weights[piece]);
+        out.println(material.append("};"));
+        for (int piece = 0; piece < 6; piece++) {
+            out.println("{ // " + names[piece]);
+            for (int rank = 7; rank >= 0; rank--) {
+                StringBuilder row = new StringBuilder("        ");
+                for (int file = 0; file < 8; file++)
+                    row.append(weights[6 + piece * 64 + rank * 8 + file]).append(rank > 0 || file < 7 ? ", " : "");
+                out.println(row.toString().stripTrailing());
+            }
+            out.println("},");
+        }
+    }
+
+    /**
+     * The value of every feature from the view of white with the current weights.
+     * @return double[] - the values indexed by feature
+     */
+    private double[] createTable() {
+        double[] table = new double[FEATURES];
+        for (int feature = 0; feature < FEATURES; feature++)
+            table[feature] = signs[feature] * (weights[materialWeight[feature]] + weights[tableWeight[feature]]);
+        return table;
+    }
+
+    private int start(int chunk) {
+        return (int) ((long) set.size() * chunk / chunks);
+    }
+
+    private static double sigmoid(double evaluation) {
+        return 1 / (1 + Math.pow(10, -evaluation / 400));
+    }
+
+    /**
+     * Tunes the default weights from the command line and writes the tables.
+     * Arguments: file [--iterations n] [--rate centipawns]
+     * @param args String[] - the arguments
+     * @throws IOException - if the file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of(args[0]);
+        int iterations = 200;
+        double rate = 1;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--iterations"))
+                iterations = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--rate"))
+                rate = Double.parseDouble(args[++i]);
+        }
+
+        long time = System.currentTimeMillis();
+        TuningSet set = TuningSet.load(file);
+        System.out.println("Loaded " + set.size() + " positions in " + (System.currentTimeMillis() - time) + "ms");
+        Tuner tuner = new Tuner(set, PieceSquareEvaluator.getDefaultWeights());
+        tuner.setLearningRate(rate);
+        System.out.printf("Scaling: %.4f%n", tuner.fitScaling());
+        for (int i = 1; i <= iterations; i++) {
+            double error = tuner.iterate();
+            System.out.printf("Iteration %d: error %.6f, %d positions/s%n", i, error, tuner.getPositionsPerSecond());
+        }
+        System.out.printf("Final error: %.6f%n", tuner.error());
+        writeTables(tuner.getWeights(), System.out);
+    }
+}
@@ -0,0 +1,148 @@
+package chatzis.nikolas.chess.tuning;
+
+import chatzis.nikolas.chess.utils.BoardUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Labelled positions in compact arrays, read from lines of Forsyth-Edwards Notation and the result of the game.
+ * The pieces of all positions are stored in one array as features (piece index * 64 + position), the features of
+ * position i are between offset i and offset i + 1. No {@link chatzis.nikolas.chess.game.Board} is created,
+ * so millions of positions take a few bytes per piece.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class TuningSet {
+
+    private static final byte[] PIECE_INDICES = createPieceIndices();
+
+    private short[] features = new short[1 << 10];
+    private int[] offsets = new int[(1 << 6) + 1];
+    private byte[] results = new byte[1 << 6]; // half points of white: 0 loss, 1 draw, 2 win
+    private int size;
+    private int featureCount;
+
+    /**
+     * Reads the positions of the file.
+     * @param file Path - one position per line, see {@link #add(String)}
+     * @return TuningSet - the positions
+     * @throws IOException - if the file cannot be read
+     */
+    public static TuningSet load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    /**
+     * Reads the positions of the reader, empty lines and lines starting with # are skipped.
+     * @param reader Reader - one position per line, see {@link #add(String)}
+     * @return TuningSet - the positions
+     * @throws IOException - if the reader fails
+     */
+    public static TuningSet load(Reader reader) throws IOException {
+        TuningSet set = new TuningSet();
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (!line.isBlank() && !line.startsWith("#"))
+                set.add(line);
+        }
+        set.trim();
+        return set;
+    }
+
+    /**
+     * Adds the position of the line: the notation in the order of {@link chatzis.nikolas.chess.game.Board#createNewBoard(String)}
+     * followed by the result of white as last field: "1-0", "0-1", "1/2-1/2", "1.0", "0.5" or "0.0", optionally in brackets or quotes.
+     * Only the piece placement of the notation is used.
+     * @param line String - the line
+     * @throws IllegalArgumentException - if the line has no valid placement or result
+     */
+    public void add(String line) {
+        String trimmed = line.trim();
+        int lastSpace = trimmed.lastIndexOf(' ');
+        if (lastSpace < 0)
+            throw new IllegalArgumentException("No result in " + line);
+        byte result = parseResult(trimmed.substring(lastSpace + 1).replaceAll("[\\[\\]\";]", ""));
+
+        if (size == results.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(64, size * 2) + 1);
+            results = Arrays.copyOf(results, Math.max(64, size * 2));
+        }
+        int start = featureCount;
+        int position = 0;
+        for (int i = 0; i < trimmed.length() && trimmed.charAt(i) != ' '; i++) {
+            char c = trimmed.charAt(i);
+            if (c == '/')
+                continue;
+            if (c >= '1' && c <= '8') {
+                position += c - '0';
+                continue;
+            }
+            if (c >= PIECE_INDICES.length || PIECE_INDICES[c] < 0 || position > 63) {
+                featureCount = start;
+                throw new IllegalArgumentException("Invalid placement in " + line);
+            }
+            if (featureCount == features.length)
+                features = Arrays.copyOf(features, Math.max(1024, featureCount * 2));
+            features[featureCount++] = (short) (PIECE_INDICES[c] * 64 + position++);
+        }
+        offsets[size] = start;
+        offsets[size + 1] = featureCount;
+        results[size++] = result;
+    }
+
+    private static byte parseResult(String result) {
+        return switch (result) {
+            case "1-0", "1.0", "1" -> 2;
+            case "1/2-1/2", "0.5" -> 1;
+            case "0-1", "0.0", "0" -> 0;
+            default -> throw new IllegalArgumentException("Invalid result " + result);
+        };
+    }
+
+    /**
+     * Releases the unused capacity of the arrays.
+     */
+    public void trim() {
+        features = Arrays.copyOf(features, featureCount);
+        offsets = Arrays.copyOf(offsets, size + 1);
+        results = Arrays.copyOf(results, size);
+    }
+
+    short[] getFeatures() {
+        return features;
+    }
+
+    int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Returns the result of white.
+     * @param position int - the index of the position
+     * @return double - 1 for a win, 0.5 for a draw and 0 for a loss
+     */
+    public double getResult(int position) {
+        return results[position] / 2.0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static byte[] createPieceIndices() {
+        byte[] indices = new byte[128];
+        Arrays.fill(indices, (byte) -1);
+        for (char name : "PNBRQKpnbrqk".toCharArray())
+            indices[name] = BoardUtils.getPieceByChar(name).getIndex();
+        return indices;
+    }
+}
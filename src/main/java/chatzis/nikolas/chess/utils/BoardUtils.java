@@ -1,6 +1,5 @@
 package chatzis.nikolas.chess.utils;
 
-import chatzis.nikolas.chess.game.Player;
 import chatzis.nikolas.chess.pieces.*;
 
 public class BoardUtils {
@@ -15,7 +14,9 @@ public class BoardUtils {
      * @param from int - from position
      * @param to   int - to position
      * @return boolean - stays on board
+     * @deprecated only guesses by the distance of the columns, moves are checked by {@link Mailbox#move(int, int)}
      */
+    @Deprecated
     public static boolean staysOnBoard(int from, int to) {
         if (to < 0 || to > 63)
             return false;
@@ -32,51 +33,26 @@ public class BoardUtils {
     }
 
     /**
-     * Returns the piece instance.
+     * Returns the shared piece instance.
      * @param name char - the name character.
-     * @param i byte - the position of the piece.
      * @return {@link Piece} - the piece.
      * @since 1.0-SNAPSHOT
      */
-    public static Piece getPieceByChar(char name, byte i) {
-        switch (name) {
-            case 'B' -> {
-                return new Bishop(Player.WHITE, i);
-            }
-            case 'b' -> {
-                return new Bishop(Player.BLACK, i);
-            }
-            case 'K' -> {
-                return new King(Player.WHITE, i);
-            }
-            case 'k' -> {
-                return new King(Player.BLACK, i);
-            }
-            case 'N' -> {
-                return new Knight(Player.WHITE, i);
-            }
-            case 'n' -> {
-                return new Knight(Player.BLACK, i);
-            }
-            case 'P' -> {
-                return new Pawn(Player.WHITE, i);
-            }
-            case 'p' -> {
-                return new Pawn(Player.BLACK, i);
-            }
-            case 'Q' -> {
-                return new Queen(Player.WHITE, i);
-            }
-            case 'q' -> {
-                return new Queen(Player.BLACK, i);
-            }
-            case 'R' -> {
-                return new Rook(Player.WHITE, i);
-            }
-            case 'r' -> {
-                return new Rook(Player.BLACK, i);
-            }
+    public static Piece getPieceByChar(char name) {
+        return switch (name) {
+            case 'B' -> Bishop.WHITE;
+            case 'b' -> Bishop.BLACK;
+            case 'K' -> King.WHITE;
+            case 'k' -> King.BLACK;
+            case 'N' -> Knight.WHITE;
+            case 'n' -> Knight.BLACK;
+            case 'P' -> Pawn.WHITE;
+            case 'p' -> Pawn.BLACK;
+            case 'Q' -> Queen.WHITE;
+            case 'q' -> Queen.BLACK;
+            case 'R' -> Rook.WHITE;
+            case 'r' -> Rook.BLACK;
             default -> throw new IllegalStateException(name + " is not a piece");
-        }
+        };
     }
 }
@@ -0,0 +1,65 @@
+package chatzis.nikolas.chess.utils;
+
+import java.util.Arrays;
+
+/**
+ * The 10x12 mailbox: the 64 positions surrounded by a border of one column on each side and two rows
+ * at the top and the bottom, so even knight jumps from any position stay inside the array.
+ * Moving by a mailbox offset and reading the array tells if the target is off the board, without any
+ * column arithmetic. Outside the move generation positions stay numbered 0 - 63.
+ * Offsets: one column is 1, one row is 10.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class Mailbox {
+
+    public static final int[] ROOK_OFFSETS = {1, -1, 10, -10};
+    public static final int[] BISHOP_OFFSETS = {9, -9, 11, -11};
+    public static final int[] QUEEN_OFFSETS = {1, -1, 10, -10, 9, -9, 11, -11};
+    public static final int[] KING_OFFSETS = QUEEN_OFFSETS;
+    public static final int[] KNIGHT_OFFSETS = {8, -8, 12, -12, 19, -19, 21, -21};
+
+    private static final byte[] MAILBOX = new byte[120]; // position or -1 for the border
+    private static final byte[] MAILBOX_INDEX = new byte[64]; // mailbox index of every position
+
+    static {
+        Arrays.fill(MAILBOX, (byte) -1);
+        for (byte position = 0; position < 64; position++) {
+            int index = (position / 8 + 2) * 10 + position % 8 + 1;
+            MAILBOX[index] = position;
+            MAILBOX_INDEX[position] = (byte) index;
+        }
+    }
+
+    private Mailbox() {
+        throw new UnsupportedOperationException("Mailbox is an utility class");
+    }
+
+    /**
+     * Moves from the position by the offset.
+     * @param position int - the position (0 - 63)
+     * @param offset int - the mailbox offset, at most two rows and one column
+     * @return int - the target position (0 - 63) or -1 if it is off the board
+     */
+    public static int move(int position, int offset) {
+        return MAILBOX[MAILBOX_INDEX[position] + offset];
+    }
+
+    /**
+     * Returns the mailbox index of the position.
+     * @param position int - the position (0 - 63)
+     * @return int - the mailbox index (21 - 98)
+     */
+    public static int toMailbox(int position) {
+        return MAILBOX_INDEX[position];
+    }
+
+    /**
+     * Returns the position of the mailbox index.
+     * @param index int - the mailbox index (0 - 119)
+     * @return int - the position (0 - 63) or -1 for the border
+     */
+    public static int fromMailbox(int index) {
+        return MAILBOX[index];
+    }
+}
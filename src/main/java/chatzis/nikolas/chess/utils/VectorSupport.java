@@ -0,0 +1,51 @@
+package chatzis.nikolas.chess.utils;
+
+import java.lang.reflect.Constructor;
+import java.util.function.Supplier;
+
+/**
+ * Loads implementations, which use the vector api, only if the module jdk.incubator.vector is added
+ * (--add-modules jdk.incubator.vector). They are loaded by name, so the incubator classes are never touched without the module.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class VectorSupport {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private VectorSupport() {
+        throw new UnsupportedOperationException("VectorSupport is a utility class and should not be instantiated.");
+    }
+
+    /**
+     * Checks if the vector api can be used.
+     * @return boolean - the module jdk.incubator.vector is added
+     */
+    public static boolean isAvailable() {
+        return ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent();
+    }
+
+    /**
+     * Instantiates the vector implementation, or the fallback if the module is missing or the class cannot be loaded.
+     * @param className String - the binary name of the vector implementation
+     * @param fallback Supplier<T> - creates the implementation without vectors
+     * @param arguments Object[] - the constructor arguments, the constructor has to declare their exact classes
+     * @param <T> - the type of both implementations
+     * @return T - the vector implementation if available, else the fallback
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T loadVectorImplementation(String className, Supplier<T> fallback, Object... arguments) {
+        if (!isAvailable())
+            return fallback.get();
+        Class<?>[] parameterTypes = new Class<?>[arguments.length];
+        for (int i = 0; i < arguments.length; i++)
+            parameterTypes[i] = arguments[i].getClass();
+        try {
+            Constructor<?> constructor = Class.forName(className).getDeclaredConstructor(parameterTypes);
+            constructor.setAccessible(true); // the implementations are package-private
+            return (T) constructor.newInstance(arguments);
+        } catch (ReflectiveOperationException | LinkageError exception) {
+            return fallback.get();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package chatzis.nikolas.chess.utils;
+
+import chatzis.nikolas.chess.game.Player;
+import chatzis.nikolas.chess.pieces.Piece;
+
+import java.util.Random;
+
+/**
+ * Zobrist hashing to create a 64-bit key of a position.
+ * Two boards with the same pieces, current player, castle rights and en passant position have the same key.
+ * @author Nikolas Chatzis
+ * @since 1.1-SNAPSHOT
+ */
+public class Zobrist {
+
+    private static final long[][] PIECES = new long[12][64];
+    private static final long[] CASTLING = new long[4];
+    private static final long[] EN_PASSANT = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        Random random = new Random(0x5EED_C4E55L);
+        for (long[] piece : PIECES) {
+            for (int i = 0; i < piece.length; i++)
+                piece[i] = random.nextLong();
+        }
+        for (int i = 0; i < CASTLING.length; i++)
+            CASTLING[i] = random.nextLong();
+        for (int i = 0; i < EN_PASSANT.length; i++)
+            EN_PASSANT[i] = random.nextLong();
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+        throw new UnsupportedOperationException("Zobrist is a utility class and should not be instantiated.");
+    }
+
+    /**
+     * Calculates the key of the given position.
+     * @param pieces Piece[] - the pieces indexed by their position
+     * @param currentPlayer Player - the player to move
+     * @param castlingRights boolean[][] - [[W-king-sided?, W-queen-sided?], [B-king-sided?, B-queen-sided?]]
+     * @param enPassant byte - the en passant position or -1
+     * @return long - the key of the position
+     */
+    public static long hash(Piece[] pieces, Player currentPlayer, boolean[][] castlingRights, byte enPassant) {
+        long hash = 0;
+        for (int i = 0; i < pieces.length; i++) {
+            if (pieces[i] != null)
+                hash ^= PIECES[pieces[i].getIndex()][i];
+        }
+        for (int player = 0; player < 2; player++) {
+            for (int side = 0; side < 2; side++) {
+                if (castlingRights[player][side])
+                    hash ^= CASTLING[player * 2 + side];
+            }
+        }
+        if (enPassant >= 0)
+            hash ^= EN_PASSANT[enPassant % 8];
+        if (currentPlayer == Player.BLACK)
+            hash ^= BLACK_TO_MOVE;
+        return hash;
+    }
+
+    /**
+     * Updates the key of a position, in which the current player passes the move to the other player.
+     * @param hash long - the key of the position
+     * @param enPassant byte - the en passant position of the position, which is cleared by passing, or -1
+     * @return long - the key of the position after passing
+     */
+    public static long pass(long hash, byte enPassant) {
+        if (enPassant >= 0)
+            hash ^= EN_PASSANT[enPassant % 8];
+        return hash ^ BLACK_TO_MOVE;
+    }
+
+    /**
+     * Returns the key of the piece on the position, which is xor-ed into the key of a position.
+     * @param piece Piece - the piece
+     * @param position int - the position of the piece
+     * @return long - the key of the piece
+     */
+    public static long piece(Piece piece, int position) {
+        return PIECES[piece.getIndex()][position];
+    }
+
+    /**
+     * Returns the key of a castle right, which is xor-ed into the key of a position.
+     * @param player int - the ordinal of the player
+     * @param side int - 0 for king-sided, 1 for queen-sided
+     * @return long - the key of the castle right
+     */
+    public static long castling(int player, int side) {
+        return CASTLING[player * 2 + side];
+    }
+
+    /**
+     * Returns the key of the en passant position, which is xor-ed into the key of a position.
+     * @param enPassant byte - the en passant position or -1
+     * @return long - the key of the en passant position or 0 if there is none
+     */
+    public static long enPassant(byte enPassant) {
+        return enPassant >= 0 ? EN_PASSANT[enPassant % 8] : 0;
+    }
+}